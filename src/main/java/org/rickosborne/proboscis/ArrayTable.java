@@ -0,0 +1,65 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+/**
+ * A write-once, open-addressing hash table over two flat arrays.
+ * Everything is put in before it is ever read and then never changes, so there are no locks, no volatiles,
+ * and no per-entry nodes: a lookup is a hash, a mask, and a few array reads.
+ * Not safe to {@link #putIfAbsent(Object, Object)} after the table has been handed to another thread.
+ * @param <K> Key type, which must have sane {@link Object#hashCode()} and {@link Object#equals(Object)}
+ * @param <V> Value type
+ */
+class ArrayTable<K, V> {
+  private final Object[] keys;
+  private final int mask;
+  private int size = 0;
+  private final Object[] values;
+
+  ArrayTable(final int expectedSize) {
+    // keep the load factor under one half, so probe chains stay short
+    int capacity = 2;
+    while (capacity < expectedSize * 2) capacity <<= 1;
+    keys = new Object[capacity];
+    mask = capacity - 1;
+    values = new Object[capacity];
+  }
+
+  private static int spread(final int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final Object key) {
+    if (key == null) return null;
+    int slot = spread(key.hashCode()) & mask;
+    Object existing;
+    while ((existing = keys[slot]) != null) {
+      if (existing == key || existing.equals(key)) return (V) values[slot];
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Add the key unless it's already there.
+   * @return true if added
+   */
+  public boolean putIfAbsent(@NonNull final K key, final V value) {
+    if (size * 2 >= keys.length) throw new IllegalStateException("ArrayTable is full: " + size);
+    int slot = spread(key.hashCode()) & mask;
+    Object existing;
+    while ((existing = keys[slot]) != null) {
+      if (existing == key || existing.equals(key)) return false;
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,136 @@
+package org.rickosborne.proboscis;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Which beans were built with which others, so that replacing one can find everything built on top of it.
+ * Beans are matched by identity, and held weakly, so this never keeps a bean alive by itself.
+ * Collected beans are cleaned out lazily, whenever something is recorded.
+ */
+class BeanDependents {
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private final Map<Key, Node> nodes = new HashMap<>();
+
+  private void expunge() {
+    Reference<?> ref;
+    while ((ref = collected.poll()) != null) {
+      final Node node = nodes.remove(ref);
+      if (node != null) node.unlink();
+    }
+  }
+
+  /**
+   * @return Every bean still alive which was built with, or into, another, and whose class passes the test
+   */
+  synchronized List<Object> find(final Predicate<Class<?>> test) {
+    final List<Object> found = new ArrayList<>();
+    for (final Key key : nodes.keySet()) {
+      final Object bean = key.get();
+      if (bean != null && test.test(bean.getClass())) found.add(bean);
+    }
+    return found;
+  }
+
+  /**
+   * Forget the given beans, and everything which was built with them, directly or not.
+   * @return Every bean forgotten which is still alive, the given ones first, then dependencies before their dependents
+   */
+  synchronized List<Object> invalidate(final Collection<?> beans) {
+    final Map<Object, Boolean> seen = new IdentityHashMap<>();
+    final List<Object> invalidated = new ArrayList<>();
+    for (final Object bean : beans) if (seen.put(bean, Boolean.TRUE) == null) invalidated.add(bean);
+    // breadth first, so a bean comes after whatever it was built with
+    for (int i = 0; i < invalidated.size(); i++) {
+      final Node node = nodes.remove(new Key(invalidated.get(i), null));
+      if (node == null) continue;
+      for (final Node dependent : node.dependents) {
+        final Object bean = dependent.key.get();
+        if (bean != null && seen.put(bean, Boolean.TRUE) == null) invalidated.add(bean);
+      }
+      node.unlink();
+    }
+    return invalidated;
+  }
+
+  private Node nodeFor(final Object bean) {
+    final Node existing = nodes.get(new Key(bean, null));
+    if (existing != null) return existing;
+    final Node node = new Node(new Key(bean, collected));
+    nodes.put(node.key, node);
+    return node;
+  }
+
+  /**
+   * Remember that the bean was built with the given dependencies.
+   */
+  synchronized void record(final Object bean, final Object[] dependencies) {
+    expunge();
+    Node dependent = null;
+    for (final Object dependency : dependencies) {
+      if (dependency == null || dependency == bean) continue;
+      if (dependent == null) dependent = nodeFor(bean);
+      final Node node = nodeFor(dependency);
+      node.dependents.add(dependent);
+      dependent.dependencies.add(node);
+    }
+  }
+
+  /**
+   * Same as {@link #record(Object, Object[])} for each bean, with the dependencies at the same index, under one lock.
+   * Beans with NULL dependencies are skipped.
+   */
+  synchronized void recordAll(final List<?> beans, final Object[][] dependencies) {
+    for (int i = 0; i < dependencies.length; i++) if (dependencies[i] != null) record(beans.get(i), dependencies[i]);
+  }
+
+  /**
+   * Weak, and equal only to a key for the very same bean.
+   */
+  private static class Key extends WeakReference<Object> {
+    private final int hash;
+
+    private Key(final Object referent, final ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      hash = System.identityHashCode(referent);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Key)) return false;
+      final Object referent = get();
+      return referent != null && referent == ((Key) other).get();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static class Node {
+    private final Set<Node> dependencies = new LinkedHashSet<>();
+    private final Set<Node> dependents = new LinkedHashSet<>();
+    private final Key key;
+
+    private Node(final Key key) {
+      this.key = key;
+    }
+
+    private void unlink() {
+      for (final Node dependency : dependencies) dependency.dependents.remove(this);
+      for (final Node dependent : dependents) dependent.dependencies.remove(this);
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+
+import javax.inject.Provider;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of {@link BeanRetention#POOLED pooled} beans, for those which are expensive to build but only needed
+ * for a unit of work at a time.  {@link #lease() Lease} one, use it, and {@link #release(Object) release} it,
+ * at which point its {@link Reset} hooks run and it waits for the next lease.
+ * If the pool is empty, a lease builds a new bean; if the pool is full, a release destroys the bean instead.
+ * <p>
+ * Idle beans are kept in stripes picked by thread, most recently released first,
+ * so a thread which releases and then leases again usually gets the same, still cache-warm, instance back,
+ * and threads don't contend unless one has to steal from another's stripe.
+ * Beans which have sat idle for longer than the idle timeout are destroyed, lazily, by whichever lease or release
+ * next notices, so a pool which has gone quiet shrinks back down.
+ * </p>
+ * <pre>
+ *   public class Importer {
+ *     private final BeanPool&lt;CsvParser&gt; parsers;
+ *
+ *     public Importer(final BeanPool&lt;CsvParser&gt; parsers) {
+ *       this.parsers = parsers;
+ *     }
+ *
+ *     public List&lt;Row&gt; parse(final Path path) {
+ *       return parsers.apply(parser -&gt; parser.parse(path));
+ *     }
+ *   }
+ * </pre>
+ * @param <T> Pooled type
+ * @see DependencyInjectionContext#poolFor(Class)
+ */
+@Log
+public class BeanPool<T> implements Supplier<T>, Provider<T> {
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+  private final LongAdder createdCount = new LongAdder();
+  private final Consumer<Object> discard;
+  private final LongAdder discardCount = new LongAdder();
+  private final Supplier<T> factory;
+  private final LongAdder hitCount = new LongAdder();
+  /**
+   * Only moves under the lock of the stripe it's counting a bean into or out of, so it never runs past the max size.
+   */
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final long idleTimeoutNanos;
+  private volatile long lastTrimNanos = System.nanoTime();
+  private final LongAdder leaseCount = new LongAdder();
+  @Getter
+  private final int maxSize;
+  private final Consumer<Object> reset;
+  private final Stripe<T>[] stripes;
+  @Getter
+  private final Class<T> type;
+
+  BeanPool(final Class<T> type, final int maxSize, final Duration idleTimeout, final Supplier<T> factory, final Consumer<Object> reset, final Consumer<Object> discard) {
+    if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    this.discard = discard;
+    this.factory = factory;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.maxSize = maxSize;
+    this.reset = reset;
+    this.type = type;
+    @SuppressWarnings({"rawtypes", "unchecked"}) final Stripe<T>[] stripes = new Stripe[Math.max(1, Math.min(maxSize, Runtime.getRuntime().availableProcessors()))];
+    this.stripes = stripes;
+    for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe<>();
+  }
+
+  /**
+   * Lease a bean, hand it to the block, and release it again however the block finishes.
+   */
+  public <R> R apply(@NonNull final Function<? super T, ? extends R> block) {
+    final T bean = lease();
+    try {
+      return block.apply(bean);
+    } finally {
+      release(bean);
+    }
+  }
+
+  /**
+   * Destroy every idle bean now.  Leased beans are unaffected, and can still be released afterward.
+   */
+  public void clear() {
+    trim(0, true);
+  }
+
+  private void destroy(final Object bean) {
+    discardCount.increment();
+    discard.accept(bean);
+  }
+
+  /**
+   * Empty the pool without destroying anything, for when something else is about to destroy it all anyway.
+   */
+  void drain() {
+    for (final Stripe<T> stripe : stripes) {
+      synchronized (stripe) {
+        idleCount.addAndGet(-stripe.idle.size());
+        stripe.idle.clear();
+      }
+    }
+  }
+
+  /**
+   * Same as {@link #lease()}, so that the pool can be injected wherever a {@link Supplier} is wanted.
+   */
+  @Override
+  public T get() {
+    return lease();
+  }
+
+  public long getCreatedCount() {
+    return createdCount.sum();
+  }
+
+  /**
+   * Beans destroyed because the pool was full, they had been idle too long, or their {@link Reset} hooks failed.
+   */
+  public long getDiscardCount() {
+    return discardCount.sum();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * The fraction of leases which reused an idle bean instead of building one.
+   */
+  public double getHitRate() {
+    final long leases = getLeaseCount();
+    return leases == 0 ? 0d : ((double) getHitCount()) / leases;
+  }
+
+  public int getIdleCount() {
+    return idleCount.get();
+  }
+
+  public long getLeaseCount() {
+    return leaseCount.sum();
+  }
+
+  private int homeIndex() {
+    return (int) (Thread.currentThread().getId() % stripes.length);
+  }
+
+  /**
+   * Take an idle bean, preferring this thread's own, or build a new one if there aren't any.
+   * @throws org.rickosborne.proboscis.ex.NoSuchBeanException if one has to be built and can't be
+   */
+  public T lease() {
+    leaseCount.increment();
+    trimIfDue(System.nanoTime());
+    if (idleCount.get() > 0) {
+      final int home = homeIndex();
+      for (int i = 0; i < stripes.length; i++) {
+        final Stripe<T> stripe = stripes[(home + i) % stripes.length];
+        final Idle<T> idle;
+        synchronized (stripe) {
+          idle = stripe.idle.pollLast();
+          if (idle != null) idleCount.decrementAndGet();
+        }
+        if (idle != null) {
+          hitCount.increment();
+          return idle.bean;
+        }
+      }
+    }
+    final T built = factory.get();
+    createdCount.increment();
+    return built;
+  }
+
+  /**
+   * Give a leased bean back.  Its {@link Reset} hooks run first, on this thread.
+   * Releasing the same bean twice without leasing it in between is a bug, and will hand it out twice.
+   */
+  public void release(final T bean) {
+    if (bean == null) return;
+    final long now = System.nanoTime();
+    try {
+      reset.accept(bean);
+    } catch (final RuntimeException e) {
+      log.warning("Could not reset " + type.getSimpleName() + ", so not reusing it: " + e);
+      destroy(bean);
+      return;
+    }
+    final Stripe<T> stripe = stripes[homeIndex()];
+    final boolean full;
+    synchronized (stripe) {
+      full = idleCount.incrementAndGet() > maxSize;
+      if (full) idleCount.decrementAndGet();
+      else stripe.idle.addLast(new Idle<>(bean, now));
+    }
+    if (full) destroy(bean);
+    else trimIfDue(now);
+  }
+
+  /**
+   * Destroy idle beans released before the given time, or all of them.
+   */
+  private void trim(final long releasedBeforeNanos, final boolean all) {
+    final List<Object> expired = new ArrayList<>();
+    for (final Stripe<T> stripe : stripes) {
+      synchronized (stripe) {
+        // oldest first, at the head
+        while (!stripe.idle.isEmpty() && (all || stripe.idle.peekFirst().releasedNanos - releasedBeforeNanos < 0)) {
+          expired.add(stripe.idle.pollFirst().bean);
+          idleCount.decrementAndGet();
+        }
+      }
+    }
+    for (final Object bean : expired) destroy(bean);
+  }
+
+  private void trimIfDue(final long now) {
+    final long last = lastTrimNanos;
+    if (now - last < idleTimeoutNanos) return;
+    lastTrimNanos = now;
+    trim(now - idleTimeoutNanos, false);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "<" + type.getSimpleName() + ">";
+  }
+
+  @RequiredArgsConstructor
+  private static class Idle<T> {
+    private final T bean;
+    private final long releasedNanos;
+  }
+
+  /**
+   * Guarded by its own lock.
+   */
+  private static class Stripe<T> {
+    private final ArrayDeque<Idle<T>> idle = new ArrayDeque<>();
+  }
+}
@@ -0,0 +1,41 @@
+package org.rickosborne.proboscis;
+
+/**
+ * How tightly a {@link DependencyInjectionContext} holds on to the beans it builds.
+ * Set it per type with {@link Retained} or {@link DependencyInjectionContext#withRetention(Class, BeanRetention)}.
+ * Beans you {@link DependencyInjectionContext#registerBean(Class, Object, String) register} yourself are always {@link #STRONG}.
+ * Only {@link #STRONG} and {@link #POOLED} beans get their {@code @PreDestroy} hooks, or are closed, by the context:
+ * it doesn't keep the others, so they're yours to close.
+ */
+public enum BeanRetention {
+  /**
+   * Singleton: built once, kept for the life of the context.  The default.
+   */
+  STRONG,
+  /**
+   * Reused until the GC decides it needs the memory.
+   */
+  SOFT,
+  /**
+   * Reused only while something else still holds a reference to it.
+   */
+  WEAK,
+  /**
+   * Kept strongly, but only the most recently used handful per raw type.
+   * Most useful for parameterized beans built for many different type arguments.
+   * @see Retained#maxSize()
+   */
+  BOUNDED,
+  /**
+   * Transient: never kept, so every build produces a new instance.
+   */
+  NONE,
+  /**
+   * Never kept by the context itself, but reused through a {@link BeanPool}:
+   * inject a {@code BeanPool<T>}, or a {@code Supplier<T>}, and lease and release instances per unit of work.
+   * At most {@link Retained#maxSize()} idle instances are kept, and those idle for too long are let go.
+   * @see Reset
+   * @see DependencyInjectionContext#poolFor(Class)
+   */
+  POOLED,
+}
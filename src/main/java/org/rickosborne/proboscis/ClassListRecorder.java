@@ -0,0 +1,162 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Training mode for an AppCDS archive of the wiring footprint.
+ * {@link #attach(DependencyInjectionContext) Attach} one to a context during a representative startup, and it records
+ * every named type the context knows, every type it builds (or fails to), and all of their supertypes.
+ * {@link #write(Path) Write} that out as a class list, and {@link #createArchive(Path, Path, String)} turns it into
+ * an archive with the stock JDK, which later starts pick up with {@link #runFlags(Path)}.
+ * <p>
+ * Classes loaded by the engine's own dependencies, such as {@code org.reflections}, aren't seen by the context.
+ * To cover those as well, run the training start with {@link #trainingFlags(Path)}, which has the JVM dump
+ * everything it loads, and {@link #mergeFrom(Path) merge} that list in before writing.
+ * </p>
+ */
+public class ClassListRecorder implements ContextMeter {
+  private final Set<Class<?>> classes = ConcurrentHashMap.newKeySet();
+  private final Set<String> merged = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Start recording everything the context loads from now on, plus all of the named types it already knows.
+   */
+  public static ClassListRecorder attach(@NonNull final DependencyInjectionContext context) {
+    final ClassListRecorder recorder = new ClassListRecorder();
+    recorder.record(DependencyInjectionContext.class);
+    for (final Class<?> named : context.implementationsFor(Object.class)) recorder.record(named);
+    context.withMeter(recorder);
+    return recorder;
+  }
+
+  @Override
+  public void built(final Class<?> type, final long nanos) {
+    record(type);
+  }
+
+  /**
+   * The JVM command which turns a class list into an archive.
+   * @param classPath The same class path the application will run with
+   */
+  public static List<String> dumpCommand(@NonNull final Path classList, @NonNull final Path archive, @NonNull final String classPath) {
+    return Arrays.asList(
+      javaExecutable(),
+      "-Xshare:dump",
+      "-XX:SharedClassListFile=" + classList.toAbsolutePath(),
+      "-XX:SharedArchiveFile=" + archive.toAbsolutePath(),
+      "-cp", classPath
+    );
+  }
+
+  /**
+   * Run {@link #dumpCommand(Path, Path, String)} and wait for it.
+   * @throws IllegalStateException if the JVM couldn't create the archive
+   */
+  public static void createArchive(@NonNull final Path classList, @NonNull final Path archive, @NonNull final String classPath) throws IOException, InterruptedException {
+    final Process process = new ProcessBuilder(dumpCommand(classList, archive, classPath))
+      .redirectErrorStream(true)
+      .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+      .start();
+    final int exitCode = process.waitFor();
+    if (exitCode != 0 || !Files.exists(archive)) throw new IllegalStateException("Could not create CDS archive " + archive + ", exit code " + exitCode);
+  }
+
+  @Override
+  public void failed(final Class<?> type, final RuntimeException error) {
+    record(type);
+  }
+
+  /**
+   * Only classes from the boot, platform, or application class loaders can go in a static archive.
+   */
+  private static boolean isArchivable(final Class<?> type) {
+    if (type.isArray() || type.isPrimitive() || type.isSynthetic() || type.getName().contains("$$Lambda")) return false;
+    final ClassLoader loader = type.getClassLoader();
+    for (ClassLoader builtIn = ClassLoader.getSystemClassLoader(); builtIn != null; builtIn = builtIn.getParent()) {
+      if (loader == builtIn) return true;
+    }
+    return loader == null;
+  }
+
+  static String javaExecutable() {
+    return Paths.get(System.getProperty("java.home"), "bin", File.separatorChar == '\\' ? "java.exe" : "java").toString();
+  }
+
+  /**
+   * Add every class from a list the JVM dumped with {@link #trainingFlags(Path)}.
+   * @throws UncheckedIOException if it can't be read
+   */
+  public ClassListRecorder mergeFrom(@NonNull final Path classList) {
+    try {
+      for (final String line : Files.readAllLines(classList, StandardCharsets.UTF_8)) {
+        final String trimmed = line.trim();
+        // newer JDKs add comments, ids, and lambda proxy lines, none of which are class names
+        if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("@")) continue;
+        merged.add(trimmed.split("\\s+", 2)[0]);
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return this;
+  }
+
+  public void record(@NonNull final Class<?> type) {
+    for (final Class<?> supertype : Util.supertypesOf(type)) classes.add(supertype);
+  }
+
+  /**
+   * The flags a later start needs in order to use the archive.
+   * Sharing is left on {@code auto}, so a missing or mismatched archive just means a slower start.
+   */
+  public static List<String> runFlags(@NonNull final Path archive) {
+    return Arrays.asList("-Xshare:auto", "-XX:SharedArchiveFile=" + archive.toAbsolutePath());
+  }
+
+  public int size() {
+    return toClassList().size();
+  }
+
+  /**
+   * Sorted, de-duplicated, and in the JVM's own {@code java/lang/Object} form.
+   */
+  public List<String> toClassList() {
+    final Set<String> names = new TreeSet<>(merged);
+    for (final Class<?> type : classes) {
+      if (isArchivable(type)) names.add(type.getName().replace('.', '/'));
+    }
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * The flags which make the JVM dump every class it loads to the given list, for {@link #mergeFrom(Path)}.
+   */
+  public static List<String> trainingFlags(@NonNull final Path classList) {
+    return Arrays.asList("-Xshare:off", "-XX:DumpLoadedClassList=" + classList.toAbsolutePath());
+  }
+
+  /**
+   * Write the class list for {@link #createArchive(Path, Path, String)}.
+   * @throws UncheckedIOException if it can't be written
+   */
+  public void write(@NonNull final Path classList) {
+    try {
+      Files.write(classList, toClassList(), StandardCharsets.UTF_8);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
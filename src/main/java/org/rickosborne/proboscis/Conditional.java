@@ -0,0 +1,53 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Only scan this type in as a bean when every condition given holds.
+ * Conditions are read from the class file and decided before the class is ever loaded,
+ * so a type which is switched off costs a little scanning but no class loading, planning, or indexing.
+ * They are decided once, when the {@link DependencyInjectionContext} is created.
+ * <pre>
+ *   \@Named
+ *   \@Conditional(property = "search.engine", havingValue = "lucene", onClass = "org.apache.lucene.index.IndexWriter")
+ *   public class LuceneSearch implements Search { }
+ *
+ *   \@Named
+ *   \@Conditional(onBean = Search.class)
+ *   public class SearchEndpoint { }
+ * </pre>
+ * @see DependencyInjectionContext#DependencyInjectionContext(PropertySource)
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Conditional {
+  /**
+   * A property which must be set.  Blank to skip this check.
+   */
+  String property() default "";
+
+  /**
+   * What the {@link #property()} must be, ignoring case.
+   * Blank accepts any value but {@code false}.
+   */
+  String havingValue() default "";
+
+  /**
+   * Whether an unset {@link #property()} counts as a match.
+   */
+  boolean matchIfMissing() default false;
+
+  /**
+   * Fully-qualified names of classes which must be on the class path.
+   * Names rather than classes, so this class still compiles where they're absent.
+   */
+  String[] onClass() default {};
+
+  /**
+   * Types which some other active, scanned bean must implement.
+   */
+  Class<?>[] onBean() default {};
+}
@@ -0,0 +1,149 @@
+package org.rickosborne.proboscis;
+
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.annotation.Annotation;
+import javassist.bytecode.annotation.ArrayMemberValue;
+import javassist.bytecode.annotation.BooleanMemberValue;
+import javassist.bytecode.annotation.ClassMemberValue;
+import javassist.bytecode.annotation.MemberValue;
+import javassist.bytecode.annotation.StringMemberValue;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which {@link Conditional} types are switched on, from scan metadata and class files alone.
+ * Only the class files of types which are actually annotated are read, with the same bytecode library the scan uses,
+ * and nothing is loaded: properties come from a {@link PropertySource}, classes are looked for as resources,
+ * and bean conditions are checked against the names of the other candidates and their scanned supertypes.
+ */
+@Log
+class Conditions {
+  private final ClassLoader classLoader = Loader.class.getClassLoader();
+  private final PropertySource properties;
+
+  Conditions(@NonNull final PropertySource properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * The candidates whose conditions all hold, in their original order.
+   * A bean condition holds if any other surviving candidate, or any of the others given, is or implements the type.
+   * As dropping one candidate can strand another which needed it, candidates are dropped until nothing else changes.
+   */
+  Set<String> filter(@NonNull final Collection<String> candidates, @NonNull final Collection<String> others) {
+    final Set<String> active = new LinkedHashSet<>(candidates);
+    final Set<String> conditional = Loader.getTypeNamesAnnotatedWith(Conditional.class, false);
+    if (conditional.isEmpty()) return active;
+    final Map<String, Condition> onBeans = new LinkedHashMap<>();
+    for (final String name : candidates) {
+      if (!conditional.contains(name)) continue;
+      final Condition condition = read(name);
+      if (condition == null) continue;
+      if (!holdsWithoutBeans(condition)) active.remove(name);
+      else if (condition.onBean.length > 0) onBeans.put(name, condition);
+    }
+    final Map<String, Set<String>> implementors = new HashMap<>();
+    boolean changed = !onBeans.isEmpty();
+    while (changed) {
+      changed = false;
+      for (final Map.Entry<String, Condition> entry : onBeans.entrySet()) {
+        final String name = entry.getKey();
+        if (!active.contains(name)) continue;
+        for (final String required : entry.getValue().onBean) {
+          if (isPresent(required, name, active, others, implementors)) continue;
+          active.remove(name);
+          changed = true;
+          break;
+        }
+      }
+    }
+    return active;
+  }
+
+  private boolean holdsWithoutBeans(final Condition condition) {
+    if (!condition.property.isEmpty()) {
+      final String value = properties.get(condition.property);
+      if (value == null) {
+        if (!condition.matchIfMissing) return false;
+      } else if (condition.havingValue.isEmpty() ? "false".equalsIgnoreCase(value.trim()) : !condition.havingValue.equalsIgnoreCase(value.trim())) {
+        return false;
+      }
+    }
+    for (final String className : condition.onClass) {
+      if (classLoader.getResource(className.replace('.', '/') + ".class") == null) return false;
+    }
+    return true;
+  }
+
+  private static boolean isPresent(final String required, final String self, final Set<String> active, final Collection<String> others, final Map<String, Set<String>> implementors) {
+    final Set<String> candidates = implementors.computeIfAbsent(required, r -> {
+      final Set<String> names = new LinkedHashSet<>(Loader.getSubTypeNamesOf(r));
+      names.add(r);
+      return names;
+    });
+    for (final String candidate : candidates) {
+      if (!candidate.equals(self) && (active.contains(candidate) || others.contains(candidate))) return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return NULL if the class file can't be read, or doesn't have the annotation after all
+   */
+  private Condition read(final String name) {
+    try (final InputStream in = classLoader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+      if (in == null) return null;
+      final ClassFile classFile = new ClassFile(new DataInputStream(new BufferedInputStream(in)));
+      final AnnotationsAttribute visible = (AnnotationsAttribute) classFile.getAttribute(AnnotationsAttribute.visibleTag);
+      final Annotation annotation = visible == null ? null : visible.getAnnotation(Conditional.class.getName());
+      if (annotation == null) return null;
+      final MemberValue matchIfMissing = annotation.getMemberValue("matchIfMissing");
+      return new Condition(
+        stringOf(annotation.getMemberValue("property")),
+        stringOf(annotation.getMemberValue("havingValue")),
+        matchIfMissing instanceof BooleanMemberValue && ((BooleanMemberValue) matchIfMissing).getValue(),
+        stringsOf(annotation.getMemberValue("onClass")),
+        stringsOf(annotation.getMemberValue("onBean"))
+      );
+    } catch (final IOException e) {
+      log.warning("Could not read conditions for " + name + ": " + e);
+      return null;
+    }
+  }
+
+  private static String stringOf(final MemberValue value) {
+    if (value instanceof StringMemberValue) return ((StringMemberValue) value).getValue();
+    if (value instanceof ClassMemberValue) return ((ClassMemberValue) value).getValue();
+    return "";
+  }
+
+  private static String[] stringsOf(final MemberValue value) {
+    if (!(value instanceof ArrayMemberValue)) return new String[0];
+    final MemberValue[] values = ((ArrayMemberValue) value).getValue();
+    final String[] strings = new String[values.length];
+    for (int i = 0; i < values.length; i++) strings[i] = stringOf(values[i]);
+    return strings;
+  }
+
+  @RequiredArgsConstructor
+  private static class Condition {
+    private final String property;
+    private final String havingValue;
+    private final boolean matchIfMissing;
+    private final String[] onClass;
+    private final String[] onBean;
+  }
+}
@@ -0,0 +1,13 @@
+package org.rickosborne.proboscis;
+
+/**
+ * Told about every object a {@link TypedFactory} constructs, along with the arguments it was given.
+ */
+@FunctionalInterface
+public interface ConstructionListener {
+  /**
+   * @param dependencies The arguments passed to its constructor or static builder
+   * @param finished True if it was built for another bean's parameter, so nothing else will be done to it before it's used
+   */
+  void constructed(final Object bean, final Object[] dependencies, final boolean finished);
+}
@@ -0,0 +1,52 @@
+package org.rickosborne.proboscis;
+
+import java.lang.reflect.Method;
+
+/**
+ * Something which wants to hear about what a {@link DependencyInjectionContext} is doing.
+ * Every method has a no-op default, so implement only what you care about.
+ * Calls happen on the thread doing the lookup or build, so keep them cheap.
+ * @see ContextStatistics for the built-in counters
+ */
+public interface ContextMeter {
+  /**
+   * A bean was requested and was (or wasn't) already known.
+   */
+  default void lookup(final Lookup method, final boolean hit) { }
+
+  /**
+   * A bean was built from scratch.
+   * @param nanos Wall time for the build, including any dependencies it had to build along the way
+   */
+  default void built(final Class<?> type, final long nanos) { }
+
+  /**
+   * A bean was asked for but could not be found or built.
+   */
+  default void missing(final String name, final Class<?> type) { }
+
+  /**
+   * Something blew up while building a bean.
+   */
+  default void failed(final Class<?> type, final RuntimeException error) { }
+
+  /**
+   * A bean was forgotten, because it, or a bean it was built with, was replaced or its class loader unloaded.
+   */
+  default void invalidated(final Class<?> type) { }
+
+  /**
+   * A {@link Timed} method returned, or threw.
+   * @param nanos Wall time for the call, including any interceptors inside the timing one
+   */
+  default void timed(final Method method, final long nanos, final boolean failed) { }
+
+  /**
+   * The ways a context can look for an existing bean.
+   */
+  enum Lookup {
+    BY_NAME,
+    BY_TYPE,
+    BY_PARAMETERIZED_TYPE,
+  }
+}
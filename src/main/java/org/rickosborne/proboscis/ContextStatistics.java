@@ -0,0 +1,238 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for a single {@link DependencyInjectionContext}.
+ * Every context has one of these, available via {@link DependencyInjectionContext#getStatistics()},
+ * and it can be published to JMX with {@link DependencyInjectionContext#registerMBean()}.
+ * Counters are {@link LongAdder}s, so they're cheap to bump from many threads and only slightly fuzzy to read.
+ */
+public class ContextStatistics implements ContextMeter, ContextStatisticsMBean {
+  private final LongAdder buildCount = new LongAdder();
+  private final LongAdder buildNanos = new LongAdder();
+  private final DependencyInjectionContext context;
+  private final LongAdder exceptionCount = new LongAdder();
+  private final Map<Lookup, LongAdder> hits = new EnumMap<>(Lookup.class);
+  private final LongAdder invalidatedBeanCount = new LongAdder();
+  private final Map<Lookup, LongAdder> lookups = new EnumMap<>(Lookup.class);
+  private final LongAdder negativeLookupCount = new LongAdder();
+  private final LongAdder timedCallCount = new LongAdder();
+  private final LongAdder timedCallNanos = new LongAdder();
+  private final LongAdder timedFailureCount = new LongAdder();
+
+  ContextStatistics(@NonNull final DependencyInjectionContext context) {
+    this.context = context;
+    for (final Lookup lookup : Lookup.values()) {
+      hits.put(lookup, new LongAdder());
+      lookups.put(lookup, new LongAdder());
+    }
+  }
+
+  private static double rate(final long hits, final long total) {
+    return total == 0 ? 0d : ((double) hits) / total;
+  }
+
+  @Override
+  public void built(final Class<?> type, final long nanos) {
+    buildCount.increment();
+    buildNanos.add(nanos);
+  }
+
+  @Override
+  public void failed(final Class<?> type, final RuntimeException error) {
+    exceptionCount.increment();
+  }
+
+  @Override
+  public long getBuildCount() {
+    return buildCount.sum();
+  }
+
+  @Override
+  public long getBuildNanos() {
+    return buildNanos.sum();
+  }
+
+  @Override
+  public long getByNameHitCount() {
+    return getHitCount(Lookup.BY_NAME);
+  }
+
+  @Override
+  public double getByNameHitRate() {
+    return getHitRate(Lookup.BY_NAME);
+  }
+
+  @Override
+  public long getByNameLookupCount() {
+    return getLookupCount(Lookup.BY_NAME);
+  }
+
+  @Override
+  public long getByParameterizedTypeHitCount() {
+    return getHitCount(Lookup.BY_PARAMETERIZED_TYPE);
+  }
+
+  @Override
+  public double getByParameterizedTypeHitRate() {
+    return getHitRate(Lookup.BY_PARAMETERIZED_TYPE);
+  }
+
+  @Override
+  public long getByParameterizedTypeLookupCount() {
+    return getLookupCount(Lookup.BY_PARAMETERIZED_TYPE);
+  }
+
+  @Override
+  public long getByTypeHitCount() {
+    return getHitCount(Lookup.BY_TYPE);
+  }
+
+  @Override
+  public double getByTypeHitRate() {
+    return getHitRate(Lookup.BY_TYPE);
+  }
+
+  @Override
+  public long getByTypeLookupCount() {
+    return getLookupCount(Lookup.BY_TYPE);
+  }
+
+  @Override
+  public long getExceptionCount() {
+    return exceptionCount.sum();
+  }
+
+  public long getHitCount(@NonNull final Lookup method) {
+    return hits.get(method).sum();
+  }
+
+  public double getHitRate(@NonNull final Lookup method) {
+    return rate(getHitCount(method), getLookupCount(method));
+  }
+
+  /**
+   * Beans forgotten because they, or something they were built with, were replaced.
+   */
+  @Override
+  public long getInvalidatedBeanCount() {
+    return invalidatedBeanCount.sum();
+  }
+
+  @Override
+  public int getKnownBeanCount() {
+    return context.countKnownBeans();
+  }
+
+  public long getLookupCount(@NonNull final Lookup method) {
+    return lookups.get(method).sum();
+  }
+
+  @Override
+  public int getNamedTypeCount() {
+    return context.countNamedTypes();
+  }
+
+  @Override
+  public long getNegativeLookupCount() {
+    return negativeLookupCount.sum();
+  }
+
+  @Override
+  public int getParameterizedBeanCount() {
+    return context.countParameterizedBeans();
+  }
+
+  @Override
+  public int getPooledBeanCount() {
+    return context.countPooledBeans();
+  }
+
+  @Override
+  public long getPoolHitCount() {
+    return context.sumPools(BeanPool::getHitCount);
+  }
+
+  @Override
+  public double getPoolHitRate() {
+    return rate(getPoolHitCount(), getPoolLeaseCount());
+  }
+
+  @Override
+  public long getPoolLeaseCount() {
+    return context.sumPools(BeanPool::getLeaseCount);
+  }
+
+  @Override
+  public int getRetainedBeanCount() {
+    return context.countRetainedBeans();
+  }
+
+  /**
+   * Generic types with a shared template, however many parameterizations of each have been built.
+   */
+  @Override
+  public int getTemplatePlanCount() {
+    return context.countTemplatePlans();
+  }
+
+  @Override
+  public long getTimedCallCount() {
+    return timedCallCount.sum();
+  }
+
+  @Override
+  public long getTimedCallNanos() {
+    return timedCallNanos.sum();
+  }
+
+  @Override
+  public long getTimedFailureCount() {
+    return timedFailureCount.sum();
+  }
+
+  @Override
+  public void invalidated(final Class<?> type) {
+    invalidatedBeanCount.increment();
+  }
+
+  @Override
+  public void lookup(final Lookup method, final boolean hit) {
+    lookups.get(method).increment();
+    if (hit) hits.get(method).increment();
+  }
+
+  @Override
+  public void missing(final String name, final Class<?> type) {
+    negativeLookupCount.increment();
+  }
+
+  @Override
+  public void reset() {
+    buildCount.reset();
+    buildNanos.reset();
+    exceptionCount.reset();
+    invalidatedBeanCount.reset();
+    negativeLookupCount.reset();
+    timedCallCount.reset();
+    timedCallNanos.reset();
+    timedFailureCount.reset();
+    for (final Lookup lookup : Lookup.values()) {
+      hits.get(lookup).reset();
+      lookups.get(lookup).reset();
+    }
+  }
+
+  @Override
+  public void timed(final Method method, final long nanos, final boolean failed) {
+    timedCallCount.increment();
+    timedCallNanos.add(nanos);
+    if (failed) timedFailureCount.increment();
+  }
+}
@@ -0,0 +1,61 @@
+package org.rickosborne.proboscis;
+
+/**
+ * JMX view of {@link ContextStatistics}.
+ * @see DependencyInjectionContext#registerMBean()
+ */
+public interface ContextStatisticsMBean {
+  int getKnownBeanCount();
+
+  int getParameterizedBeanCount();
+
+  int getTemplatePlanCount();
+
+  int getNamedTypeCount();
+
+  int getRetainedBeanCount();
+
+  int getPooledBeanCount();
+
+  long getPoolLeaseCount();
+
+  long getPoolHitCount();
+
+  double getPoolHitRate();
+
+  long getByNameLookupCount();
+
+  long getByNameHitCount();
+
+  double getByNameHitRate();
+
+  long getByTypeLookupCount();
+
+  long getByTypeHitCount();
+
+  double getByTypeHitRate();
+
+  long getByParameterizedTypeLookupCount();
+
+  long getByParameterizedTypeHitCount();
+
+  double getByParameterizedTypeHitRate();
+
+  long getBuildCount();
+
+  long getBuildNanos();
+
+  long getNegativeLookupCount();
+
+  long getExceptionCount();
+
+  long getInvalidatedBeanCount();
+
+  long getTimedCallCount();
+
+  long getTimedCallNanos();
+
+  long getTimedFailureCount();
+
+  void reset();
+}
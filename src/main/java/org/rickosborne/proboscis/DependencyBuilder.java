@@ -0,0 +1,15 @@
+package org.rickosborne.proboscis;
+
+import java.util.function.Supplier;
+
+/**
+ * Builds the implementations a {@link TypedFactory} chooses for other beans' parameters, so that whoever owns the
+ * beans can share one between dependents, rather than each getting its own.
+ */
+@FunctionalInterface
+public interface DependencyBuilder {
+  /**
+   * @param build Builds a new one, if one is wanted
+   */
+  <T> T build(final Class<T> type, final Supplier<T> build);
+}
@@ -0,0 +1,160 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.lang.reflect.Executable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What {@link DependencyInjectionContext#validate(Class[])} worked out about a context, without building anything:
+ * every type it could reach, how each one would be built, what each depends on, and everything that would go wrong.
+ * <p>
+ * Edges are either eager, for constructor and static builder parameters, or lazy, for injected fields,
+ * which are filled in after their bean is already known to the context.
+ * Only eager edges can make a cycle.
+ * Depth is the longest eager path down to a bean with no dependencies, and fan-out is the number of distinct dependencies.
+ * </p>
+ */
+public class DependencyGraph {
+  @Getter
+  private final Map<Class<?>, Node> nodes;
+  @Getter
+  private final List<Problem> problems;
+
+  DependencyGraph(@NonNull final Map<Class<?>, Node> nodes, @NonNull final List<Problem> problems) {
+    this.nodes = Collections.unmodifiableMap(nodes);
+    this.problems = Collections.unmodifiableList(problems);
+  }
+
+  private static String escape(final String text) {
+    final StringBuilder sb = new StringBuilder(text.length() + 2);
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c == '"' || c == '\\') sb.append('\\').append(c);
+      else if (c == '\n') sb.append("\\n");
+      else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+      else sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  public boolean isValid() {
+    return problems.isEmpty();
+  }
+
+  /**
+   * Graphviz source, with lazy edges dashed and problem types in red.
+   */
+  public String toDot() {
+    final StringBuilder sb = new StringBuilder("digraph beans {\n");
+    final Set<Class<?>> troubled = new HashSet<>();
+    for (final Problem problem : problems) troubled.add(problem.getType());
+    for (final Node node : nodes.values()) {
+      sb.append("  \"").append(escape(node.getType().getName())).append("\" [label=\"")
+        .append(escape(node.getType().getSimpleName())).append("\\ndepth=").append(node.getDepth())
+        .append(" fanOut=").append(node.getFanOut()).append('"');
+      if (troubled.contains(node.getType())) sb.append(", color=red");
+      sb.append("];\n");
+    }
+    for (final Node node : nodes.values()) {
+      for (final Edge edge : node.getEdges()) {
+        sb.append("  \"").append(escape(edge.getFrom().getName())).append("\" -> \"").append(escape(edge.getTo().getName())).append('"');
+        if (!edge.isEager()) sb.append(" [style=dashed]");
+        sb.append(";\n");
+      }
+    }
+    return sb.append("}\n").toString();
+  }
+
+  /**
+   * The same graph as JSON: {@code {"nodes": [...], "problems": [...]}}.
+   */
+  public String toJson() {
+    final StringBuilder sb = new StringBuilder("{\"nodes\":[");
+    boolean firstNode = true;
+    for (final Node node : nodes.values()) {
+      if (!firstNode) sb.append(',');
+      firstNode = false;
+      sb.append("{\"type\":\"").append(escape(node.getType().getName()))
+        .append("\",\"executable\":").append(node.getExecutable() == null ? "null" : "\"" + escape(node.getExecutable().toString()) + "\"")
+        .append(",\"depth\":").append(node.getDepth())
+        .append(",\"fanOut\":").append(node.getFanOut())
+        .append(",\"edges\":[");
+      boolean firstEdge = true;
+      for (final Edge edge : node.getEdges()) {
+        if (!firstEdge) sb.append(',');
+        firstEdge = false;
+        sb.append("{\"to\":\"").append(escape(edge.getTo().getName()))
+          .append("\",\"via\":\"").append(escape(edge.getVia()))
+          .append("\",\"eager\":").append(edge.isEager()).append('}');
+      }
+      sb.append("]}");
+    }
+    sb.append("],\"problems\":[");
+    boolean firstProblem = true;
+    for (final Problem problem : problems) {
+      if (!firstProblem) sb.append(',');
+      firstProblem = false;
+      sb.append("{\"kind\":\"").append(problem.getKind())
+        .append("\",\"type\":\"").append(escape(problem.getType().getName()))
+        .append("\",\"message\":\"").append(escape(problem.getMessage())).append("\"}");
+    }
+    return sb.append("]}").toString();
+  }
+
+  @Value
+  public static class Edge {
+    private final Class<?> from;
+    private final Class<?> to;
+    /**
+     * The parameter or field which needs it.
+     */
+    private final String via;
+    private final boolean eager;
+  }
+
+  @Value
+  public static class Node {
+    private final Class<?> type;
+    /**
+     * The constructor or static builder which would be used, or NULL if there isn't a usable one.
+     */
+    private final Executable executable;
+    private final List<Edge> edges;
+    private final int depth;
+    private final int fanOut;
+  }
+
+  @Value
+  public static class Problem {
+    private final Kind kind;
+    private final Class<?> type;
+    private final String message;
+
+    public enum Kind {
+      /**
+       * More than one implementation of the same, highest, {@link Priority} could satisfy an unnamed dependency,
+       * so the first registered one would be used.
+       */
+      AMBIGUOUS,
+      /**
+       * Constructors which need each other, directly or not.
+       */
+      CYCLE,
+      /**
+       * Nothing can satisfy a dependency.
+       */
+      MISSING,
+      /**
+       * No public constructor or static builder.
+       */
+      UNBUILDABLE,
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.rickosborne.proboscis;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
@@ -8,15 +9,52 @@ import org.rickosborne.proboscis.ex.NoSuchBeanException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.annotation.Annotation;
+import java.lang.instrument.Instrumentation;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Poor-man's dependency injection using JSR-330 {@link javax.inject} annotations.
@@ -58,19 +96,127 @@ import java.util.concurrent.ConcurrentHashMap;
  * </pre>
  */
 @Log
-public class DependencyInjectionContext {
+public class DependencyInjectionContext implements AutoCloseable {
+  public static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+  /**
+   * How many objects {@link #injectAll(Collection)} writes to at a time, on each thread.
+   */
+  public static final int INJECT_CHUNK_SIZE = 1024;
+  public static final String MBEAN_DOMAIN = "org.rickosborne.proboscis";
   public static final String NO_NAME = "";
+  private static final ClassValue<Field[]> INJECTED_FIELDS = new ClassValue<Field[]>() {
+    @Override
+    protected Field[] computeValue(final Class<?> type) {
+      final List<Field> fields = new ArrayList<>();
+      for (final Field field : type.getDeclaredFields()) {
+        if (!field.isAnnotationPresent(SystemProperty.class) && !shouldBeInjected(field)) continue;
+        field.setAccessible(true);
+        fields.add(field);
+      }
+      return fields.toArray(new Field[0]);
+    }
+  };
+  private static final Object[] NO_VALUES = new Object[0];
+  private final ThreadLocal<int[]> buildDepth = ThreadLocal.withInitial(() -> new int[1]);
+  private final BeanDependents beanDependents = new BeanDependents();
+  /**
+   * One per singleton type being built, so that two threads asking for it at once don't both build it.
+   */
+  private final Map<Class<?>, Object> buildLocks = new ConcurrentHashMap<>();
+  private final Conditions conditions;
+  private volatile RetentionRule defaultRetention = new RetentionRule(BeanRetention.STRONG, Retained.MAX_SIZE_DEFAULT);
+  private volatile boolean frozen = false;
+  private final ImplementationChoices implementationChoices = new ImplementationChoices();
+  private final Interception interception = new Interception(this);
   private final Map<Object, String> knownBeans = new ConcurrentHashMap<>();
-  private final Map<Class<?>, String> namedTypes = new ConcurrentHashMap<>(findNamedTypes());
-  private final Map<ParameterizedInstance, String> parameterizedBeans = new ConcurrentHashMap<>();
-  private final SystemPropertyInspector systemPropertyInspector = new SystemPropertyInspector();
+  /**
+   * The named ones among {@link #knownBeans}, by lower-cased name, as names are matched case-insensitively.
+   */
+  private final Map<String, Object> knownBeansByName = new ConcurrentHashMap<>();
+  /**
+   * When each of {@link #knownBeans} became known, so a {@link #freeze() frozen} copy can put them back in order.
+   */
+  private final Map<Object, Long> knownSince = new ConcurrentHashMap<>();
+  private final AtomicLong knowing = new AtomicLong();
+  private final Lifecycle lifecycle = new Lifecycle();
+  private final Holder<ObjectName> mBeanName = Holder.empty();
+  private final List<ContextMeter> meters = new CopyOnWriteArrayList<>();
+  private final Map<MultibindingKey, Object> multibindings = new ConcurrentHashMap<>();
+  private final NamedTypes namedTypes;
+  /**
+   * Keyed by {@link TypeBindings#canonical(ParameterizedType) canonical} type, so lookups are a hash away.
+   */
+  private final Map<ParameterizedType, Object> parameterizedBeans = new ConcurrentHashMap<>();
+  private final FrozenContext parent;
+  private volatile Duration poolIdleTimeout = BeanPool.DEFAULT_IDLE_TIMEOUT;
+  private final Map<Class<?>, BeanPool<?>> pools = new ConcurrentHashMap<>();
+  /**
+   * By type, then by lower-cased name, or {@link #NO_NAME}, in the order they were installed.
+   */
+  private final Map<Class<?>, Map<String, ProvidedBinding>> provided = new ConcurrentHashMap<>();
+  private volatile boolean rebuildOnOverride = false;
+  private final RetainedBeans retainedBeans = new RetainedBeans();
+  private final Map<Class<?>, RetentionRule> retentionRules = new ConcurrentHashMap<>();
+  @Getter
+  private final ContextStatistics statistics = new ContextStatistics(this);
+  @Getter
+  private volatile StartupPlan startupPlan;
+  private volatile SystemPropertyInspector systemPropertyInspector;
+  private final TemplatePlans templatePlans = new TemplatePlans();
   private final TypeParamInspector typeParamInspector = new TypeParamInspector();
+  private final Set<Class<?>> warmUpTypes = ConcurrentHashMap.newKeySet();
+  private final WarmUps warmUps = new WarmUps();
+
+  public DependencyInjectionContext() {
+    this(null, PropertySource.standard());
+  }
+
+  /**
+   * Decide {@link Conditional} types against the given properties, and use them for {@link SystemProperty} injection too.
+   * @see #withPropertySource(PropertySource)
+   */
+  public DependencyInjectionContext(@NonNull final PropertySource properties) {
+    this(null, properties);
+  }
+
+  /**
+   * @param parent Frozen beans to check before our own
+   * @see FrozenContext#newChild()
+   */
+  DependencyInjectionContext(final FrozenContext parent) {
+    this(parent, PropertySource.standard());
+  }
+
+  private DependencyInjectionContext(final FrozenContext parent, final PropertySource properties) {
+    this.conditions = new Conditions(properties);
+    this.namedTypes = new NamedTypes(findNamedTypes(conditions));
+    this.parent = parent;
+    this.systemPropertyInspector = new SystemPropertyInspector(properties);
+    meters.add(statistics);
+  }
 
   public static Map<Class<?>, String> findNamedTypes() {
-    final Map<Class<?>, String> types = new HashMap<>();
-    for (final Class<?> namedType : Loader.getReflections().getTypesAnnotatedWith(Named.class)) {
+    return findNamedTypes(PropertySource.standard());
+  }
+
+  /**
+   * Every scanned {@link Named} type whose {@link Conditional} conditions hold against the given properties.
+   * Types which are switched off are decided from their metadata, and never loaded.
+   */
+  public static Map<Class<?>, String> findNamedTypes(@NonNull final PropertySource properties) {
+    return findNamedTypes(new Conditions(properties));
+  }
+
+  private static Map<Class<?>, String> findNamedTypes(final Conditions conditions) {
+    // sorted, so that registration order (and so implementation choice) is the same on every run
+    final List<String> names = new ArrayList<>(conditions.filter(Loader.getTypeNamesAnnotatedWith(Named.class, true), Collections.emptySet()));
+    Collections.sort(names);
+    final Map<Class<?>, String> types = new LinkedHashMap<>();
+    for (final String name : names) {
+      final Class<?> namedType = Loader.forName(name);
+      if (namedType == null) continue;
       final Named named = namedType.getAnnotation(Named.class);
-      types.put(namedType, named.value());
+      types.put(namedType, named == null ? NO_NAME : named.value());
     }
     return types;
   }
@@ -102,73 +248,338 @@ public class DependencyInjectionContext {
   public <T> T buildBean(final String name, final Class<T> type) {
     final T byName = findBeanByName(name, type);
     if (byName != null) return byName;
-    final T known = findBeanByType(type);
+    // any bean of the type would do, unless it has to have the name
+    final T known = name == null ? findBeanByType(type) : null;
     if (known != null) return known;
+    final ProvidedBinding binding = name == null ? null : providedFor(type, name);
+    if (binding != null) return provide(binding, type);
     // not yet built
-    for (final Map.Entry<Class<?>, String> pair : namedTypes.entrySet()) {
-      final String actualName = pair.getValue();
-      final Class<?> actualType = pair.getKey();
-      if (!type.isAssignableFrom(actualType)) continue;
+    final NamedTypes.Snapshot named = namedTypes.snapshot();
+    final List<Class<?>> impls = new ArrayList<>(named.implementationsOf(type));
+    // the same order implementation choices try them in
+    impls.sort(ImplementationChoices.BY_PRIORITY);
+    for (final Class<?> actualType : impls) {
+      final String actualName = named.nameOf(actualType);
       if (name != null && !name.equalsIgnoreCase(actualName)) continue;
       final Class<? extends T> typedType = actualType.asSubclass(type);
       final T built = buildBean(typedType);
       if (built != null) {
-        knownBeans.put(built, actualName == null ? NO_NAME : actualName);
+        if (retentionFor(Interception.userClassOf(built.getClass())).getRetention() == BeanRetention.STRONG) know(built, actualName);
         return built;
       }
     }
+    for (final ContextMeter meter : meters) meter.missing(name, type);
     return null;
   }
 
+  /**
+   * Build (or find) one of every implementation of the given type, in registration order.
+   * This is what a {@code List<T>}, {@code Set<T>} or {@code Collection<T>} injection point gets.
+   * The result is worked out once and cached until another bean is registered.
+   * @return An immutable list, possibly empty
+   */
+  public <T> List<T> buildAll(@NonNull final Class<T> type) {
+    return castMultibinding(List.class, type);
+  }
+
+  /**
+   * Like {@link #buildAll(Class)}, but keyed by each implementation's {@link Named} value,
+   * or its simple class name if it doesn't have one.
+   * This is what a {@code Map<String, T>} injection point gets.
+   * @return An immutable map, possibly empty
+   * @throws IllegalStateException if two implementations have the same name
+   */
+  public <T> Map<String, T> buildAllByName(@NonNull final Class<T> type) {
+    return castMultibinding(Map.class, type);
+  }
+
+  /**
+   * The implementation chosen for another bean's parameter, shared as a singleton if its type is one:
+   * the one already known, or else built once, however many beans ask for it at once.
+   */
+  private <T> T buildDependency(final Class<T> type, final Supplier<T> build) {
+    if (retentionFor(type).getRetention() != BeanRetention.STRONG) return build.get();
+    final T inherited = parent == null ? null : parent.findBeanByType(type);
+    if (inherited != null) return inherited;
+    // a warm-up which has started is waited for, and one which hasn't is done right now, instead of a build of our own
+    final WarmUps.Task task = warmUps.taskFor(type);
+    if (task != null) return type.cast(warmUps.run(task, () -> constructOnce(type)));
+    synchronized (buildLockFor(type)) {
+      final T known = knownInstanceOf(type);
+      if (known != null) return known;
+      final T built = build.get();
+      if (built != null) know(built, namedTypes.snapshot().nameOf(type));
+      return built;
+    }
+  }
+
+  /**
+   * Reentrant, so a bean can still ask for its own type while it's being built.
+   */
+  private Object buildLockFor(final Class<?> type) {
+    return buildLocks.computeIfAbsent(type, t -> new Object());
+  }
+
+  private Object buildMultibinding(final MultibindingKey key) {
+    final Class<?> elementType = key.getElementType();
+    final NamedTypes.Snapshot named = namedTypes.snapshot();
+    final Set<Class<?>> impls = named.implementationsOf(elementType);
+    final List<Object> beans = new ArrayList<>(impls.size());
+    final List<String> names = new ArrayList<>(impls.size());
+    for (final Class<?> impl : impls) {
+      if ((impl.isInterface() || Modifier.isAbstract(impl.getModifiers())) && providedBinding(impl) == null) continue;
+      final Object bean = buildBean(impl);
+      if (bean == null) continue;
+      final String name = named.nameOf(impl);
+      beans.add(bean);
+      names.add(name == null || name.isEmpty() ? impl.getSimpleName() : name);
+    }
+    final Class<?> kind = key.getKind();
+    if (kind == Map.class) {
+      final Map<String, Object> byName = new LinkedHashMap<>((int) Math.ceil(beans.size() / 0.75d));
+      for (int i = 0; i < beans.size(); i++) {
+        final Object previous = byName.put(names.get(i), beans.get(i));
+        if (previous != null) throw new IllegalStateException("Two implementations of " + elementType.getSimpleName() + " are named " + names.get(i));
+      }
+      return Collections.unmodifiableMap(byName);
+    } else if (kind == Set.class) {
+      return Collections.unmodifiableSet(new LinkedHashSet<>(beans));
+    }
+    return Collections.unmodifiableList(beans);
+  }
+
   public <T> T buildParameterizedBean(final Class<T> type, final Type... paramTypes) {
     return buildParameterizedBean(new ParameterizedTypeWrapper<>(type, paramTypes), type);
   }
 
+  /**
+   * Build the generic type once for each of the given type arguments, such as {@code Repository<User>},
+   * {@code Repository<Order>}, and so on.
+   * The first is built on its own, which plans the type's {@link TemplatePlans template}, and the rest are built
+   * in parallel from it.
+   * @return Each argument's bean, in the order given
+   * @throws IllegalArgumentException if the type doesn't have exactly one type parameter
+   * @throws NoSuchBeanException if any of them can't be built
+   */
+  public <T> Map<Type, T> buildParameterizedBeans(@NonNull final Class<T> type, @NonNull final Collection<? extends Type> typeArguments) {
+    if (type.getTypeParameters().length != 1) throw new IllegalArgumentException("Expected one type parameter: " + type.getName());
+    final List<Type> args = new ArrayList<>(new LinkedHashSet<>(typeArguments));
+    final Map<Type, T> built = new ConcurrentHashMap<>();
+    final Consumer<Type> build = arg -> {
+      final T bean = buildParameterizedBean(type, arg);
+      if (bean == null) throw new NoSuchBeanException(arg.getTypeName(), type);
+      built.put(arg, bean);
+    };
+    if (!args.isEmpty()) build.accept(args.get(0));
+    if (args.size() > 1) args.subList(1, args.size()).parallelStream().forEach(build);
+    final Map<Type, T> ordered = new LinkedHashMap<>();
+    for (final Type arg : args) ordered.put(arg, built.get(arg));
+    return Collections.unmodifiableMap(ordered);
+  }
+
   public <T> T buildParameterizedBean(final ParameterizedType parameterizedType, final Class<T> type) {
     if (parameterizedType != null) {
       final T existing = findBeanByParameterizedType(parameterizedType, type);
       if (existing != null) return existing;
     } else {
+      final ProvidedBinding binding = providedBinding(type);
+      if (binding != null) return provide(binding, type);
+      // before looking for it, as a finished warm-up makes it known before it stops being a task
+      final WarmUps.Task task = warmUps.taskFor(type);
+      if (task != null) return type.cast(warmUps.run(task, () -> constructOnce(type)));
       final T existing = findBeanByType(type);
       if (existing != null) return existing;
+      if (retentionFor(type).getRetention() == BeanRetention.STRONG) return constructOnce(type);
     }
-    final T built = Loader.factoryFor(type, parameterizedType)
+    return construct(parameterizedType, type);
+  }
+
+  /**
+   * Build the singleton unless someone else got there first, holding its {@link #buildLockFor(Class) lock} throughout.
+   */
+  private <T> T constructOnce(final Class<T> type) {
+    synchronized (buildLockFor(type)) {
+      final T raced = knownInstanceOf(type);
+      if (raced != null) return raced;
+      return construct(null, type);
+    }
+  }
+
+  private <T> T construct(final ParameterizedType parameterizedType, final Class<T> type) {
+    requireNotFrozen();
+    final T built = meterBuild(type, () -> Loader.factoryFor(type, parameterizedType)
       .withBean(this)
+      .withConstructionListener(this::constructed)
+      .withDependencyBuilder(this::buildDependency)
+      .withImplementationChoices(implementationChoices)
+      .withFieldOrParamResolver(this::findPoolResolver)
+      .withFieldOrParamResolver(this::findProvidedResolver)
       .withImplementationResolver(this::implementationsFor)
+      .withInterception(interception)
       .withFieldOrParamResolver(systemPropertyInspector)
       .withFieldOrParamResolver(typeParamInspector)
+      .withFieldOrParamResolver(this::findMultibindingResolver)
       .withFieldOrParamResolver(fieldOrParam -> fop -> {
         final Object bean = buildBean(fop);
         return bean == null ? null : Maybe.of(bean);
       })
       .withResolverExceptions(NoSuchBeanException::new)
-      .get();
+      .withStartupPlan(startupPlan)
+      .withTemplatePlans(templatePlans)
+      .get());
     if (built == null) return null;
-    if (parameterizedType != null) parameterizedBeans.put(new ParameterizedInstance(built, parameterizedType), NO_NAME);
-    else knownBeans.put(built, NO_NAME);
-    injectFields(built);
+    final Class<?> builtType = Interception.userClassOf(built.getClass());
+    final RetentionRule retention = retentionFor(builtType);
+    if (retention.getRetention() != BeanRetention.STRONG) {
+      retainedBeans.retain(parameterizedType == null ? builtType : parameterizedType, built, retention.getRetention(), retention.getMaxSize());
+    } else if (parameterizedType != null) parameterizedBeans.putIfAbsent(TypeBindings.canonical(parameterizedType), built);
+    else know(built, null);
+    final Object[] injected = injectFields(built, parameterizedType);
+    // a field's bean is built after its owner, so the lifecycle only hears of it now
+    if (injected.length > 0 && isHeld(builtType)) lifecycle.dependsOn(built, injected);
+    lifecycle.initialize(built);
     return built;
   }
 
+  @SuppressWarnings("unchecked")
+  private <C> C castMultibinding(final Class<?> kind, final Class<?> elementType) {
+    final MultibindingKey key = new MultibindingKey(kind, elementType);
+    final Object existing = multibindings.get(key);
+    if (existing != null) return (C) existing;
+    // not computeIfAbsent: building the beans may well need other multibindings
+    final Object built = buildMultibinding(key);
+    final Object raced = multibindings.putIfAbsent(key, built);
+    return (C) (raced == null ? built : raced);
+  }
+
+  /**
+   * Whether a bean of the given type already exists, without counting it as a lookup.
+   */
+  boolean hasBean(final Class<?> type) {
+    if (parent != null && parent.findBeanByType(type) != null) return true;
+    for (final Object known : knownBeans.keySet()) {
+      if (type.isInstance(known)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Same as {@link #shutdown(Duration)} with {@link #DEFAULT_SHUTDOWN_TIMEOUT}.
+   */
+  @Override
+  public void close() {
+    shutdown(DEFAULT_SHUTDOWN_TIMEOUT);
+  }
+
+  private void constructed(final Object bean, final Object[] dependencies, final boolean finished) {
+    beanDependents.record(bean, dependencies);
+    if (isHeld(Interception.userClassOf(bean.getClass()))) lifecycle.constructed(bean, dependencies);
+    // otherwise it's ours to finish, after injecting its fields
+    if (finished) lifecycle.initialize(bean);
+  }
+
+  int countKnownBeans() {
+    return knownBeans.size();
+  }
+
+  int countManagedBeans() {
+    return lifecycle.countManaged();
+  }
+
+  int countNamedTypes() {
+    return namedTypes.size();
+  }
+
+  int countParameterizedBeans() {
+    return parameterizedBeans.size();
+  }
+
+  /**
+   * Idle beans across every pool.
+   */
+  int countPooledBeans() {
+    int count = 0;
+    for (final BeanPool<?> pool : pools.values()) count += pool.getIdleCount();
+    return count;
+  }
+
+  int countRetainedBeans() {
+    return retainedBeans.count();
+  }
+
+  int countTemplatePlans() {
+    return templatePlans.size();
+  }
+
+  /**
+   * What an injected field of the type should get.
+   * @return NULL if it's a property without a value
+   * @throws IllegalArgumentException if there's no bean for it
+   */
+  private Object fieldValueFor(final Class<?> type, final Field field, final ParameterizedType parameterizedType) {
+    final boolean isProperty = field.isAnnotationPresent(SystemProperty.class);
+    final MultibindingKey multibinding = multibindingKeyOf(field.getType(), field.getGenericType() instanceof ParameterizedType ? (ParameterizedType) field.getGenericType() : null);
+    if (multibinding != null && !isProperty) return castMultibinding(multibinding.getKind(), multibinding.getElementType());
+    if (isProperty) {
+      final FieldOrParam fieldOrParam = FieldOrParam.forField(field);
+      final Object value = systemPropertyInspector.findResolver(fieldOrParam).apply(fieldOrParam).getValue();
+      if (value == null) return null;
+      return fieldOrParam.isSupplier() && !(value instanceof Supplier) ? (Supplier<Object>) () -> value : value;
+    }
+    final Object newValue = field.getGenericType() instanceof Class ? buildBean(Util.nameOf(field), field.getType()) : resolveValue(FieldOrParam.forField(field, parameterizedType));
+    if (newValue == null) throw new IllegalArgumentException(type.getSimpleName() + "." + field.getName());
+    return newValue;
+  }
+
+  /**
+   * Forget the beans, and everything built with them, directly or not, wherever this context holds them.
+   * The ones this context built are destroyed.
+   */
+  private Forgotten forget(final List<Object> beans) {
+    final Forgotten forgotten = new Forgotten(beans.isEmpty() ? Collections.emptyList() : beanDependents.invalidate(beans));
+    for (final Object bean : forgotten.beans) {
+      final String name = unknow(bean);
+      if (name != null) forgotten.byName.put(bean, name);
+      parameterizedBeans.entrySet().removeIf(entry -> {
+        if (entry.getValue() != bean) return false;
+        forgotten.byType.put(entry.getKey(), bean);
+        return true;
+      });
+      retainedBeans.forget(bean);
+      lifecycle.discard(bean);
+      for (final ContextMeter meter : meters) meter.invalidated(Interception.userClassOf(bean.getClass()));
+    }
+    return forgotten;
+  }
+
   /**
    * Find a bean with the given name.
    * @return NULL if not found.
    */
   public <T> T findBeanByName(final String name, final Class<T> type) {
     if (name != null) {
+      final T inherited = parent == null ? null : parent.findBeanByName(name, type);
+      if (inherited != null) return inherited;
       // match by name
-      final Object known = knownBeans.get(name);
-      if (known != null) return type.cast(known);
+      final Object known = knownBeansByName.get(name.toLowerCase(Locale.ROOT));
+      final boolean hit = type.isInstance(known);
+      meterLookup(ContextMeter.Lookup.BY_NAME, hit);
+      if (hit) return type.cast(known);
     }
     return null;
   }
 
   public <T> T findBeanByParameterizedType(@NonNull final ParameterizedType parameterizedType, final Class<T> type) {
-    // match existing type
-    for (final ParameterizedInstance pi : parameterizedBeans.keySet()) {
-      if (pi.getParameterizedType().equals(parameterizedType)) return type.cast(pi.getObject());
+    final T inherited = parent == null ? null : parent.findBeanByParameterizedType(parameterizedType, type);
+    if (inherited != null) return inherited;
+    final Object known = parameterizedBeans.get(TypeBindings.canonical(parameterizedType));
+    if (known != null) {
+      meterLookup(ContextMeter.Lookup.BY_PARAMETERIZED_TYPE, true);
+      return type.cast(known);
     }
-    return null;
+    final Object retained = retainedBeans.find(parameterizedType);
+    meterLookup(ContextMeter.Lookup.BY_PARAMETERIZED_TYPE, retained != null);
+    return retained == null ? null : type.cast(retained);
   }
 
   /**
@@ -176,22 +587,196 @@ public class DependencyInjectionContext {
    * @return NULL if no matches.
    */
   public <T> T findBeanByType(final Class<T> type) {
+    final T inherited = parent == null ? null : parent.findBeanByType(type);
+    if (inherited != null) return inherited;
     // match existing type
     for (final Object known : knownBeans.keySet()) {
-      if (type.isInstance(known)) return type.cast(known);
+      if (type.isInstance(known)) {
+        meterLookup(ContextMeter.Lookup.BY_TYPE, true);
+        return type.cast(known);
+      }
     }
-    return null;
+    final T retained = retainedBeans.findInstance(type);
+    meterLookup(ContextMeter.Lookup.BY_TYPE, retained != null);
+    return retained;
+  }
+
+  /**
+   * If the injection point is a collection of beans, resolve it to all of them.
+   * Keys and elements have to be plain classes: {@code List<Handler>} and {@code Map<String, Handler>} work,
+   * {@code List<Handler<?>>} does not.
+   * @return NULL if it isn't a collection of beans
+   */
+  protected FieldOrParamResolver findMultibindingResolver(final FieldOrParam fieldOrParam) {
+    final MultibindingKey key = multibindingKeyOf(fieldOrParam.getType(), fieldOrParam.getParameterizedType());
+    if (key == null) return null;
+    return fop -> Maybe.of(castMultibinding(key.getKind(), key.getElementType()));
+  }
+
+  /**
+   * If the injection point is a {@link BeanPool}, or a {@link Supplier} of a {@link BeanRetention#POOLED pooled} type,
+   * resolve it to the pool for that type.
+   * @return NULL if it isn't
+   */
+  protected FieldOrParamResolver findPoolResolver(final FieldOrParam fieldOrParam) {
+    final Class<?> pooled = pooledTypeOf(fieldOrParam);
+    if (pooled == null) return null;
+    final Maybe maybe = Maybe.of(poolFor(pooled));
+    return fop -> maybe;
+  }
+
+  /**
+   * If the injection point can be satisfied by an {@link #install(Object...) installed} {@link Provides} method,
+   * resolve it to that method's bean, rather than letting the factory build an implementation itself.
+   * @return NULL if it can't
+   */
+  protected FieldOrParamResolver findProvidedResolver(final FieldOrParam fieldOrParam) {
+    final ProvidedBinding binding = providedFor(fieldOrParam.getType(), fieldOrParam.getNamed());
+    if (binding == null) return null;
+    return fop -> Maybe.of(provide(binding, binding.getType()));
+  }
+
+  /**
+   * Take an immutable, read-optimized snapshot of everything this context has built and knows about.
+   * Only {@link BeanRetention#STRONG strongly}-held beans are included, in the order they became known.
+   * After this, this context still finds the beans it already has, but registering or building anything new is an error,
+   * as the snapshot would never see it: use {@link FrozenContext#newChild()} if you need more.
+   */
+  public FrozenContext freeze() {
+    frozen = true;
+    final List<Map.Entry<Object, Long>> order = new ArrayList<>(knownSince.entrySet());
+    order.sort(Map.Entry.comparingByValue());
+    final Map<Object, String> beans = new LinkedHashMap<>();
+    for (final Map.Entry<Object, Long> entry : order) {
+      final String name = knownBeans.get(entry.getKey());
+      if (name != null) beans.put(entry.getKey(), name);
+    }
+    return new FrozenContext(beans, new HashMap<>(parameterizedBeans), namedTypes.snapshot());
+  }
+
+  /**
+   * The choice, shared with every factory this context starts, between the type's implementations.
+   * @param name NULL for any
+   */
+  <T> ImplementationChoices.Choice<T> implementationChoiceFor(final Class<T> type, final String name) {
+    return implementationChoices.choiceFor(type, name, implementationsFor(type));
   }
 
   /**
    * Find all classes which implement the given type.
+   * @return An immutable set, in registration order, from the hierarchy index
    */
+  @SuppressWarnings("unchecked")
   public <T> Set<Class<? extends T>> implementationsFor(final Class<T> typeClass) {
-    final HashSet<Class<? extends T>> impls = new HashSet<>();
-    for (final Class<?> namedClass : namedTypes.keySet()) {
-      if (typeClass.isAssignableFrom(namedClass)) impls.add(namedClass.asSubclass(typeClass));
+    return (Set<Class<? extends T>>) (Set<?>) namedTypes.snapshot().implementationsOf(typeClass);
+  }
+
+  /**
+   * Bind every {@link Provides} method of the given modules, all at once.
+   * The lookup indexes are rebuilt once for the whole batch, rather than once per binding as with
+   * {@link #registerBean(Class, Object, String)}, and nothing is scanned for or built until it's asked for.
+   * Provided beans are singletons, unless their type's retention says otherwise, in which case the method is called
+   * every time.  Either way they get their lifecycle hooks, but not field injection, as the module built them.
+   * Bindings are told apart by type and name, so a module can provide several {@link javax.inject.Named named} beans
+   * of one type.  A later binding for the same type and name replaces an earlier one.
+   * @throws IllegalArgumentException if a module has no {@link Provides} methods, any of them can't be called,
+   * or two of them provide the same type under the same name
+   */
+  public DependencyInjectionContext install(@NonNull final Object... modules) {
+    requireNotFrozen();
+    final Map<Class<?>, Map<String, ProvidedBinding>> bindings = new LinkedHashMap<>();
+    for (final Object module : modules) {
+      final Map<Class<?>, Map<String, ProvidedBinding>> fromModule = new LinkedHashMap<>();
+      // subclass methods come first, and win over the ones they override
+      for (final ProvidedBinding binding : ProvidedBinding.scan(module)) {
+        final Map<String, ProvidedBinding> byName = fromModule.computeIfAbsent(binding.getType(), t -> new LinkedHashMap<>());
+        final ProvidedBinding existing = byName.putIfAbsent(providedNameOf(binding.getName()), binding);
+        if (existing != null && !binding.isOverriddenBy(existing)) {
+          throw new IllegalArgumentException("Two @Provides methods for the same type and name: " + existing.getMethod() + " and " + binding.getMethod());
+        }
+      }
+      for (final Map.Entry<Class<?>, Map<String, ProvidedBinding>> entry : fromModule.entrySet()) {
+        bindings.computeIfAbsent(entry.getKey(), t -> new LinkedHashMap<>()).putAll(entry.getValue());
+      }
+    }
+    final Map<Class<?>, String> names = new LinkedHashMap<>();
+    for (final Map<String, ProvidedBinding> byName : bindings.values()) {
+      final ProvidedBinding first = byName.values().iterator().next();
+      names.put(first.getType(), first.getName() == null ? NO_NAME : first.getName());
+    }
+    for (final Map.Entry<Class<?>, Map<String, ProvidedBinding>> entry : bindings.entrySet()) {
+      provided.merge(entry.getKey(), entry.getValue(), (before, added) -> {
+        final Map<String, ProvidedBinding> merged = new LinkedHashMap<>(before);
+        merged.putAll(added);
+        return merged;
+      });
+    }
+    namedTypes.putAll(names);
+    implementationChoices.retryFailed();
+    multibindings.clear();
+    return this;
+  }
+
+  /**
+   * Same as {@link #injectFields(Object)} for each of a batch of objects, such as a page of freshly deserialized ones.
+   * Objects are grouped by class, and each class's fields are resolved once for the whole batch,
+   * so every object of a class gets the same values.
+   * The writes are then done in parallel, {@link #INJECT_CHUNK_SIZE} objects at a time.
+   * @throws IllegalArgumentException if a field has nothing to inject and some object still needs it
+   */
+  public InjectionReport injectAll(@NonNull final Collection<?> beans) {
+    final Map<Class<?>, List<Object>> byType = new LinkedHashMap<>();
+    for (final Object bean : beans) {
+      if (bean != null) byType.computeIfAbsent(Interception.userClassOf(bean.getClass()), t -> new ArrayList<>()).add(bean);
+    }
+    final Map<Class<?>, InjectionReport.Entry> entries = new LinkedHashMap<>();
+    for (final Map.Entry<Class<?>, List<Object>> group : byType.entrySet()) entries.put(group.getKey(), injectAll(group.getKey(), group.getValue()));
+    return new InjectionReport(Collections.unmodifiableMap(entries));
+  }
+
+  /**
+   * Same as {@link #injectAll(Collection)}.  The stream is collected first, as the objects are grouped by class.
+   */
+  public InjectionReport injectAll(@NonNull final Stream<?> beans) {
+    return injectAll(beans.collect(Collectors.toList()));
+  }
+
+  private InjectionReport.Entry injectAll(final Class<?> type, final List<Object> beans) {
+    final long started = System.nanoTime();
+    final Field[] fields = INJECTED_FIELDS.get(type);
+    final Object[] values = new Object[fields.length];
+    for (int f = 0; f < fields.length; f++) {
+      // not worth resolving, or failing over, if every object already has one
+      if (isUnsetInAny(fields[f], beans)) values[f] = fieldValueFor(type, fields[f], null);
     }
-    return impls;
+    final LongAdder written = new LongAdder();
+    final int chunks = (beans.size() + INJECT_CHUNK_SIZE - 1) / INJECT_CHUNK_SIZE;
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      final int start = chunk * INJECT_CHUNK_SIZE;
+      final int end = Math.min(beans.size(), start + INJECT_CHUNK_SIZE);
+      // what each one got, if anything, so replacing a value can find who has it
+      final Object[][] injected = new Object[end - start][];
+      int count = 0;
+      for (int i = start; i < end; i++) {
+        final Object bean = beans.get(i);
+        for (int f = 0; f < fields.length; f++) {
+          final Field field = fields[f];
+          if (values[f] == null) continue;
+          try {
+            if (!field.getType().isPrimitive() && field.get(bean) != null) continue;
+            field.set(bean, values[f]);
+            if (injected[i - start] == null) injected[i - start] = new Object[fields.length];
+            injected[i - start][f] = values[f];
+            count++;
+          } catch (final IllegalAccessException e) {
+            log.warning(type.getSimpleName() + "." + field.getName() + " is not readable: " + e.getMessage());
+          }
+        }
+      }
+      beanDependents.recordAll(beans.subList(start, end), injected);
+      written.add(count);
+    });
+    return new InjectionReport.Entry(type, beans.size(), written.sum(), System.nanoTime() - started);
   }
 
   /**
@@ -200,35 +785,295 @@ public class DependencyInjectionContext {
    * @see Inject
    */
   public void injectFields(final Object bean) {
-    if (bean == null) return;
-    final Class<?> type = bean.getClass();
-    for (final Field field : type.getDeclaredFields()) {
+    injectFields(bean, null);
+  }
+
+  /**
+   * @param parameterizedType What the bean was built as, so generic fields can be resolved against its type arguments
+   * @return The values injected
+   */
+  private Object[] injectFields(final Object bean, final ParameterizedType parameterizedType) {
+    if (bean == null) return NO_VALUES;
+    final Class<?> type = Interception.userClassOf(bean.getClass());
+    final List<Object> injected = new ArrayList<>();
+    for (final Field field : INJECTED_FIELDS.get(type)) {
       try {
-        final String name = Util.nameOf(field);
-        if (name == null && !shouldBeInjected(field)) continue;
-        field.setAccessible(true);
-        final Object originalValue = field.get(bean);
-        if (originalValue != null) continue;
-        final Object newValue = buildBean(name, field.getType());
-        if (newValue == null) throw new IllegalArgumentException(type.getSimpleName() + "." + field.getName());
-        field.set(bean, newValue);
+        // primitives always have a value, so checking would only box it for nothing
+        if (!field.getType().isPrimitive() && field.get(bean) != null) continue;
+        final Object value = fieldValueFor(type, field, parameterizedType);
+        if (value == null) continue;
+        field.set(bean, value);
+        injected.add(value);
       } catch (final IllegalAccessException e) {
         log.warning(type.getSimpleName() + "." + field.getName() + " is not readable: " + e.getMessage());
       }
     }
+    if (injected.isEmpty()) return NO_VALUES;
+    final Object[] values = injected.toArray();
+    beanDependents.record(bean, values);
+    return values;
+  }
+
+  /**
+   * Forget the replaced beans, whatever was built with them, and whichever collections they, or the new type, belong in.
+   */
+  private void invalidate(final Class<?> type, final List<Object> replaced) {
+    final Forgotten forgotten = forget(replaced);
+    multibindings.keySet().removeIf(key -> {
+      if (key.getElementType().isAssignableFrom(type)) return true;
+      for (final Object bean : forgotten.beans) if (key.getElementType().isInstance(bean)) return true;
+      return false;
+    });
+    if (!rebuildOnOverride) return;
+    // replaced beans are whoever registered them, not ours to rebuild
+    for (final Object bean : replaced) {
+      forgotten.byName.remove(bean);
+      forgotten.byType.values().remove(bean);
+    }
+    for (final Map.Entry<Object, String> entry : forgotten.byName.entrySet()) {
+      final Class<?> rebuilt = Interception.userClassOf(entry.getKey().getClass());
+      if (NO_NAME.equals(entry.getValue())) requireBean(rebuilt);
+      else buildBean(entry.getValue(), rebuilt);
+    }
+    for (final Map.Entry<ParameterizedType, Object> entry : forgotten.byType.entrySet()) {
+      buildParameterizedBean(entry.getKey(), Interception.userClassOf(entry.getValue().getClass()));
+    }
+  }
+
+  /**
+   * Whether beans of the type are held on to, by the context or one of its pools, until they're let go or shut down.
+   * The rest are nobody's to destroy, and remembering them for shutdown would keep every one of them alive.
+   */
+  private boolean isHeld(final Class<?> type) {
+    final BeanRetention retention = retentionFor(type).getRetention();
+    return retention == BeanRetention.STRONG || retention == BeanRetention.POOLED;
+  }
+
+  private static boolean isUnsetInAny(final Field field, final List<Object> beans) {
+    if (field.getType().isPrimitive()) return true;
+    try {
+      for (final Object bean : beans) if (field.get(bean) == null) return true;
+    } catch (final IllegalAccessException e) {
+      return false;
+    }
+    return false;
+  }
+
+  /**
+   * Hold the bean strongly, and by its name, if it has one.
+   */
+  private void know(final Object bean, final String name) {
+    knownBeans.put(bean, name == null ? NO_NAME : name);
+    knownSince.putIfAbsent(bean, knowing.getAndIncrement());
+    if (name != null && !name.isEmpty()) knownBeansByName.put(name.toLowerCase(Locale.ROOT), bean);
+  }
+
+  /**
+   * A bean of the type this context holds strongly, without counting it as a lookup.
+   * @return NULL if none
+   */
+  private <T> T knownInstanceOf(final Class<T> type) {
+    for (final Object known : knownBeans.keySet()) if (type.isInstance(known)) return type.cast(known);
+    return null;
+  }
+
+  /**
+   * Estimate which strongly held beans account for how much of the heap.  See {@link HeapReport}.
+   * This walks everything the beans can reach, so it's for diagnostics, not for a hot path.
+   */
+  public HeapReport measureHeap() {
+    return new HeapAccounting(strongBeans(), null).measure();
+  }
+
+  /**
+   * Same as {@link #measureHeap()}, but with sizes measured by an agent's instrumentation rather than estimated.
+   */
+  public HeapReport measureHeap(@NonNull final Instrumentation instrumentation) {
+    return new HeapAccounting(strongBeans(), instrumentation).measure();
+  }
+
+  private <T> T meterBuild(final Class<T> type, final Supplier<T> block) {
+    final int[] depth = buildDepth.get();
+    final long started = System.nanoTime();
+    depth[0]++;
+    try {
+      final T built = block.get();
+      final long nanos = System.nanoTime() - started;
+      if (built != null) for (final ContextMeter meter : meters) meter.built(type, nanos);
+      return built;
+    } catch (final RuntimeException e) {
+      // only count it once, at the outermost build, instead of once per frame it passes through
+      if (depth[0] == 1) for (final ContextMeter meter : meters) meter.failed(type, e);
+      throw e;
+    } finally {
+      depth[0]--;
+    }
+  }
+
+  static MultibindingKey multibindingKeyOf(final Class<?> type, final ParameterizedType parameterizedType) {
+    if (parameterizedType == null) return null;
+    final Type[] args = parameterizedType.getActualTypeArguments();
+    if (type == Map.class) {
+      if (args[0] != String.class || !(args[1] instanceof Class)) return null;
+      return new MultibindingKey(Map.class, (Class<?>) args[1]);
+    }
+    if (!(args.length == 1 && args[0] instanceof Class)) return null;
+    if (type == List.class || type == Collection.class || type == Iterable.class) return new MultibindingKey(List.class, (Class<?>) args[0]);
+    if (type == Set.class) return new MultibindingKey(Set.class, (Class<?>) args[0]);
+    return null;
+  }
+
+  NamedTypes.Snapshot namedTypeSnapshot() {
+    return namedTypes.snapshot();
+  }
+
+  /**
+   * The type a pool is wanted for at the injection point.
+   * @return NULL if it doesn't want one
+   */
+  Class<?> pooledTypeOf(final FieldOrParam fieldOrParam) {
+    if (fieldOrParam.isSupplier()) return retentionFor(fieldOrParam.getType()).getRetention() == BeanRetention.POOLED ? fieldOrParam.getType() : null;
+    if (fieldOrParam.getType() != BeanPool.class) return null;
+    final ParameterizedType parameterizedType = fieldOrParam.getParameterizedType();
+    final Type pooled = parameterizedType == null ? null : parameterizedType.getActualTypeArguments()[0];
+    if (!(pooled instanceof Class)) throw new IllegalArgumentException("BeanPool needs a plain class to pool: " + fieldOrParam);
+    return (Class<?>) pooled;
+  }
+
+  /**
+   * The pool of the given type, created the first time it's asked for.
+   * The pool holds up to the type's {@link Retained#maxSize()} idle beans, or as set by {@link #withPooledRetention(Class, int)},
+   * and builds new ones, without keeping them, as it needs them.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> BeanPool<T> poolFor(@NonNull final Class<T> type) {
+    final BeanPool<?> existing = pools.get(type);
+    if (existing != null) return (BeanPool<T>) existing;
+    return (BeanPool<T>) pools.computeIfAbsent(type, t -> new BeanPool<>(type, retentionFor(type).getMaxSize(), poolIdleTimeout,
+      () -> {
+        final T built = construct(null, type);
+        if (built == null) throw new NoSuchBeanException(type);
+        return built;
+      }, lifecycle::reset, lifecycle::discard));
+  }
+
+  private void meterLookup(final ContextMeter.Lookup method, final boolean hit) {
+    for (final ContextMeter meter : meters) meter.lookup(method, hit);
+  }
+
+  void meterTimed(final Method method, final long nanos, final boolean failed) {
+    for (final ContextMeter meter : meters) meter.timed(method, nanos, failed);
   }
 
   /**
    * If you built a bean on your own, register it for injection for later managed beans.
+   * It replaces any bean already known as that type and name, and everything built with the replaced bean,
+   * directly or not, is forgotten too, so later lookups get something built against the new one.
+   * Forgotten beans which this context built are destroyed, and only rebuilt if {@link #withRebuildOnOverride(boolean) asked to}.
    */
   public <T> DependencyInjectionContext registerBean(final Class<T> type, final T bean, final String name) {
-    knownBeans.put(bean, name == null ? NO_NAME : name);
-    namedTypes.put(type, name == null ? NO_NAME : name);
+    requireNotFrozen();
+    final String named = name == null ? NO_NAME : name;
+    final List<Object> replaced = new ArrayList<>();
+    for (final Map.Entry<Object, String> known : knownBeans.entrySet()) {
+      if (known.getKey() != bean && type.isInstance(known.getKey()) && named.equalsIgnoreCase(known.getValue())) replaced.add(known.getKey());
+    }
+    know(bean, named);
+    namedTypes.put(type, named);
+    implementationChoices.retryFailed();
+    invalidate(type, replaced);
     return this;
   }
 
+  private <T> T provide(final ProvidedBinding binding, final Class<T> type) {
+    final Object existing = binding.getInstance();
+    if (existing != null) return type.cast(existing);
+    requireNotFrozen();
+    if (retentionFor(binding.getType()).getRetention() != BeanRetention.STRONG) return meterBuild(type, () -> type.cast(provideNow(binding)));
+    return type.cast(binding.singleton(() -> {
+      final Object built = meterBuild(type, () -> type.cast(provideNow(binding)));
+      know(built, binding.getName());
+      return built;
+    }));
+  }
+
+  /**
+   * The binding for the exact type which an unnamed injection point gets: the unnamed one, or else the first installed.
+   * @return NULL unless the exact type has a {@link Provides} method installed
+   */
+  ProvidedBinding providedBinding(final Class<?> type) {
+    return providedBinding(type, null);
+  }
+
+  /**
+   * @param name NULL for whichever {@link #providedBinding(Class)} picks
+   * @return NULL unless the exact type has a {@link Provides} method installed under the name
+   */
+  private ProvidedBinding providedBinding(final Class<?> type, final String name) {
+    final Map<String, ProvidedBinding> byName = provided.isEmpty() ? null : provided.get(type);
+    if (byName == null) return null;
+    if (name != null) return byName.get(providedNameOf(name));
+    final ProvidedBinding unnamed = byName.get(NO_NAME);
+    return unnamed != null ? unnamed : byName.values().iterator().next();
+  }
+
+  /**
+   * The binding for a provided type, or failing that, for one of its provided implementations with a matching name.
+   * @return NULL if nothing installed provides it
+   */
+  ProvidedBinding providedFor(final Class<?> type, final String name) {
+    if (provided.isEmpty()) return null;
+    final ProvidedBinding exact = providedBinding(type, name);
+    if (exact != null) return exact;
+    for (final Class<?> impl : namedTypes.snapshot().implementationsOf(type)) {
+      final ProvidedBinding binding = providedBinding(impl, name);
+      if (binding != null) return binding;
+    }
+    return null;
+  }
+
+  private static String providedNameOf(final String name) {
+    return name == null ? NO_NAME : name.toLowerCase(Locale.ROOT);
+  }
+
+  private Object provideNow(final ProvidedBinding binding) {
+    final FieldOrParam[] parameters = binding.getParameters();
+    final Object[] args = new Object[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      args[i] = resolveValue(parameters[i]);
+      if (args[i] == null) throw new NoSuchBeanException(parameters[i].getNamed(), parameters[i].getType());
+    }
+    final Object built = binding.invoke(args);
+    if (built == null) throw new NoSuchBeanException(binding.getName(), binding.getType());
+    beanDependents.record(built, args);
+    if (isHeld(binding.getType())) lifecycle.constructed(built, args);
+    lifecycle.initialize(built);
+    return built;
+  }
+
+  /**
+   * Publish this context's {@link #getStatistics() statistics} to the platform MBean server.
+   * Calling it again just returns the name it was already registered under.
+   * @return The name it was registered under
+   * @throws IllegalStateException if JMX won't take it
+   */
+  public ObjectName registerMBean() {
+    return mBeanName.computeIfAbsent(() -> {
+      try {
+        final ObjectName name = new ObjectName(MBEAN_DOMAIN + ":type=" + getClass().getSimpleName() + ",id=" + Integer.toHexString(System.identityHashCode(this)));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, name);
+        return name;
+      } catch (final JMException e) {
+        throw new IllegalStateException("Could not register MBean for " + this, e);
+      }
+    });
+  }
+
   public <T> DependencyInjectionContext registerParameterizedBean(final T bean, final String name, final Class<T> type, final Class<?>... typeParams) {
-    parameterizedBeans.put(new ParameterizedInstance(bean, new ParameterizedTypeWrapper<>(type, typeParams)), name == null ? NO_NAME : name);
+    requireNotFrozen();
+    final Object replaced = parameterizedBeans.put(TypeBindings.canonical(new ParameterizedTypeWrapper<>(type, typeParams)), bean);
+    implementationChoices.retryFailed();
+    if (replaced != null && replaced != bean) invalidate(type, Collections.singletonList(replaced));
     return this;
   }
 
@@ -239,35 +1084,448 @@ public class DependencyInjectionContext {
   @NonNull
   public <T> T requireBean(final Class<T> type) {
     final T bean = buildBean(type);
-    if (bean == null) throw new NoSuchBeanException(type);
+    if (bean == null) {
+      final NoSuchBeanException error = new NoSuchBeanException(type);
+      for (final ContextMeter meter : meters) meter.failed(type, error);
+      throw error;
+    }
     return bean;
   }
 
+  private void requireNotFrozen() {
+    if (frozen) throw new IllegalStateException("Context has been frozen; register or build beans with a child context instead");
+  }
+
+  /**
+   * Find a value for an injection point the context fills itself, rather than through a factory.
+   * @return NULL if there isn't one
+   */
+  private Object resolveValue(final FieldOrParam fieldOrParam) {
+    FieldOrParamResolver resolver = systemPropertyInspector.findResolver(fieldOrParam);
+    if (resolver == null) resolver = findPoolResolver(fieldOrParam);
+    if (resolver == null) resolver = findMultibindingResolver(fieldOrParam);
+    final Object value;
+    if (resolver != null) value = resolver.apply(fieldOrParam).getValue();
+    else if (fieldOrParam.getType().isInstance(this)) value = this;
+    else value = buildBean(fieldOrParam);
+    if (value == null) return null;
+    return fieldOrParam.isSupplier() && !(value instanceof Supplier) ? (Supplier<Object>) () -> value : value;
+  }
+
+  /**
+   * Find out how tightly beans of the given concrete type will be held.
+   * Explicit {@link #withRetention(Class, BeanRetention)} settings win, then {@link Retained}, then the {@link #withDefaultRetention(BeanRetention) default}.
+   */
+  protected RetentionRule retentionFor(final Class<?> type) {
+    final RetentionRule rule = retentionRules.get(type);
+    if (rule != null) return rule;
+    final Retained retained = type.getAnnotation(Retained.class);
+    if (retained != null) return new RetentionRule(retained.value(), retained.maxSize());
+    return defaultRetention;
+  }
+
+  /**
+   * Tell the context that startup is done and it's safe to throw away scanning metadata.
+   * See {@link Loader#seal()}: everything keeps working, but later lookups go through the compact index.
+   * The context's own named types are packed down too.
+   * @return What was kept
+   */
+  public SealReport seal() {
+    final SealReport sealed = Loader.seal();
+    namedTypes.compact();
+    return new SealReport(sealed.getIndexedTypes(), namedTypes.size());
+  }
+
+  /**
+   * Run the {@code @PreDestroy} hooks, and {@link AutoCloseable#close()}, of every bean this context built.
+   * A bean is destroyed only after everything which was built with it, so independent branches are torn down in parallel.
+   * Hooks which are still running after the timeout are interrupted and abandoned, and shutdown moves on.
+   * Beans stay known to the context: this is about releasing their resources, not forgetting them.
+   * Idle {@link BeanPool pooled} beans are the exception, and are dropped from their pools.
+   * @param perBeanTimeout How long each bean's hooks get
+   */
+  public ShutdownReport shutdown(@NonNull final Duration perBeanTimeout) {
+    for (final BeanPool<?> pool : pools.values()) pool.drain();
+    return lifecycle.shutdown(perBeanTimeout);
+  }
+
+  /**
+   * Build the given beans now rather than when first needed, so their {@code @PostConstruct} hooks run up front.
+   * Beans which don't depend on each other are built in parallel: roots are grouped by their depth in the
+   * {@link #validate(Class[]) dependency graph}, shallowest first, and each group is built at once.
+   * @throws NoSuchBeanException if any of them can't be built
+   */
+  public DependencyInjectionContext start(@NonNull final Class<?>... roots) {
+    final DependencyGraph graph = new GraphValidator(this).validate(Arrays.asList(roots), false);
+    final Map<Integer, List<Class<?>>> waves = new TreeMap<>();
+    for (final Class<?> root : roots) {
+      final DependencyGraph.Node node = graph.getNodes().get(root);
+      waves.computeIfAbsent(node == null ? 0 : node.getDepth(), depth -> new ArrayList<>()).add(root);
+    }
+    for (final List<Class<?>> wave : waves.values()) wave.parallelStream().forEach(this::requireBean);
+    return this;
+  }
+
+  /**
+   * Every bean this context holds strongly, with its name, or its parameterized type.
+   */
+  private Map<Object, String> strongBeans() {
+    final Map<Object, String> beans = new IdentityHashMap<>(knownBeans);
+    for (final Map.Entry<ParameterizedType, Object> entry : parameterizedBeans.entrySet()) beans.put(entry.getValue(), entry.getKey().getTypeName());
+    return beans;
+  }
+
+  long sumPools(final ToLongFunction<BeanPool<?>> counter) {
+    long sum = 0;
+    for (final BeanPool<?> pool : pools.values()) sum += counter.applyAsLong(pool);
+    return sum;
+  }
+
+  /**
+   * Undo {@link #know(Object, String)}.
+   * @return The name it was known by, or NULL if it wasn't known
+   */
+  private String unknow(final Object bean) {
+    final String name = knownBeans.remove(bean);
+    knownSince.remove(bean);
+    if (name != null && !name.isEmpty()) knownBeansByName.remove(name.toLowerCase(Locale.ROOT), bean);
+    return name;
+  }
+
+  /**
+   * Forget everything to do with classes defined by the loader, or by loaders below it, so that it can be collected,
+   * such as when a plugin is unloaded: their beans, and every bean built with one of them, directly or not;
+   * their named types; and every plan and cached choice for them.  Forgotten beans which this context built are destroyed.
+   * Beans of a {@link #freeze() frozen} parent are left alone, so don't freeze a context with a plugin's beans in it.
+   */
+  public UnloadReport unload(@NonNull final ClassLoader loader) {
+    final Predicate<Class<?>> unloaded = type -> Util.isDefinedWithin(type, loader);
+    final List<Object> beans = new ArrayList<>();
+    for (final Object bean : knownBeans.keySet()) if (unloaded.test(bean.getClass())) beans.add(bean);
+    for (final Map.Entry<ParameterizedType, Object> entry : parameterizedBeans.entrySet()) {
+      if (Util.anyClassOf(entry.getKey(), unloaded) || unloaded.test(entry.getValue().getClass())) beans.add(entry.getValue());
+    }
+    beans.addAll(lifecycle.find(unloaded));
+    // including the ones built fresh for a single dependent
+    beans.addAll(beanDependents.find(unloaded));
+    final Forgotten forgotten = forget(beans);
+    retainedBeans.forget(unloaded);
+    final int types = namedTypes.removeIf(unloaded);
+    implementationChoices.forget(unloaded);
+    templatePlans.forget(unloaded);
+    interception.forget(unloaded);
+    systemPropertyInspector.forget(unloaded);
+    final StartupPlan plan = startupPlan;
+    if (plan != null) plan.forget(unloaded);
+    buildLocks.keySet().removeIf(unloaded);
+    pools.keySet().removeIf(unloaded);
+    provided.keySet().removeIf(unloaded);
+    for (final Class<?> type : new ArrayList<>(provided.keySet())) {
+      provided.computeIfPresent(type, (t, byName) -> {
+        final Map<String, ProvidedBinding> kept = new LinkedHashMap<>(byName);
+        kept.values().removeIf(binding -> unloaded.test(binding.getMethod().getDeclaringClass()));
+        return kept.isEmpty() ? null : kept;
+      });
+    }
+    retentionRules.keySet().removeIf(unloaded);
+    warmUpTypes.removeIf(unloaded);
+    // any collection could have had one of them in it
+    multibindings.clear();
+    return new UnloadReport(forgotten.beans.size(), types);
+  }
+
+  /**
+   * Undo {@link #registerMBean()}.  Safe to call if it was never registered.
+   */
+  public void unregisterMBean() {
+    final ObjectName name = mBeanName.getValue();
+    if (name == null) return;
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    } catch (final JMException e) {
+      log.warning("Could not unregister " + name + ": " + e.getMessage());
+    }
+    mBeanName.setValue(null);
+  }
+
+  /**
+   * Work out the whole dependency graph without building anything, and report every problem at once:
+   * missing dependencies, ambiguous implementations, types which can't be built, and constructor cycles.
+   * Every concrete named type is checked, plus any extra roots you pass in.
+   * Types are analyzed in parallel.
+   * @see DependencyGraph#toDot()
+   * @see DependencyGraph#toJson()
+   */
+  public DependencyGraph validate(@NonNull final Class<?>... roots) {
+    return new GraphValidator(this).validate(Arrays.asList(roots), true);
+  }
+
+  /**
+   * Same as {@link #warmUp(Executor)} on a fresh, low-priority daemon thread, which goes away when it's done.
+   */
+  public CompletableFuture<Void> warmUp() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "proboscis-warm-up");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    final CompletableFuture<Void> done = warmUp(executor);
+    done.whenComplete((ignored, error) -> executor.shutdown());
+    return done;
+  }
+
+  /**
+   * Build every {@link WarmUp} type, and every type passed to {@link #withWarmUp(Class[])}, on the given executor.
+   * Call it once the critical path is ready.
+   * If the foreground asks for one of them in the meantime, it waits for a build which has already started,
+   * or takes over one which hasn't, so nothing is built twice.
+   * @return Done when every type has been built, or exceptionally if any couldn't be
+   */
+  public CompletableFuture<Void> warmUp(@NonNull final Executor executor) {
+    final NamedTypes.Snapshot named = namedTypes.snapshot();
+    final Set<String> namedNames = new HashSet<>();
+    for (int i = 0; i < named.size(); i++) namedNames.add(named.typeAt(i).getName());
+    final Set<Class<?>> types = new LinkedHashSet<>();
+    for (final String name : conditions.filter(Loader.getTypeNamesAnnotatedWith(WarmUp.class, true), namedNames)) {
+      final Class<?> marked = Loader.forName(name);
+      if (marked != null && !marked.isInterface() && !Modifier.isAbstract(marked.getModifiers())) types.add(marked);
+    }
+    types.addAll(warmUpTypes);
+    final List<CompletableFuture<Object>> results = new ArrayList<>(types.size());
+    for (final Class<?> type : types) {
+      if (hasBean(type)) continue;
+      final WarmUps.Task task = warmUps.schedule(type);
+      results.add(task.getResult());
+      executor.execute(() -> {
+        try {
+          warmUps.run(task, () -> constructOnce(type));
+        } catch (final RuntimeException e) {
+          log.warning("Could not warm up " + type.getSimpleName() + ": " + e);
+        }
+      });
+    }
+    return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * Like {@link #withRetention(Class, BeanRetention)}, but keeps only the {@code maxSize} most recently used instances.
+   */
+  public DependencyInjectionContext withBoundedRetention(@NonNull final Class<?> type, final int maxSize) {
+    if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    retentionRules.put(type, new RetentionRule(BeanRetention.BOUNDED, maxSize));
+    return this;
+  }
+
+  /**
+   * Use the given snapshot for {@link SystemProperty} injection from now on, instead of {@link PropertySource#standard()}.
+   * Beans which were already built keep the values they got.
+   */
+  public DependencyInjectionContext withPropertySource(@NonNull final PropertySource source) {
+    systemPropertyInspector = new SystemPropertyInspector(source);
+    return this;
+  }
+
+  /**
+   * Like {@link #withPropertySource(PropertySource)}, but values can change later.
+   * Beans which ask for a {@link Property} or {@link Supplier} see every reload,
+   * while plain values are still fixed when the bean is built.
+   */
+  public DependencyInjectionContext withPropertySource(@NonNull final LivePropertySource source) {
+    systemPropertyInspector = new SystemPropertyInspector(source);
+    return this;
+  }
+
+  /**
+   * How long pooled beans can sit idle before their pool lets them go.
+   * Only pools created after this see the change.
+   * @see BeanPool#DEFAULT_IDLE_TIMEOUT
+   */
+  public DependencyInjectionContext withPoolIdleTimeout(@NonNull final Duration idleTimeout) {
+    if (idleTimeout.isNegative() || idleTimeout.isZero()) throw new IllegalArgumentException("idleTimeout must be positive: " + idleTimeout);
+    poolIdleTimeout = idleTimeout;
+    return this;
+  }
+
+  /**
+   * Like {@link #withRetention(Class, BeanRetention)} with {@link BeanRetention#POOLED}, but keeps up to {@code maxSize} idle instances.
+   */
+  public DependencyInjectionContext withPooledRetention(@NonNull final Class<?> type, final int maxSize) {
+    if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    retentionRules.put(type, new RetentionRule(BeanRetention.POOLED, maxSize));
+    return this;
+  }
+
+  /**
+   * Change the retention for types which don't otherwise say.
+   * Note that anything other than {@link BeanRetention#STRONG} means your beans are no longer singletons.
+   */
+  public DependencyInjectionContext withDefaultRetention(@NonNull final BeanRetention retention) {
+    defaultRetention = new RetentionRule(retention, Retained.MAX_SIZE_DEFAULT);
+    return this;
+  }
+
+  /**
+   * Bind the interceptor to the annotation, as if the annotation were marked with {@link InterceptedBy}.
+   * Beans built from now on which have the annotation, on the class or a method, get it;
+   * beans which were already built keep the interceptors they had.
+   */
+  public DependencyInjectionContext withInterceptor(@NonNull final Class<? extends Annotation> annotation, @NonNull final Interceptor interceptor) {
+    interception.bind(annotation, interceptor);
+    return this;
+  }
+
+  /**
+   * Add another listener for lookups and builds, such as an adapter for your metrics library of choice.
+   * The built-in {@link #getStatistics() statistics} are always listening.
+   */
+  public DependencyInjectionContext withMeter(@NonNull final ContextMeter meter) {
+    meters.add(meter);
+    return this;
+  }
+
+  /**
+   * Whether beans forgotten because a {@link #registerBean(Class, Object, String) registration} replaced something
+   * they were built with should be built again right away, rather than when next asked for.
+   */
+  public DependencyInjectionContext withRebuildOnOverride(final boolean rebuild) {
+    rebuildOnOverride = rebuild;
+    return this;
+  }
+
+  /**
+   * Override how tightly beans of the given concrete type are held, regardless of any {@link Retained} annotation.
+   */
+  public DependencyInjectionContext withRetention(@NonNull final Class<?> type, @NonNull final BeanRetention retention) {
+    retentionRules.put(type, new RetentionRule(retention, Retained.MAX_SIZE_DEFAULT));
+    return this;
+  }
+
+  /**
+   * Build from the given plan where it knows how, and record into it where it doesn't.
+   * Pass {@link StartupPlan#empty()} to record a plan from scratch, then {@link StartupPlan#save(java.nio.file.Path)} it.
+   */
+  public DependencyInjectionContext withStartupPlan(@NonNull final StartupPlan plan) {
+    startupPlan = plan;
+    return this;
+  }
+
+  /**
+   * Mark types for {@link #warmUp()}, as if they had the {@link WarmUp} annotation.
+   */
+  public DependencyInjectionContext withWarmUp(@NonNull final Class<?>... types) {
+    warmUpTypes.addAll(Arrays.asList(types));
+    return this;
+  }
+
+  /**
+   * What {@link #forget(List)} forgot, and what it was known as, in case it needs rebuilding.
+   */
+  private static class Forgotten {
+    private final List<Object> beans;
+    private final Map<Object, String> byName = new LinkedHashMap<>();
+    private final Map<ParameterizedType, Object> byType = new LinkedHashMap<>();
+
+    private Forgotten(final List<Object> beans) {
+      this.beans = beans;
+    }
+  }
+
+  @Value
+  static class MultibindingKey {
+    private final Class<?> kind;
+    private final Class<?> elementType;
+  }
+
   @Value
-  private static class ParameterizedInstance {
-    private final Object object;
-    private final ParameterizedType parameterizedType;
+  protected static class RetentionRule {
+    private final BeanRetention retention;
+    private final int maxSize;
   }
 
+  /**
+   * Resolves {@link SystemProperty} injection points from a {@link LivePropertySource}.
+   * Plain values are planned, converted, and cached the first time each injection point is seen,
+   * and every build after that just gets the cached value, until the source's version changes.
+   * {@link Property} and {@link Supplier} injection points get a live binding instead, which follows later reloads.
+   */
   public static class SystemPropertyInspector implements FieldOrParamInspector {
+    private final Map<AnnotatedElement, Planned> planned = new ConcurrentHashMap<>();
+    private final LivePropertySource source;
+
+    public SystemPropertyInspector() {
+      this(PropertySource.standard());
+    }
+
+    public SystemPropertyInspector(@NonNull final PropertySource source) {
+      this(LivePropertySource.of(source));
+    }
+
+    public SystemPropertyInspector(@NonNull final LivePropertySource source) {
+      this.source = source;
+    }
+
     @Override
     public FieldOrParamResolver findResolver(final FieldOrParam fieldOrParam) {
       final SystemProperty systemProperty = fieldOrParam.getAnnotation(SystemProperty.class);
       if (systemProperty == null) return null;
+      final long version = source.getVersion();
+      final Planned existing = planned.get(fieldOrParam.asAnnotatedElement());
+      if (existing != null && existing.getVersion() == version) return existing.getResolver();
+      final FieldOrParamResolver resolver = plan(fieldOrParam, systemProperty);
+      planned.put(fieldOrParam.asAnnotatedElement(), new Planned(resolver, version));
+      return resolver;
+    }
+
+    /**
+     * Forget the plans for fields and parameters declared by types which pass the test.
+     */
+    void forget(final Predicate<Class<?>> test) {
+      planned.keySet().removeIf(element -> {
+        if (element instanceof Member) return test.test(((Member) element).getDeclaringClass());
+        return element instanceof Parameter && test.test(((Parameter) element).getDeclaringExecutable().getDeclaringClass());
+      });
+    }
+
+    private FieldOrParamResolver plan(final FieldOrParam fieldOrParam, final SystemProperty systemProperty) {
       final String propertyName = systemProperty.value();
       if (propertyName.isEmpty()) throw new IllegalArgumentException("@SystemProperty for " + fieldOrParam + " requires a value");
-      final String defaultValue = systemProperty.defaultValue();
-      @RequiredArgsConstructor
-      class SystemPropertyResolver implements FieldOrParamResolver {
-        private final String defaultValue;
-        private final String propertyName;
-
-        @Override
-        public Maybe apply(final FieldOrParam fieldOrParam) {
-          return Maybe.of(System.getProperty(propertyName, defaultValue));
+      final boolean live = fieldOrParam.isSupplier() || fieldOrParam.getType() == Property.class;
+      final Type declared = fieldOrParam.getGenericType();
+      if (live && !(declared instanceof ParameterizedType)) {
+        throw new IllegalArgumentException("@SystemProperty(" + propertyName + ") needs a type argument to convert to, but " + fieldOrParam + " is a raw " + rawClassOf(declared).getSimpleName());
+      }
+      final Type genericType = live ? ((ParameterizedType) declared).getActualTypeArguments()[0] : fieldOrParam.getParameterizedType();
+      final Class<?> type = fieldOrParam.getType() == Property.class ? rawClassOf(genericType) : fieldOrParam.getType();
+      final Function<String, Object> converter = type == null ? null : PropertyConverters.forType(type, genericType);
+      if (converter == null) throw new IllegalArgumentException("@SystemProperty cannot convert to " + genericType.getTypeName() + " for " + fieldOrParam);
+      if (live) return fop -> Maybe.of(source.bind(propertyName, systemProperty.defaultValue(), converter));
+      final String text = source.getCurrent().get(propertyName, systemProperty.defaultValue());
+      final Object value;
+      if (text.isEmpty() && type != String.class) {
+        if (type.isPrimitive()) throw new IllegalArgumentException("@SystemProperty(" + propertyName + ") has no value for " + fieldOrParam);
+        value = type == List.class ? Collections.emptyList() : null;
+      } else {
+        try {
+          value = converter.apply(text);
+        } catch (final IllegalArgumentException | ArithmeticException | DateTimeParseException e) {
+          throw new IllegalArgumentException("@SystemProperty(" + propertyName + ") cannot convert \"" + text + "\" for " + fieldOrParam, e);
         }
       }
-      return new SystemPropertyResolver(defaultValue, propertyName);
+      final Maybe maybe = Maybe.of(value);
+      return fop -> maybe;
+    }
+
+    private static Class<?> rawClassOf(final Type type) {
+      if (type instanceof Class) return (Class<?>) type;
+      if (type instanceof ParameterizedType) return rawClassOf(((ParameterizedType) type).getRawType());
+      return null;
+    }
+
+    @Value
+    private static class Planned {
+      private final FieldOrParamResolver resolver;
+      private final long version;
     }
   }
 
@@ -277,11 +1535,11 @@ public class DependencyInjectionContext {
 
     @Override
     public Maybe apply(final FieldOrParam fieldOrParam) {
-      final ParameterizedType parameterizedType = fieldOrParam.getExpectedType();
-      if (parameterizedType == null) throw new IllegalArgumentException("Not parameterized: " + fieldOrParam);
-      final Type paramType = parameterizedType.getActualTypeArguments()[typeIndex];
-      if (paramType instanceof Class) return Maybe.of(paramType);
-      throw new IllegalArgumentException("Expected class: " + paramType);
+      final Type paramType = fieldOrParam.getTypeArgument(typeIndex);
+      if (paramType == null || paramType instanceof TypeVariable) throw new IllegalArgumentException("Not parameterized: " + fieldOrParam);
+      // a Type parameter can have the whole thing, such as List<Fruit>, while a Class parameter gets the raw class
+      if (fieldOrParam.getType().isInstance(paramType)) return Maybe.of(paramType);
+      return Maybe.of(TypeBindings.rawClassOf(paramType));
     }
   }
 
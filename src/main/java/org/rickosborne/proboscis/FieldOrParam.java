@@ -10,7 +10,13 @@ import java.util.function.Supplier;
  * Abstraction between field and parameter for cases where you can treat them equally but {@link AnnotatedElement} isn't enough.
  */
 public class FieldOrParam {
+  private final TypeBindings bindings;
   private final Field field;
+  /**
+   * The declared type with every bound type variable resolved, including any {@link Supplier} around it.
+   */
+  @Getter
+  private final Type genericType;
   private final Parameter parameter;
   @Getter
   private final boolean supplier;
@@ -20,32 +26,35 @@ public class FieldOrParam {
   private final Class<?> declaringClass;
   @Getter
   private final Integer paramIndex;
+  /**
+   * What's wanted, with every bound type variable resolved, if it's parameterized.
+   * For a {@link Supplier}, this is what it supplies.
+   */
   @Getter
   private final ParameterizedType parameterizedType;
   @Getter
   private final ParameterizedType expectedType;
 
   private FieldOrParam(final Field field, final Parameter parameter, final Integer paramIndex, final ParameterizedType expectedType) {
-    final Type simpleType;
     if (field != null) {
-      simpleType = field.getType();
       this.declaringClass = field.getDeclaringClass();
     } else if (parameter != null) {
-      simpleType = parameter.getType();
       this.declaringClass = parameter.getDeclaringExecutable().getDeclaringClass();
     } else {
       throw new IllegalArgumentException("Neither field nor parameter");
     }
-    final Type maybeParameterized = field == null ? parameter.getParameterizedType() : field.getGenericType();
-    parameterizedType = maybeParameterized instanceof ParameterizedType ? (ParameterizedType) maybeParameterized : null;
-    if (simpleType == Supplier.class) {
-      final Type[] types = parameterizedType.getActualTypeArguments();
-      this.type = (Class<?>) types[0];
+    // the expected type is what's being built, which may be a subclass of where this was declared
+    this.bindings = expectedType == null || !declaringClass.isAssignableFrom((Class<?>) expectedType.getRawType()) ? TypeBindings.of(declaringClass) : TypeBindings.of(expectedType);
+    this.genericType = bindings.resolve(field == null ? parameter.getParameterizedType() : field.getGenericType());
+    Type wanted = genericType;
+    if (TypeBindings.rawClassOf(genericType) == Supplier.class) {
+      wanted = genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments()[0] : Object.class;
       this.supplier = true;
     } else {
-      this.type = (Class<?>) simpleType;
       this.supplier = false;
     }
+    this.type = TypeBindings.rawClassOf(wanted);
+    this.parameterizedType = wanted instanceof ParameterizedType ? (ParameterizedType) wanted : null;
     this.field = field;
     this.parameter = parameter;
     this.paramIndex = paramIndex;
@@ -57,7 +66,7 @@ public class FieldOrParam {
   }
 
   public static FieldOrParam forParam(final Parameter parameter, final int order) {
-    return new FieldOrParam(null, parameter, order, parameter.getParameterizedType() instanceof ParameterizedType ? (ParameterizedType) parameter.getParameterizedType() : null);
+    return new FieldOrParam(null, parameter, order, null);
   }
 
   public static FieldOrParam forField(final Field field, final ParameterizedType expectedType) {
@@ -76,6 +85,14 @@ public class FieldOrParam {
     return (field == null ? parameter : field).getAnnotation(annotation);
   }
 
+  /**
+   * What the declaring class's type variable at the given index is bound to, for {@link TypeParam}.
+   * @return NULL if it isn't bound
+   */
+  public Type getTypeArgument(final int index) {
+    return bindings.typeArgument(declaringClass, index);
+  }
+
   public String getNamed() {
     return Util.nameOf(asAnnotatedElement());
   }
@@ -0,0 +1,165 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+import org.rickosborne.proboscis.ex.NoSuchBeanException;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, read-optimized copy of a {@link DependencyInjectionContext} whose wiring is finished.
+ * See {@link DependencyInjectionContext#freeze()}.
+ * Every type it knows about gets a dense integer id, assignability between them is precomputed into bitsets,
+ * and beans are held in flat arrays indexed by those ids.
+ * All fields are final and never change after construction, so lookups need no locks and no volatile reads.
+ * <p>
+ * A frozen context cannot build or register anything.
+ * If you need more beans, start a {@link #newChild() child context}, which sees everything in here first.
+ * </p>
+ */
+public class FrozenContext {
+  private static final Set<Class<?>> NO_IMPLEMENTATIONS = Collections.emptySet();
+  private final BitSet[] assignable;
+  private final Object[] beanByType;
+  private final ArrayTable<String, Object> beansByName;
+  private final ArrayTable<ParameterizedType, Object> beansByParameterizedType;
+  private final ArrayTable<Class<?>, Integer> ids;
+  private final Set<Class<?>>[] implementations;
+  private final Class<?>[] types;
+
+  /**
+   * @param knownBeans Names by bean, or empty for none, in the order they became known
+   */
+  @SuppressWarnings("unchecked")
+  FrozenContext(
+    @NonNull final Map<Object, String> knownBeans,
+    @NonNull final Map<ParameterizedType, Object> parameterizedBeans,
+    @NonNull final NamedTypes.Snapshot namedTypes
+  ) {
+    // assign ids to every type we might be asked about: known classes and all of their supertypes
+    final Set<Class<?>> allTypes = new LinkedHashSet<>();
+    for (int i = 0; i < namedTypes.size(); i++) allTypes.addAll(Util.supertypesOf(namedTypes.typeAt(i)));
+    for (final Object bean : knownBeans.keySet()) allTypes.addAll(Util.supertypesOf(bean.getClass()));
+    types = allTypes.toArray(new Class<?>[0]);
+    ids = new ArrayTable<>(types.length);
+    for (int id = 0; id < types.length; id++) ids.putIfAbsent(types[id], id);
+    // a type is assignable from itself and from everything below it
+    assignable = new BitSet[types.length];
+    for (int id = 0; id < types.length; id++) assignable[id] = new BitSet(types.length);
+    for (int id = 0; id < types.length; id++) {
+      for (final Class<?> supertype : Util.supertypesOf(types[id])) assignable[ids.get(supertype)].set(id);
+    }
+    // the first to become known wins, so which one doesn't depend on hashing
+    beanByType = new Object[types.length];
+    for (final Object bean : knownBeans.keySet()) {
+      for (final Class<?> supertype : Util.supertypesOf(bean.getClass())) {
+        final int id = ids.get(supertype);
+        if (beanByType[id] == null) beanByType[id] = bean;
+      }
+    }
+    beansByName = new ArrayTable<>(knownBeans.size());
+    for (final Map.Entry<Object, String> entry : knownBeans.entrySet()) {
+      final String name = entry.getValue();
+      if (name != null && !name.isEmpty()) beansByName.putIfAbsent(name.toLowerCase(Locale.ROOT), entry.getKey());
+    }
+    beansByParameterizedType = new ArrayTable<>(parameterizedBeans.size());
+    for (final Map.Entry<ParameterizedType, Object> entry : parameterizedBeans.entrySet()) {
+      beansByParameterizedType.putIfAbsent(new ParameterizedTypeWrapper<>(entry.getKey()), entry.getValue());
+    }
+    final BitSet named = new BitSet(types.length);
+    for (int i = 0; i < namedTypes.size(); i++) named.set(ids.get(namedTypes.typeAt(i)));
+    @SuppressWarnings("rawtypes") final Set<Class<?>>[] implementations = new Set[types.length];
+    this.implementations = implementations;
+    for (int id = 0; id < types.length; id++) {
+      final BitSet impls = (BitSet) assignable[id].clone();
+      impls.and(named);
+      if (impls.isEmpty()) {
+        implementations[id] = NO_IMPLEMENTATIONS;
+      } else {
+        final Set<Class<?>> implSet = new LinkedHashSet<>();
+        for (int implId = impls.nextSetBit(0); implId >= 0; implId = impls.nextSetBit(implId + 1)) implSet.add(types[implId]);
+        implementations[id] = Collections.unmodifiableSet(implSet);
+      }
+    }
+  }
+
+  /**
+   * Like {@link DependencyInjectionContext#findBeanByName(String, Class)}, but names are matched case-insensitively.
+   * @return NULL if not found.
+   */
+  public <T> T findBeanByName(final String name, @NonNull final Class<T> type) {
+    if (name == null) return null;
+    final Object bean = beansByName.get(name.toLowerCase(Locale.ROOT));
+    return type.isInstance(bean) ? type.cast(bean) : null;
+  }
+
+  /**
+   * See {@link DependencyInjectionContext#findBeanByParameterizedType(ParameterizedType, Class)}.
+   * @return NULL if not found.
+   */
+  public <T> T findBeanByParameterizedType(@NonNull final ParameterizedType parameterizedType, @NonNull final Class<T> type) {
+    final ParameterizedType key = parameterizedType instanceof ParameterizedTypeWrapper ? parameterizedType : new ParameterizedTypeWrapper<>(parameterizedType);
+    final Object bean = beansByParameterizedType.get(key);
+    return bean == null ? null : type.cast(bean);
+  }
+
+  /**
+   * See {@link DependencyInjectionContext#findBeanByType(Class)}.
+   * @return NULL if no matches.
+   */
+  public <T> T findBeanByType(@NonNull final Class<T> type) {
+    final Integer id = ids.get(type);
+    return id == null ? null : type.cast(beanByType[id]);
+  }
+
+  /**
+   * See {@link DependencyInjectionContext#implementationsFor(Class)}.
+   * @return An immutable set, shared between calls
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Set<Class<? extends T>> implementationsFor(@NonNull final Class<T> typeClass) {
+    final Integer id = ids.get(typeClass);
+    return (Set<Class<? extends T>>) (Set<?>) (id == null ? NO_IMPLEMENTATIONS : implementations[id]);
+  }
+
+  /**
+   * Whether a value of type {@code from} could be assigned to {@code to}, answered from the precomputed bitsets.
+   * @return NULL if either type was unknown when frozen
+   */
+  public Boolean isAssignable(@NonNull final Class<?> to, @NonNull final Class<?> from) {
+    final Integer toId = ids.get(to);
+    final Integer fromId = ids.get(from);
+    if (toId == null || fromId == null) return null;
+    return assignable[toId].get(fromId);
+  }
+
+  /**
+   * Start a new, mutable context which sees every bean in this one before its own.
+   */
+  public DependencyInjectionContext newChild() {
+    return new DependencyInjectionContext(this);
+  }
+
+  /**
+   * Like {@link DependencyInjectionContext#requireBean(Class)}, but only for beans which already exist.
+   * @throws NoSuchBeanException if the bean was not built before freezing
+   */
+  @NonNull
+  public <T> T requireBean(@NonNull final Class<T> type) {
+    final T bean = findBeanByType(type);
+    if (bean == null) throw new NoSuchBeanException(type);
+    return bean;
+  }
+
+  /**
+   * How many distinct types have ids.
+   */
+  public int typeCount() {
+    return types.length;
+  }
+}
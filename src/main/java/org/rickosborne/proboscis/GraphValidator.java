@@ -0,0 +1,317 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Works out a {@link DependencyGraph} from a context's metadata alone, following the same choices
+ * {@link TypedFactory} and {@link DependencyInjectionContext#injectFields(Object)} would make, but without calling anything.
+ * Types are analyzed one breadth-first round at a time, with each round spread across the common pool.
+ */
+@RequiredArgsConstructor
+class GraphValidator {
+  private static final Comparator<DependencyGraph.Problem> PROBLEM_ORDER = Comparator
+    .comparing(DependencyGraph.Problem::getKind)
+    .thenComparing(problem -> problem.getType().getName())
+    .thenComparing(DependencyGraph.Problem::getMessage);
+  @NonNull
+  private final DependencyInjectionContext context;
+
+  private Analysis analyze(final Class<?> type) {
+    // a provided type is built by its module's method, and never has its fields injected
+    final ProvidedBinding provided = context.providedBinding(type);
+    final List<Executable> executables = provided == null ? executablesOf(type) : Collections.singletonList(provided.getMethod());
+    Analysis chosen = null;
+    for (final Executable executable : executables) {
+      final Analysis analysis = new Analysis(type, executable);
+      final Parameter[] parameters = executable.getParameters();
+      for (int i = 0; i < parameters.length; i++) {
+        final int index = i;
+        final String via = (executable instanceof Constructor ? "constructor" : executable.getName()) + " parameter " + i;
+        resolve(analysis, via, true, () -> FieldOrParam.forParam(parameters[index], index, null));
+      }
+      // same as TypedFactory: the first executable whose parameters can all be satisfied
+      if (chosen == null || !analysis.isMissingAnything()) chosen = analysis;
+      if (!analysis.isMissingAnything()) break;
+    }
+    if (chosen == null) {
+      chosen = new Analysis(type, null);
+      chosen.problem(DependencyGraph.Problem.Kind.UNBUILDABLE, "No public constructor or static builder");
+    }
+    if (provided != null) return chosen;
+    for (final Field field : type.getDeclaredFields()) {
+      if (field.isAnnotationPresent(SystemProperty.class) || !DependencyInjectionContext.shouldBeInjected(field)) continue;
+      resolve(chosen, "field " + field.getName(), false, () -> FieldOrParam.forField(field));
+    }
+    return chosen;
+  }
+
+  /**
+   * The candidates in the order {@link TypedFactory} tries them: whichever has already been chosen,
+   * then the rest by {@link Priority} and registration order, leaving out any which have already failed to build.
+   */
+  private static List<Class<?>> candidatesFor(final ImplementationChoices.Choice<?> choice) {
+    final List<Class<?>> candidates = new ArrayList<>(choice.getCandidates().size());
+    final Class<?> chosen = choice.getChosen();
+    if (chosen != null) candidates.add(chosen);
+    for (final Class<?> candidate : choice.getCandidates()) {
+      if (candidate != chosen && choice.failureOf(candidate) == null) candidates.add(candidate);
+    }
+    return candidates;
+  }
+
+  private List<Class<?>> concreteImplementations(final Class<?> type, final String name) {
+    final NamedTypes.Snapshot named = context.namedTypeSnapshot();
+    final List<Class<?>> impls = new ArrayList<>();
+    for (final Class<?> impl : named.implementationsOf(type)) {
+      if (!isConcrete(impl) && context.providedBinding(impl) == null) continue;
+      if (name != null && !name.equalsIgnoreCase(named.nameOf(impl))) continue;
+      impls.add(impl);
+    }
+    return impls;
+  }
+
+  private int depthOf(final Class<?> type, final Map<Class<?>, Analysis> analyses, final Map<Class<?>, Integer> depths, final Set<Class<?>> visiting) {
+    final Integer known = depths.get(type);
+    if (known != null) return known;
+    // inside a cycle, which is reported separately
+    if (!visiting.add(type)) return 0;
+    int depth = 0;
+    final Analysis analysis = analyses.get(type);
+    if (analysis != null) {
+      for (final DependencyGraph.Edge edge : analysis.edges) {
+        if (edge.isEager()) depth = Math.max(depth, 1 + depthOf(edge.getTo(), analyses, depths, visiting));
+      }
+    }
+    visiting.remove(type);
+    depths.put(type, depth);
+    return depth;
+  }
+
+  private static List<Executable> executablesOf(final Class<?> type) {
+    final List<Executable> executables = new ArrayList<>();
+    if (!isConcrete(type)) return executables;
+    for (final Method method : type.getDeclaredMethods()) {
+      if (Modifier.isStatic(method.getModifiers()) && Modifier.isPublic(method.getModifiers()) && type.isAssignableFrom(method.getReturnType())) {
+        executables.add(method);
+      }
+    }
+    for (final Constructor<?> constructor : type.getDeclaredConstructors()) {
+      if (Modifier.isPublic(constructor.getModifiers())) executables.add(constructor);
+    }
+    return executables;
+  }
+
+  private static boolean isConcrete(final Class<?> type) {
+    return !type.isInterface() && !type.isPrimitive() && !type.isArray() && !Modifier.isAbstract(type.getModifiers());
+  }
+
+  private void resolve(final Analysis analysis, final String via, final boolean eager, final FieldOrParamSupplier supplier) {
+    final FieldOrParam fieldOrParam;
+    try {
+      fieldOrParam = supplier.get();
+    } catch (final RuntimeException e) {
+      analysis.problem(DependencyGraph.Problem.Kind.MISSING, via + " has a type which can't be injected: " + e);
+      return;
+    }
+    final Class<?> type = fieldOrParam.getType();
+    if (type.isInstance(context)) return;
+    if (fieldOrParam.getAnnotation(SystemProperty.class) != null || fieldOrParam.getAnnotation(TypeParam.class) != null) return;
+    final Class<?> pooled;
+    try {
+      pooled = context.pooledTypeOf(fieldOrParam);
+    } catch (final IllegalArgumentException e) {
+      analysis.problem(DependencyGraph.Problem.Kind.MISSING, via + " " + e.getMessage());
+      return;
+    }
+    if (pooled != null) {
+      // a pool only builds on lease, so it's never part of a constructor cycle
+      final List<Class<?>> impls = isConcrete(pooled) ? Collections.singletonList(pooled) : candidatesFor(context.implementationChoiceFor(pooled, null));
+      if (impls.isEmpty()) analysis.problem(DependencyGraph.Problem.Kind.MISSING, via + " needs a pool of " + pooled.getSimpleName());
+      else analysis.edge(impls.get(0), via, false);
+      return;
+    }
+    final ParameterizedType parameterizedType = fieldOrParam.getParameterizedType();
+    final DependencyInjectionContext.MultibindingKey multibinding = DependencyInjectionContext.multibindingKeyOf(type, parameterizedType);
+    if (multibinding != null) {
+      for (final Class<?> impl : concreteImplementations(multibinding.getElementType(), null)) analysis.edge(impl, via, eager);
+      return;
+    }
+    // fields look for existing beans first, while parameters look for implementations first
+    if (!eager && context.hasBean(type)) return;
+    final String name = fieldOrParam.getNamed();
+    final ProvidedBinding provided = context.providedFor(type, name);
+    if (provided != null) {
+      analysis.edge(provided.getType(), via, eager);
+      return;
+    }
+    final ImplementationChoices.Choice<?> choice = context.implementationChoiceFor(type, name);
+    final List<Class<?>> candidates = candidatesFor(parameterizedType == null ? choice : choice.fitting(parameterizedType));
+    if (!candidates.isEmpty()) {
+      final int priority = ImplementationChoices.priorityOf(candidates.get(0));
+      final List<Class<?>> tied = new ArrayList<>();
+      for (final Class<?> candidate : candidates) if (ImplementationChoices.priorityOf(candidate) == priority) tied.add(candidate);
+      if (name == null && tied.size() > 1) {
+        analysis.problem(DependencyGraph.Problem.Kind.AMBIGUOUS, via + " could be any of " + tied.stream().map(Class::getSimpleName).collect(Collectors.joining(", ")));
+      }
+      analysis.edge(candidates.get(0), via, eager);
+      return;
+    }
+    if (context.hasBean(type)) return;
+    if (parameterizedType != null && !executablesOf(type).isEmpty()) {
+      analysis.edge(type, via, eager);
+      return;
+    }
+    analysis.problem(DependencyGraph.Problem.Kind.MISSING, via + " needs " + type.getSimpleName() + (name == null ? "" : "(" + name + ")"));
+  }
+
+  private List<DependencyGraph.Problem> findCycles(final Map<Class<?>, Analysis> analyses) {
+    final Tarjan tarjan = new Tarjan(analyses);
+    for (final Class<?> type : analyses.keySet()) {
+      if (!tarjan.index.containsKey(type)) tarjan.connect(type);
+    }
+    return tarjan.cycles;
+  }
+
+  /**
+   * @param allNamed Whether to start from every concrete named type as well as the given roots
+   */
+  DependencyGraph validate(@NonNull final Collection<Class<?>> extraRoots, final boolean allNamed) {
+    final Set<Class<?>> roots = new LinkedHashSet<>();
+    final NamedTypes.Snapshot named = context.namedTypeSnapshot();
+    for (int i = 0; allNamed && i < named.size(); i++) {
+      final Class<?> type = named.typeAt(i);
+      // registered instances don't need building
+      if (isConcrete(type) && !context.hasBean(type)) roots.add(type);
+    }
+    roots.addAll(extraRoots);
+    final Map<Class<?>, Analysis> analyses = new HashMap<>();
+    Set<Class<?>> frontier = roots;
+    while (!frontier.isEmpty()) {
+      final List<Analysis> round = frontier.parallelStream().map(this::analyze).collect(Collectors.toList());
+      final Set<Class<?>> next = new LinkedHashSet<>();
+      for (final Analysis analysis : round) analyses.put(analysis.type, analysis);
+      for (final Analysis analysis : round) {
+        for (final DependencyGraph.Edge edge : analysis.edges) {
+          if (!analyses.containsKey(edge.getTo())) next.add(edge.getTo());
+        }
+      }
+      frontier = next;
+    }
+    final List<DependencyGraph.Problem> problems = new ArrayList<>();
+    for (final Analysis analysis : analyses.values()) problems.addAll(analysis.problems);
+    problems.addAll(findCycles(analyses));
+    problems.sort(PROBLEM_ORDER);
+    final Map<Class<?>, Integer> depths = new HashMap<>();
+    final List<Class<?>> types = new ArrayList<>(analyses.keySet());
+    types.sort(Comparator.comparing(Class::getName));
+    final Map<Class<?>, DependencyGraph.Node> nodes = new LinkedHashMap<>();
+    for (final Class<?> type : types) {
+      final Analysis analysis = analyses.get(type);
+      final int depth = depthOf(type, analyses, depths, new HashSet<>());
+      final int fanOut = (int) analysis.edges.stream().map(DependencyGraph.Edge::getTo).distinct().count();
+      nodes.put(type, new DependencyGraph.Node(type, analysis.executable, analysis.edges, depth, fanOut));
+    }
+    return new DependencyGraph(nodes, problems);
+  }
+
+  private static class Analysis {
+    private final List<DependencyGraph.Edge> edges = new ArrayList<>();
+    private final Executable executable;
+    private final List<DependencyGraph.Problem> problems = new ArrayList<>();
+    private final Class<?> type;
+
+    Analysis(final Class<?> type, final Executable executable) {
+      this.executable = executable;
+      this.type = type;
+    }
+
+    void edge(final Class<?> to, final String via, final boolean eager) {
+      edges.add(new DependencyGraph.Edge(type, to, via, eager));
+    }
+
+    boolean isMissingAnything() {
+      for (final DependencyGraph.Problem problem : problems) {
+        if (problem.getKind() == DependencyGraph.Problem.Kind.MISSING) return true;
+      }
+      return false;
+    }
+
+    void problem(final DependencyGraph.Problem.Kind kind, final String message) {
+      problems.add(new DependencyGraph.Problem(kind, type, message));
+    }
+  }
+
+  @FunctionalInterface
+  private interface FieldOrParamSupplier {
+    FieldOrParam get();
+  }
+
+  /**
+   * Strongly connected components over eager edges, each of which is a constructor cycle.
+   */
+  @RequiredArgsConstructor
+  private static class Tarjan {
+    private final Map<Class<?>, Analysis> analyses;
+    private final List<DependencyGraph.Problem> cycles = new ArrayList<>();
+    private final Map<Class<?>, Integer> index = new HashMap<>();
+    private final Map<Class<?>, Integer> lowLink = new HashMap<>();
+    private final Set<Class<?>> onStack = new HashSet<>();
+    private final List<Class<?>> stack = new ArrayList<>();
+
+    private void connect(final Class<?> type) {
+      index.put(type, index.size());
+      lowLink.put(type, index.get(type));
+      stack.add(type);
+      onStack.add(type);
+      boolean selfLoop = false;
+      final Analysis analysis = analyses.get(type);
+      if (analysis != null) {
+        for (final DependencyGraph.Edge edge : analysis.edges) {
+          if (!edge.isEager()) continue;
+          final Class<?> to = edge.getTo();
+          if (to == type) selfLoop = true;
+          if (!index.containsKey(to)) {
+            connect(to);
+            lowLink.put(type, Math.min(lowLink.get(type), lowLink.get(to)));
+          } else if (onStack.contains(to)) {
+            lowLink.put(type, Math.min(lowLink.get(type), index.get(to)));
+          }
+        }
+      }
+      if (!lowLink.get(type).equals(index.get(type))) return;
+      final List<Class<?>> component = new ArrayList<>();
+      Class<?> member;
+      do {
+        member = stack.remove(stack.size() - 1);
+        onStack.remove(member);
+        component.add(member);
+      } while (member != type);
+      if (component.size() > 1 || selfLoop) {
+        component.sort(Comparator.comparing(Class::getName));
+        final String path = component.stream().map(Class::getSimpleName).collect(Collectors.joining(" -> "));
+        cycles.add(new DependencyGraph.Problem(DependencyGraph.Problem.Kind.CYCLE, component.get(0), "Constructor cycle: " + path + " -> " + component.get(0).getSimpleName()));
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package org.rickosborne.proboscis;
+
+import lombok.RequiredArgsConstructor;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.ref.Reference;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Works out a {@link HeapReport} by walking the object graph out from each bean, stopping at other beans.
+ * Each object is owned by the first bean to reach it, until a second one does and it becomes shared.
+ * Classes, class loaders, threads, enum constants, reflection objects, and the contexts themselves are
+ * never counted, and references are counted without following them.
+ * <p>
+ * From Java 9 on, the module system keeps the fields of JDK classes closed.
+ * Collections and maps among them are walked through their iterators instead, and what they keep their elements in
+ * is estimated from their size.  Other closed objects are counted as themselves only.
+ * </p>
+ */
+class HeapAccounting {
+  private static final int ARRAY_HEADER = 16;
+  private static final int ALIGNMENT = 8;
+  private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+    @Override
+    protected Layout computeValue(final Class<?> type) {
+      final List<Field> fields = new ArrayList<>();
+      boolean closed = false;
+      for (Class<?> level = type; level != null; level = level.getSuperclass()) {
+        for (final Field field : level.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) continue;
+          try {
+            field.setAccessible(true);
+            fields.add(field);
+          } catch (final RuntimeException e) {
+            // closed off by the module system
+            closed = true;
+          }
+        }
+      }
+      return new Layout(fields.toArray(new Field[0]), closed);
+    }
+  };
+  /**
+   * A hash, key, value and next: what a {@link java.util.HashMap} spends on each mapping.
+   */
+  private static final int MAP_ENTRY = 32;
+  private static final int OBJECT_HEADER = 12;
+  private static final int REFERENCE_SIZE = 4;
+  private static final ClassValue<Long> SHALLOW = new ClassValue<Long>() {
+    @Override
+    protected Long computeValue(final Class<?> type) {
+      long size = OBJECT_HEADER;
+      for (Class<?> level = type; level != null; level = level.getSuperclass()) {
+        for (final Field field : level.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) size += sizeOf(field.getType());
+        }
+      }
+      return align(size);
+    }
+  };
+  private static final Object SHARED = new Object();
+  private final Map<Object, String> beans;
+  private final Instrumentation instrumentation;
+  private final Map<Object, Owned> owners = new IdentityHashMap<>();
+
+  /**
+   * @param beans Every bean to account for, with its name
+   * @param instrumentation NULL to estimate sizes
+   */
+  HeapAccounting(final Map<Object, String> beans, final Instrumentation instrumentation) {
+    this.beans = new IdentityHashMap<>(beans);
+    this.instrumentation = instrumentation;
+  }
+
+  private static long align(final long size) {
+    return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  /**
+   * What a collection we can't open keeps its elements in, estimated as a reference per element, or an entry per mapping.
+   */
+  private static long backingOf(final Object value) {
+    final Class<?> type = value.getClass();
+    if (type.isArray() || !LAYOUTS.get(type).closed) return 0;
+    if (value instanceof Collection) return align(ARRAY_HEADER + (long) ((Collection<?>) value).size() * REFERENCE_SIZE);
+    if (value instanceof Map) return (long) ((Map<?, ?>) value).size() * MAP_ENTRY;
+    return 0;
+  }
+
+  private static boolean isOpaque(final Object value) {
+    return value instanceof Class || value instanceof ClassLoader || value instanceof Thread || value instanceof ThreadGroup
+      || value instanceof Enum || value instanceof AccessibleObject
+      || value instanceof DependencyInjectionContext || value instanceof FrozenContext;
+  }
+
+  HeapReport measure() {
+    final Map<Object, Walked> walked = new IdentityHashMap<>();
+    final List<HeapReport.LargeCollection> large = new ArrayList<>();
+    for (final Object bean : beans.keySet()) walked.put(bean, walk(bean, large));
+    final Map<Object, Long> retained = new IdentityHashMap<>();
+    for (final Map.Entry<Object, Walked> entry : walked.entrySet()) retained.put(entry.getKey(), entry.getValue().shallow);
+    long shared = 0;
+    for (final Owned owned : owners.values()) {
+      if (owned.owner == SHARED) shared += owned.bytes;
+      else retained.put(owned.owner, retained.get(owned.owner) + owned.bytes);
+    }
+    final List<HeapReport.Entry> entries = new ArrayList<>();
+    for (final Map.Entry<Object, Walked> entry : walked.entrySet()) {
+      final Object bean = entry.getKey();
+      final List<Class<?>> dependencies = new ArrayList<>();
+      for (final Object dependency : entry.getValue().dependencies) dependencies.add(Interception.userClassOf(dependency.getClass()));
+      entries.add(new HeapReport.Entry(Interception.userClassOf(bean.getClass()), beans.get(bean), entry.getValue().shallow,
+        retained.get(bean), subtreeOf(bean, walked, retained), Collections.unmodifiableList(dependencies)));
+    }
+    entries.sort((a, b) -> a.getRetainedBytes() != b.getRetainedBytes() ? Long.compare(b.getRetainedBytes(), a.getRetainedBytes()) : Long.compare(b.getSubtreeBytes(), a.getSubtreeBytes()));
+    return new HeapReport(Collections.unmodifiableList(entries), Collections.unmodifiableList(duplicates()), Collections.unmodifiableList(large), shared, instrumentation != null);
+  }
+
+  private List<HeapReport.Duplicate> duplicates() {
+    final Map<List<Object>, Integer> counts = new LinkedHashMap<>();
+    for (final Map.Entry<Object, String> entry : beans.entrySet()) {
+      counts.merge(Arrays.asList(Interception.userClassOf(entry.getKey().getClass()), entry.getValue()), 1, Integer::sum);
+    }
+    final List<HeapReport.Duplicate> duplicates = new ArrayList<>();
+    for (final Map.Entry<List<Object>, Integer> entry : counts.entrySet()) {
+      if (entry.getValue() > 1) duplicates.add(new HeapReport.Duplicate((Class<?>) entry.getKey().get(0), (String) entry.getKey().get(1), entry.getValue()));
+    }
+    return duplicates;
+  }
+
+  private long sizeOf(final Object value) {
+    if (instrumentation != null) return instrumentation.getObjectSize(value);
+    final Class<?> type = value.getClass();
+    if (type.isArray()) return align(ARRAY_HEADER + (long) Array.getLength(value) * sizeOf(type.getComponentType()));
+    return SHALLOW.get(type);
+  }
+
+  private static int sizeOf(final Class<?> type) {
+    if (type == long.class || type == double.class) return 8;
+    if (type == int.class || type == float.class) return 4;
+    if (type == short.class || type == char.class) return 2;
+    if (type == byte.class || type == boolean.class) return 1;
+    return REFERENCE_SIZE;
+  }
+
+  private static long subtreeOf(final Object bean, final Map<Object, Walked> walked, final Map<Object, Long> retained) {
+    final Map<Object, Boolean> seen = new IdentityHashMap<>();
+    final Deque<Object> pending = new ArrayDeque<>();
+    pending.push(bean);
+    long total = 0;
+    while (!pending.isEmpty()) {
+      final Object next = pending.pop();
+      if (seen.put(next, Boolean.TRUE) != null) continue;
+      total += retained.get(next);
+      for (final Object dependency : walked.get(next).dependencies) pending.push(dependency);
+    }
+    return total;
+  }
+
+  private Walked walk(final Object bean, final List<HeapReport.LargeCollection> large) {
+    final Walked walked = new Walked(sizeOf(bean) + backingOf(bean));
+    final Map<Object, Boolean> visited = new IdentityHashMap<>();
+    final Deque<Step> pending = new ArrayDeque<>();
+    visited.put(bean, Boolean.TRUE);
+    final Layout beanLayout = LAYOUTS.get(bean.getClass());
+    for (final Field field : beanLayout.fields) push(bean, field, field.getName(), pending);
+    if (beanLayout.closed) pushElements(bean, "", pending);
+    while (!pending.isEmpty()) {
+      final Step step = pending.pop();
+      final Object value = step.value;
+      if (isOpaque(value) || visited.put(value, Boolean.TRUE) != null) continue;
+      if (beans.containsKey(value)) {
+        walked.dependencies.add(value);
+        continue;
+      }
+      final Owned owned = owners.get(value);
+      if (owned == null) owners.put(value, new Owned(bean, sizeOf(value) + backingOf(value)));
+      else if (owned.owner != bean) owned.owner = SHARED;
+      if (owned == null && (value instanceof Collection || value instanceof Map)) {
+        final int size = value instanceof Collection ? ((Collection<?>) value).size() : ((Map<?, ?>) value).size();
+        if (size >= HeapReport.LARGE_COLLECTION_SIZE) large.add(new HeapReport.LargeCollection(Interception.userClassOf(bean.getClass()), step.via, value.getClass(), size));
+      }
+      // counted, but what it refers to belongs to someone else, if anyone
+      if (value instanceof Reference) continue;
+      final Class<?> type = value.getClass();
+      if (type.isArray()) {
+        if (type.getComponentType().isPrimitive()) continue;
+        for (final Object element : (Object[]) value) if (element != null) pending.push(new Step(element, step.via));
+      } else {
+        final Layout layout = LAYOUTS.get(type);
+        for (final Field field : layout.fields) push(value, field, step.via, pending);
+        if (layout.closed) pushElements(value, step.via, pending);
+      }
+    }
+    return walked;
+  }
+
+  private static void push(final Object holder, final Field field, final String via, final Deque<Step> pending) {
+    final Object value;
+    try {
+      value = field.get(holder);
+    } catch (final IllegalAccessException e) {
+      return;
+    }
+    if (value != null) pending.push(new Step(value, via));
+  }
+
+  /**
+   * Through its public API, for a collection or map whose fields we can't open.
+   */
+  private static void pushElements(final Object value, final String via, final Deque<Step> pending) {
+    try {
+      if (value instanceof Collection) {
+        for (final Object element : (Collection<?>) value) if (element != null) pending.push(new Step(element, via));
+      } else if (value instanceof Map) {
+        for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          if (entry.getKey() != null) pending.push(new Step(entry.getKey(), via));
+          if (entry.getValue() != null) pending.push(new Step(entry.getValue(), via));
+        }
+      }
+    } catch (final RuntimeException e) {
+      // changed while we looked, so counted as far as we got
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Layout {
+    private final Field[] fields;
+    /**
+     * Whether any of its fields couldn't be opened, so aren't in {@link #fields}.
+     */
+    private final boolean closed;
+  }
+
+  private static class Owned {
+    private final long bytes;
+    private Object owner;
+
+    private Owned(final Object owner, final long bytes) {
+      this.bytes = bytes;
+      this.owner = owner;
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Step {
+    private final Object value;
+    /**
+     * The bean's own field it hangs from.
+     */
+    private final String via;
+  }
+
+  @RequiredArgsConstructor
+  private static class Walked {
+    private final List<Object> dependencies = new ArrayList<>();
+    private final long shallow;
+  }
+}
@@ -0,0 +1,112 @@
+package org.rickosborne.proboscis;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Which of a context's beans account for its heap, from {@link DependencyInjectionContext#measureHeap()}.
+ * <p>
+ * Each bean's retained size is what it alone keeps alive: the bean itself, plus everything reachable from it which
+ * no other bean can also reach.  Anything two or more beans can reach is counted once, as shared.
+ * The subtree size adds in the retained sizes of every bean it depends on, directly or not, so shared dependencies
+ * show up in the subtree of each of their dependents.
+ * </p>
+ * <p>
+ * Sizes come from {@link java.lang.instrument.Instrumentation} when one is given, and otherwise are estimated from
+ * each class's fields, assuming a 64-bit JVM with compressed references.  Treat the estimates as a ranking
+ * rather than a byte count.
+ * </p>
+ */
+@Value
+public class HeapReport {
+  /**
+   * Collections and maps with at least this many entries are reported as large.
+   */
+  public static final int LARGE_COLLECTION_SIZE = 1_000;
+  /**
+   * Every strongly held bean, largest retained size first.
+   */
+  private final List<Entry> entries;
+  /**
+   * Beans of the same class with the same name, which should have been one.
+   */
+  private final List<Duplicate> duplicates;
+  private final List<LargeCollection> largeCollections;
+  /**
+   * Bytes reachable from more than one bean.
+   */
+  private final long sharedBytes;
+  /**
+   * Whether sizes were measured, rather than estimated.
+   */
+  private final boolean instrumented;
+
+  public long getTotalBytes() {
+    long total = sharedBytes;
+    for (final Entry entry : entries) total += entry.getRetainedBytes();
+    return total;
+  }
+
+  /**
+   * The ranking as a plain-text table, then any duplicates and large collections.
+   */
+  public String toText() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%12s %12s %12s  %s%n", "retained", "subtree", "shallow", "bean"));
+    for (final Entry entry : entries) {
+      sb.append(String.format("%12d %12d %12d  %s", entry.getRetainedBytes(), entry.getSubtreeBytes(), entry.getShallowBytes(), entry.getType().getName()));
+      if (!DependencyInjectionContext.NO_NAME.equals(entry.getName())) sb.append(" \"").append(entry.getName()).append('"');
+      sb.append(System.lineSeparator());
+    }
+    sb.append(String.format("%12d %12s %12s  (shared)%n", sharedBytes, "", ""));
+    sb.append(String.format("%12d %12s %12s  total, %s%n", getTotalBytes(), "", "", instrumented ? "measured" : "estimated"));
+    for (final Duplicate duplicate : duplicates) {
+      sb.append("duplicate: ").append(duplicate.getCount()).append(" of ").append(duplicate.getType().getName());
+      if (!DependencyInjectionContext.NO_NAME.equals(duplicate.getName())) sb.append(" \"").append(duplicate.getName()).append('"');
+      sb.append(System.lineSeparator());
+    }
+    for (final LargeCollection large : largeCollections) {
+      sb.append("large: ").append(large.getOwner().getName()).append('.').append(large.getVia())
+        .append(" is a ").append(large.getType().getName()).append(" of ").append(large.getSize()).append(System.lineSeparator());
+    }
+    return sb.toString();
+  }
+
+  @Value
+  public static class Duplicate {
+    private final Class<?> type;
+    private final String name;
+    private final int count;
+  }
+
+  @Value
+  public static class Entry {
+    private final Class<?> type;
+    /**
+     * The bean's name, its parameterized type, or {@link DependencyInjectionContext#NO_NAME}.
+     */
+    private final String name;
+    private final long shallowBytes;
+    private final long retainedBytes;
+    private final long subtreeBytes;
+    /**
+     * Other beans it holds on to directly.
+     */
+    private final List<Class<?>> dependencies;
+  }
+
+  @Value
+  public static class LargeCollection {
+    /**
+     * The bean it hangs off.
+     */
+    private final Class<?> owner;
+    /**
+     * The bean's field it was first reached through.
+     */
+    private final String via;
+    private final Class<?> type;
+    private final int size;
+  }
+}
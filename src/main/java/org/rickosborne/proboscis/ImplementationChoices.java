@@ -0,0 +1,139 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.Value;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Which implementation to use for an abstract type or interface, worked out once and then remembered.
+ * Candidates which can't possibly be built, because they are abstract or have no public constructor or static builder,
+ * are dropped up front, and the rest are ordered by {@link Priority}, then by registration order.
+ * Once a candidate has been built successfully it is the choice, and later builds go straight to it.
+ * Candidates which fail to build are remembered too, and not tried again until {@link #retryFailed()},
+ * as what they were missing may since have been registered.
+ * <p>
+ * Choices are tied to the set of implementations they were made from.
+ * Registering another type swaps that set out, so the next lookup starts a fresh choice.
+ * </p>
+ */
+class ImplementationChoices {
+  static final Comparator<Class<?>> BY_PRIORITY = Comparator.comparingInt(ImplementationChoices::priorityOf);
+  private final Map<Key, Choice<?>> choices = new ConcurrentHashMap<>();
+
+  private static boolean isBuildable(final Class<?> type) {
+    if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) return false;
+    for (final Constructor<?> constructor : type.getDeclaredConstructors()) {
+      if (Modifier.isPublic(constructor.getModifiers())) return true;
+    }
+    for (final Method method : type.getDeclaredMethods()) {
+      if (Modifier.isStatic(method.getModifiers()) && Modifier.isPublic(method.getModifiers()) && type.isAssignableFrom(method.getReturnType())) return true;
+    }
+    return false;
+  }
+
+  /**
+   * The (possibly cached) choice between the given implementations of the type.
+   * @param name Only consider implementations with this {@link javax.inject.Named} value, or NULL for any
+   */
+  @SuppressWarnings("unchecked")
+  <T> Choice<T> choiceFor(final Class<T> type, final String name, final Set<Class<? extends T>> implementors) {
+    final Key key = new Key(type, name == null ? null : name.toLowerCase(Locale.ROOT));
+    final Choice<?> existing = choices.get(key);
+    if (existing != null && existing.implementors == (Set<?>) implementors) return (Choice<T>) existing;
+    final List<Class<? extends T>> candidates = new ArrayList<>(implementors.size());
+    for (final Class<? extends T> implementor : implementors) {
+      if (name != null && !name.equalsIgnoreCase(Util.nameOf(implementor))) continue;
+      if (isBuildable(implementor)) candidates.add(implementor);
+    }
+    // stable, so registration order breaks ties
+    candidates.sort(BY_PRIORITY);
+    final Choice<T> choice = new Choice<>(Collections.unmodifiableList(candidates), new ConcurrentHashMap<>(), implementors);
+    choices.put(key, choice);
+    return choice;
+  }
+
+  /**
+   * Forget every choice for, or between, types which pass the test.
+   */
+  void forget(final Predicate<Class<?>> test) {
+    choices.keySet().removeIf(key -> test.test(key.getType()));
+    choices.values().removeIf(choice -> {
+      for (final Object implementor : choice.implementors) if (test.test((Class<?>) implementor)) return true;
+      return false;
+    });
+  }
+
+  /**
+   * Let every candidate which failed to build be tried again.
+   */
+  void retryFailed() {
+    for (final Choice<?> choice : choices.values()) choice.failures.clear();
+  }
+
+  static int priorityOf(final Class<?> type) {
+    final Priority priority = type.getAnnotation(Priority.class);
+    return priority == null ? Priority.DEFAULT : priority.value();
+  }
+
+  @RequiredArgsConstructor
+  static class Choice<T> {
+    @Getter
+    private final List<Class<? extends T>> candidates;
+    @Getter
+    @Setter
+    private volatile Class<? extends T> chosen;
+    /**
+     * Candidates which failed to build, and how, shared with the narrowed choices.
+     */
+    private final Map<Class<?>, RuntimeException> failures;
+    private final Set<Class<? extends T>> implementors;
+
+    /**
+     * Remember that the candidate couldn't be built, so it isn't tried again.
+     */
+    void failed(final Class<?> candidate, final RuntimeException failure) {
+      failures.putIfAbsent(candidate, failure);
+    }
+
+    /**
+     * @return NULL if the candidate hasn't failed
+     */
+    RuntimeException failureOf(final Class<?> candidate) {
+      return failures.isEmpty() ? null : failures.get(candidate);
+    }
+
+    /**
+     * This choice, narrowed to the candidates which {@link TypeBindings#fits fit} the wanted parameterization.
+     * A narrowed choice isn't remembered, as it only holds for that one parameterization.
+     */
+    Choice<T> fitting(final ParameterizedType wanted) {
+      final List<Class<? extends T>> fitting = new ArrayList<>(candidates.size());
+      for (final Class<? extends T> candidate : candidates) {
+        if (TypeBindings.fits(candidate, wanted)) fitting.add(candidate);
+      }
+      if (fitting.size() == candidates.size()) return this;
+      return new Choice<>(Collections.unmodifiableList(fitting), failures, implementors);
+    }
+  }
+
+  @Value
+  private static class Key {
+    private final Class<?> type;
+    private final String name;
+  }
+}
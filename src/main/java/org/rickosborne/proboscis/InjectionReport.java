@@ -0,0 +1,42 @@
+package org.rickosborne.proboscis;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * What {@link DependencyInjectionContext#injectAll(java.util.Collection)} did, class by class.
+ */
+@Value
+public class InjectionReport {
+  /**
+   * In the order each class was first seen in the batch.
+   */
+  private final Map<Class<?>, Entry> byType;
+
+  public long getObjectCount() {
+    long count = 0;
+    for (final Entry entry : byType.values()) count += entry.getObjects();
+    return count;
+  }
+
+  public long getWriteCount() {
+    long count = 0;
+    for (final Entry entry : byType.values()) count += entry.getWrites();
+    return count;
+  }
+
+  @Value
+  public static class Entry {
+    private final Class<?> type;
+    private final int objects;
+    /**
+     * Fields set, across every object.  Fields which already had a value are left alone, and not counted.
+     */
+    private final long writes;
+    /**
+     * Resolving the values and writing them, together.
+     */
+    private final long elapsedNanos;
+  }
+}
@@ -0,0 +1,14 @@
+package org.rickosborne.proboscis;
+
+/**
+ * Implemented by the subclasses generated for intercepted beans, so that an {@link Invocation} can reach the
+ * original methods.  Not something to implement by hand.
+ */
+public interface Intercepted {
+  void attachInterceptors(Object chains);
+
+  /**
+   * Call the original, superclass, method with the given index.
+   */
+  Object proceedIntercepted(int index, Object[] args) throws Throwable;
+}
@@ -0,0 +1,33 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The interceptors for a bean's methods.
+ * Put it on an annotation to make that annotation a binding, as with {@link Timed}, or on a bean or method directly.
+ * On a bean, every method of the bean is intercepted.
+ * Interceptors are beans themselves, built by the context the first time a bean which needs them is built.
+ * <pre>
+ *   \@Target({ElementType.TYPE, ElementType.METHOD})
+ *   \@Retention(RetentionPolicy.RUNTIME)
+ *   \@InterceptedBy(CachingInterceptor.class)
+ *   public \@interface Cached { }
+ *
+ *   public class RateTable {
+ *     \@Cached
+ *     public BigDecimal rateFor(final String currency) { }
+ *   }
+ * </pre>
+ * @see Interceptor
+ */
+@Target({ElementType.ANNOTATION_TYPE, ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InterceptedBy {
+  /**
+   * Outermost first.
+   */
+  Class<? extends Interceptor>[] value();
+}
@@ -0,0 +1,296 @@
+package org.rickosborne.proboscis;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtConstructor;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.Modifier;
+import javassist.NotFoundException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Which of a bean's methods are intercepted, by what, and the generated subclass which does it.
+ * <p>
+ * Intercepted beans are built as a subclass, generated with javassist, which overrides only the intercepted methods,
+ * each to walk its chain and then call the original.  Methods without interceptors aren't overridden at all.
+ * There's no reflection on the way through, but each call still boxes its arguments and result for the chain
+ * and allocates its {@link Invocation}, so even a pass-through chain costs more than a {@link java.lang.reflect.Proxy}
+ * does: see {@code InterceptionBenchmark}.  What it buys is intercepting classes, not just interfaces.
+ * Chains are worked out once per type, when the first bean of that type is built, and shared by every bean of it.
+ * Generated subclasses are kept alongside the class, one per set of intercepted methods.
+ * </p>
+ * <p>
+ * From Java 9 on, the subclass is defined through a private {@link MethodHandles.Lookup} on the bean's class,
+ * as the reflective {@link ClassLoader} access older bytecode libraries use is closed off from Java 16.
+ * </p>
+ * <p>
+ * Only beans built from a constructor can be intercepted, as something else builds the beans from a static builder.
+ * Final classes and final methods can't be overridden, so binding an interceptor to one is an error.
+ * </p>
+ */
+class Interception {
+  /**
+   * {@code Lookup.defineClass(byte[])}, or NULL before Java 9.
+   */
+  private static final Method DEFINE_CLASS = methodOrNull(MethodHandles.Lookup.class, "defineClass", byte[].class);
+  private static final AtomicInteger GENERATED_COUNT = new AtomicInteger();
+  private static final ClassValue<Map<List<Method>, Class<?>>> SUBCLASSES = new ClassValue<Map<List<Method>, Class<?>>>() {
+    @Override
+    protected Map<List<Method>, Class<?>> computeValue(final Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+  private static final Plan NONE = new Plan(null, null);
+  /**
+   * {@code MethodHandles.privateLookupIn(Class, Lookup)}, or NULL before Java 9.
+   */
+  private static final Method PRIVATE_LOOKUP_IN = methodOrNull(MethodHandles.class, "privateLookupIn", Class.class, MethodHandles.Lookup.class);
+  private final Map<Class<? extends Annotation>, List<Interceptor>> bindings = new ConcurrentHashMap<>();
+  private final DependencyInjectionContext context;
+  private final Map<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+
+  Interception(@NonNull final DependencyInjectionContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Bind another interceptor to the annotation.  Beans built after this get it, and beans built before keep what they had.
+   */
+  void bind(@NonNull final Class<? extends Annotation> annotation, @NonNull final Interceptor interceptor) {
+    bindings.computeIfAbsent(annotation, a -> new ArrayList<>()).add(interceptor);
+    plans.clear();
+  }
+
+  private static String box(final Class<?> type, final String expression) {
+    if (!type.isPrimitive()) return expression;
+    return wrapperOf(type).getName() + ".valueOf(" + expression + ")";
+  }
+
+  private List<Interceptor> chainFor(final Class<?> type, final Method method) {
+    final List<Interceptor> chain = new ArrayList<>();
+    // bean-wide interceptors wrap method ones
+    for (final Annotation annotation : type.getAnnotations()) interceptorsFor(annotation, chain);
+    for (final Annotation annotation : method.getAnnotations()) interceptorsFor(annotation, chain);
+    return chain;
+  }
+
+  private static CtClass ctClassOf(final ClassPool pool, final Class<?> type) throws NotFoundException {
+    return pool.get(sourceName(type));
+  }
+
+  private static CtClass[] ctClassesOf(final ClassPool pool, final Class<?>[] types) throws NotFoundException {
+    final CtClass[] ctClasses = new CtClass[types.length];
+    for (int i = 0; i < types.length; i++) ctClasses[i] = ctClassOf(pool, types[i]);
+    return ctClasses;
+  }
+
+  /**
+   * Define the generated class in the same package and loader as its superclass.
+   */
+  private static Class<?> define(final CtClass subclass, final Class<?> type) throws CannotCompileException {
+    if (PRIVATE_LOOKUP_IN == null || DEFINE_CLASS == null) return subclass.toClass(type.getClassLoader(), type.getProtectionDomain());
+    try {
+      final Object lookup = PRIVATE_LOOKUP_IN.invoke(null, type, MethodHandles.lookup());
+      return (Class<?>) DEFINE_CLASS.invoke(lookup, (Object) subclass.toBytecode());
+    } catch (final IOException | IllegalAccessException e) {
+      throw new CannotCompileException(e);
+    } catch (final InvocationTargetException e) {
+      throw new CannotCompileException(e.getCause());
+    }
+  }
+
+  private static Class<?> generate(final Class<?> type, final List<Method> methods) {
+    final ClassPool pool = new ClassPool(true);
+    pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+    try {
+      final CtClass superclass = pool.get(type.getName());
+      final CtClass subclass = pool.makeClass(type.getName() + "$$Intercepted" + GENERATED_COUNT.incrementAndGet(), superclass);
+      subclass.addInterface(pool.get(Intercepted.class.getName()));
+      subclass.addField(CtField.make("private java.lang.Object proboscisChains;", subclass));
+      subclass.addMethod(CtNewMethod.make("public void attachInterceptors(java.lang.Object chains) { this.proboscisChains = chains; }", subclass));
+      for (final CtConstructor constructor : superclass.getDeclaredConstructors()) {
+        if (Modifier.isPrivate(constructor.getModifiers())) continue;
+        subclass.addConstructor(CtNewConstructor.make(constructor.getParameterTypes(), constructor.getExceptionTypes(), subclass));
+      }
+      final StringBuilder proceed = new StringBuilder("{ switch ($1) {");
+      for (int index = 0; index < methods.size(); index++) {
+        final Method method = methods.get(index);
+        final Class<?> returnType = method.getReturnType();
+        final String run = "org.rickosborne.proboscis.Invocation.run(this.proboscisChains, " + index + ", this, $args)";
+        final String body;
+        if (returnType == void.class) body = "{ if (this.proboscisChains == null) { super." + method.getName() + "($$); return; } " + run + "; }";
+        else body = "{ if (this.proboscisChains == null) return super." + method.getName() + "($$); return " + unbox(returnType, run) + "; }";
+        subclass.addMethod(CtNewMethod.make(Modifier.PUBLIC, ctClassOf(pool, returnType), method.getName(), ctClassesOf(pool, method.getParameterTypes()), ctClassesOf(pool, method.getExceptionTypes()), body, subclass));
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final StringBuilder call = new StringBuilder("super.").append(method.getName()).append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+          if (i > 0) call.append(", ");
+          call.append(unbox(parameterTypes[i], "$2[" + i + "]"));
+        }
+        call.append(')');
+        proceed.append(" case ").append(index).append(": ");
+        if (returnType == void.class) proceed.append(call).append("; return null;");
+        else proceed.append("return ").append(box(returnType, call.toString())).append(';');
+      }
+      proceed.append(" } throw new java.lang.IllegalArgumentException(\"No intercepted method \" + $1); }");
+      subclass.addMethod(CtNewMethod.make(Modifier.PUBLIC, pool.get("java.lang.Object"), "proceedIntercepted", new CtClass[]{CtClass.intType, pool.get("java.lang.Object[]")}, new CtClass[]{pool.get("java.lang.Throwable")}, proceed.toString(), subclass));
+      final Class<?> generated = define(subclass, type);
+      subclass.detach();
+      return generated;
+    } catch (final CannotCompileException | NotFoundException e) {
+      throw new IllegalArgumentException("Could not intercept " + type.getName(), e);
+    }
+  }
+
+  /**
+   * Unbind annotations and interceptors of types which pass the test, and forget every plan,
+   * as any of them could have had one of those interceptors in its chains.
+   * Beans already built keep the chains they have.
+   */
+  void forget(final Predicate<Class<?>> test) {
+    bindings.keySet().removeIf(test);
+    for (final List<Interceptor> bound : bindings.values()) bound.removeIf(interceptor -> test.test(interceptor.getClass()));
+    plans.clear();
+  }
+
+  private void interceptorsFor(final Annotation annotation, final List<Interceptor> chain) {
+    final List<Interceptor> bound = bindings.get(annotation.annotationType());
+    if (bound != null) for (final Interceptor interceptor : bound) if (!chain.contains(interceptor)) chain.add(interceptor);
+    final InterceptedBy interceptedBy = annotation instanceof InterceptedBy ? (InterceptedBy) annotation : annotation.annotationType().getAnnotation(InterceptedBy.class);
+    if (interceptedBy == null) return;
+    for (final Class<? extends Interceptor> interceptorType : interceptedBy.value()) {
+      final Interceptor interceptor = context.requireBean(interceptorType);
+      if (!chain.contains(interceptor)) chain.add(interceptor);
+    }
+  }
+
+  private static Method methodOrNull(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (final NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Build the bean with the constructor or, if it's intercepted, with the same constructor of its generated subclass.
+   */
+  Object newInstance(final Constructor<?> constructor, final Object[] args) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+    final Plan plan = planFor(constructor.getDeclaringClass());
+    if (plan == NONE) return constructor.newInstance(args);
+    final Object bean = plan.constructorFor(constructor).newInstance(args);
+    ((Intercepted) bean).attachInterceptors(plan.chains);
+    return bean;
+  }
+
+  private Plan plan(final Class<?> type) {
+    if (type.isInterface() || Intercepted.class.isAssignableFrom(type)) return NONE;
+    final List<Method> methods = new ArrayList<>();
+    final List<Interceptor[]> chains = new ArrayList<>();
+    final Set<String> seen = new HashSet<>();
+    for (Class<?> level = type; level != null && level != Object.class; level = level.getSuperclass()) {
+      for (final Method method : level.getDeclaredMethods()) {
+        final int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || method.isSynthetic() || method.isBridge()) continue;
+        // overridden further down, so already seen
+        if (!seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) continue;
+        // package-private methods of a superclass in another package can't be overridden from here
+        if (Modifier.isPackage(modifiers) && !Objects.equals(level.getPackage(), type.getPackage())) continue;
+        final List<Interceptor> chain = chainFor(type, method);
+        if (chain.isEmpty()) continue;
+        if (Modifier.isFinal(modifiers) || Modifier.isFinal(type.getModifiers())) {
+          throw new IllegalArgumentException("Can't intercept final " + type.getSimpleName() + "." + method.getName());
+        }
+        methods.add(method);
+        chains.add(chain.toArray(new Interceptor[0]));
+      }
+    }
+    if (methods.isEmpty()) return NONE;
+    final Class<?> subclass = SUBCLASSES.get(type).computeIfAbsent(Collections.unmodifiableList(methods), m -> generate(type, m));
+    return new Plan(subclass, new Chains(methods.toArray(new Method[0]), chains.toArray(new Interceptor[0][])));
+  }
+
+  private Plan planFor(final Class<?> type) {
+    final Plan existing = plans.get(type);
+    if (existing != null) return existing;
+    // not computeIfAbsent: the interceptors are beans, and building them may well need plans of their own
+    final Plan plan = plan(type);
+    final Plan raced = plans.putIfAbsent(type, plan);
+    return raced == null ? plan : raced;
+  }
+
+  /**
+   * Java source for the class name, as the bytecode compiler wants it.
+   */
+  private static String sourceName(final Class<?> type) {
+    return type.isArray() ? sourceName(type.getComponentType()) + "[]" : type.getName();
+  }
+
+  private static String unbox(final Class<?> type, final String expression) {
+    if (!type.isPrimitive()) return "((" + sourceName(type) + ") " + expression + ")";
+    return "((" + wrapperOf(type).getName() + ") " + expression + ")." + type.getName() + "Value()";
+  }
+
+  /**
+   * The bean's own class, rather than the subclass generated to intercept it.
+   */
+  static Class<?> userClassOf(final Class<?> type) {
+    return Intercepted.class.isAssignableFrom(type) ? type.getSuperclass() : type;
+  }
+
+  private static Class<?> wrapperOf(final Class<?> primitive) {
+    return MethodType.methodType(primitive).wrap().returnType();
+  }
+
+  /**
+   * What the generated subclass needs at each call, by method index.
+   */
+  @Getter
+  @RequiredArgsConstructor
+  static class Chains {
+    private final Method[] methods;
+    private final Interceptor[][] interceptors;
+  }
+
+  @RequiredArgsConstructor
+  private static class Plan {
+    private final Map<Constructor<?>, Constructor<?>> constructors = new ConcurrentHashMap<>();
+    private final Class<?> subclass;
+    private final Chains chains;
+
+    private Constructor<?> constructorFor(final Constructor<?> original) {
+      return constructors.computeIfAbsent(original, c -> {
+        try {
+          return subclass.getConstructor(c.getParameterTypes());
+        } catch (final NoSuchMethodException e) {
+          throw new IllegalStateException("Generated " + subclass.getName() + " is missing a constructor: " + c, e);
+        }
+      });
+    }
+  }
+}
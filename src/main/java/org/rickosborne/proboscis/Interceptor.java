@@ -0,0 +1,32 @@
+package org.rickosborne.proboscis;
+
+/**
+ * Wraps calls to the methods of a bean, for timing, caching, retries, and the like.
+ * Bind one to an annotation with {@link InterceptedBy}, or with
+ * {@link DependencyInjectionContext#withInterceptor(Class, Interceptor)}, and every bean with that annotation,
+ * on the class or on individual methods, has its calls go through it.
+ * <pre>
+ *   public class CachingInterceptor implements Interceptor {
+ *     private final Map&lt;List&lt;Object&gt;, Object&gt; cache = new ConcurrentHashMap&lt;&gt;();
+ *
+ *     \@Override
+ *     public Object intercept(final Invocation invocation) throws Throwable {
+ *       final List&lt;Object&gt; key = Arrays.asList(invocation.getArguments());
+ *       final Object cached = cache.get(key);
+ *       if (cached != null) return cached;
+ *       final Object result = invocation.proceed();
+ *       cache.put(key, result);
+ *       return result;
+ *     }
+ *   }
+ * </pre>
+ * @see TimingInterceptor
+ */
+@FunctionalInterface
+public interface Interceptor {
+  /**
+   * Do whatever it is, calling {@link Invocation#proceed()} to carry on to the next interceptor, and then the method.
+   * @return What the method should return, boxed if it's a primitive, or NULL for a void method
+   */
+  Object intercept(Invocation invocation) throws Throwable;
+}
@@ -0,0 +1,65 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+
+/**
+ * One call to an intercepted method, as seen by each {@link Interceptor} in its chain.
+ * The chain was worked out when the bean was built, so a call only walks it,
+ * with the one invocation handed down the chain and a cursor for how far along it is.
+ * Arguments may be replaced before proceeding, and an interceptor may proceed more than once, or not at all,
+ * but only while it's being called: an invocation belongs to its call, and isn't to be kept for later.
+ */
+public final class Invocation {
+  /**
+   * The arguments the method will get, boxed.
+   */
+  @Getter
+  private final Object[] arguments;
+  private final Intercepted bean;
+  private final Interceptor[] chain;
+  private final int index;
+  @Getter
+  private final Method method;
+  /**
+   * The next interceptor to call.
+   */
+  private int position;
+
+  private Invocation(final Intercepted bean, final int index, final Method method, final Interceptor[] chain, final Object[] arguments) {
+    this.arguments = arguments;
+    this.bean = bean;
+    this.chain = chain;
+    this.index = index;
+    this.method = method;
+  }
+
+  /**
+   * Called by the generated subclasses.
+   */
+  public static Object run(final Object chains, final int index, final Object bean, final Object[] arguments) throws Throwable {
+    final Interception.Chains typed = (Interception.Chains) chains;
+    return new Invocation((Intercepted) bean, index, typed.getMethods()[index], typed.getInterceptors()[index], arguments).proceed();
+  }
+
+  public Object getBean() {
+    return bean;
+  }
+
+  /**
+   * Carry on to the next interceptor or, after the last, the method itself.
+   * @return What it returned, boxed if it's a primitive, or NULL for a void method
+   */
+  public Object proceed() throws Throwable {
+    final int at = position;
+    if (at == chain.length) return bean.proceedIntercepted(index, arguments);
+    position = at + 1;
+    try {
+      return chain[at].intercept(this);
+    } finally {
+      // so whoever called us sees the same next step if they proceed again
+      position = at;
+    }
+  }
+}
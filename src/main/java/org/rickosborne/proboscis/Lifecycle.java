@@ -0,0 +1,337 @@
+package org.rickosborne.proboscis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * JSR-250 lifecycle hooks for the beans a {@link DependencyInjectionContext} builds.
+ * {@code @PostConstruct} methods run once the bean is fully built and injected, superclass methods first.
+ * Beans with {@code @PreDestroy} methods, or which are {@link AutoCloseable}, are remembered along with whichever
+ * of their dependencies, constructor arguments and injected fields alike, were also remembered,
+ * so that shutdown can run in reverse dependency order.
+ * A bean with no hooks of its own only stands in for the hooked beans below it, so its dependents still wait for them.
+ * Only beans the context holds on to are handed over: the ones it doesn't keep are left to the GC, hooks and all.
+ * <p>
+ * Shutdown destroys a bean only once everything that depends on it has been destroyed,
+ * so independent branches tear down in parallel, and each bean's hooks get their own timeout.
+ * Beans which were registered rather than built belong to whoever registered them, and are left alone.
+ * </p>
+ * <p>
+ * {@link Reset} hooks are here too, for {@link BeanPool pooled} beans, as are early destroys for those a pool lets go.
+ * </p>
+ * <p>
+ * The annotations are matched by name, from either {@code javax.annotation} or {@code jakarta.annotation},
+ * as neither is part of the JDK after Java 8.
+ * </p>
+ */
+@Log
+class Lifecycle {
+  private static final ClassValue<Hooks> HOOKS = new ClassValue<Hooks>() {
+    @Override
+    protected Hooks computeValue(final Class<?> type) {
+      return Hooks.of(type);
+    }
+  };
+  private static final Set<String> POST_CONSTRUCT = new HashSet<>(Arrays.asList("javax.annotation.PostConstruct", "jakarta.annotation.PostConstruct"));
+  private static final Set<String> PRE_DESTROY = new HashSet<>(Arrays.asList("javax.annotation.PreDestroy", "jakarta.annotation.PreDestroy"));
+  private final Map<Object, Managed> byBean = new IdentityHashMap<>();
+  private final List<Managed> managed = new ArrayList<>();
+  /**
+   * For beans with no hooks of their own, the nearest remembered beans they depend on, if they have any.
+   */
+  private final Map<Object, List<Managed>> passThrough = new IdentityHashMap<>();
+
+  /**
+   * The remembered beans among the dependencies, or those they stand in for, which aren't already in the list.
+   */
+  private void addManaged(final List<Managed> managedDependencies, final Object[] dependencies) {
+    for (final Object dependency : dependencies) {
+      if (dependency == null) continue;
+      final Managed known = byBean.get(dependency);
+      final List<Managed> below = known == null ? passThrough.getOrDefault(dependency, Collections.emptyList()) : Collections.singletonList(known);
+      for (final Managed entry : below) if (!managedDependencies.contains(entry)) managedDependencies.add(entry);
+    }
+  }
+
+  /**
+   * Remember the bean for shutdown, if it has anything to do then,
+   * or else which of its dependencies do, so that its own dependents can wait for them.
+   */
+  void constructed(final Object bean, final Object[] dependencies) {
+    final Hooks hooks = HOOKS.get(bean.getClass());
+    synchronized (this) {
+      if (byBean.containsKey(bean) || passThrough.containsKey(bean)) return;
+      final List<Managed> managedDependencies = new ArrayList<>();
+      addManaged(managedDependencies, dependencies);
+      if (hooks.isDestroyable()) {
+        final Managed entry = new Managed(bean, managedDependencies, hooks);
+        managed.add(entry);
+        byBean.put(bean, entry);
+      } else if (!managedDependencies.isEmpty()) passThrough.put(bean, managedDependencies);
+    }
+  }
+
+  synchronized int countManaged() {
+    return managed.size();
+  }
+
+  /**
+   * Dependencies before their dependents.
+   * Mostly that's the order they were constructed in, but a field is injected with beans built after its owner.
+   */
+  private static List<Managed> dependencyOrder(final List<Managed> entries) {
+    final Set<Managed> remaining = new HashSet<>(entries);
+    final List<Managed> ordered = new ArrayList<>(entries.size());
+    for (final Managed entry : entries) visit(entry, remaining, ordered);
+    return ordered;
+  }
+
+  /**
+   * Add more dependencies for a bean already {@link #constructed(Object, Object[]) constructed}, such as its injected fields.
+   */
+  synchronized void dependsOn(final Object bean, final Object[] dependencies) {
+    final Managed entry = byBean.get(bean);
+    if (entry != null) {
+      addManaged(entry.dependencies, dependencies);
+      return;
+    }
+    final List<Managed> managedDependencies = passThrough.getOrDefault(bean, new ArrayList<>());
+    addManaged(managedDependencies, dependencies);
+    if (!managedDependencies.isEmpty()) passThrough.put(bean, managedDependencies);
+  }
+
+  private static void destroy(final Managed entry, final Duration timeout, final ExecutorService pool, final List<Class<?>> failed, final List<Class<?>> timedOut) {
+    final Class<?> type = entry.bean.getClass();
+    final Future<?> running = pool.submit(() -> {
+      entry.hooks.preDestroy(entry.bean);
+      return null;
+    });
+    try {
+      running.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (final TimeoutException e) {
+      running.cancel(true);
+      timedOut.add(type);
+      log.warning("Gave up destroying " + type.getSimpleName() + " after " + timeout);
+    } catch (final ExecutionException e) {
+      failed.add(type);
+      log.warning("Could not destroy " + type.getSimpleName() + ": " + e.getCause());
+    } catch (final InterruptedException e) {
+      running.cancel(true);
+      timedOut.add(type);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Destroy the bean right away and forget it, rather than waiting for shutdown.
+   * Failures are logged, not thrown, as whoever is letting the bean go has no use for it either way.
+   */
+  void discard(final Object bean) {
+    final Hooks hooks = HOOKS.get(bean.getClass());
+    synchronized (this) {
+      passThrough.remove(bean);
+      if (!hooks.isDestroyable()) return;
+      final Managed entry = byBean.remove(bean);
+      // already shut down, or never ours
+      if (entry == null) return;
+      managed.remove(entry);
+    }
+    try {
+      hooks.preDestroy(bean);
+    } catch (final Exception e) {
+      log.warning("Could not destroy " + bean.getClass().getSimpleName() + ": " + e);
+    }
+  }
+
+  /**
+   * Every bean remembered for shutdown whose class passes the test.
+   */
+  synchronized List<Object> find(final Predicate<Class<?>> test) {
+    final List<Object> found = new ArrayList<>();
+    for (final Managed entry : managed) if (test.test(entry.bean.getClass())) found.add(entry.bean);
+    return found;
+  }
+
+  private static boolean hasAnnotation(final Method method, final Set<String> names) {
+    for (final Annotation annotation : method.getDeclaredAnnotations()) {
+      if (names.contains(annotation.annotationType().getName())) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Run the bean's {@code @PostConstruct} methods.
+   * @throws IllegalStateException if any of them throws
+   */
+  void initialize(final Object bean) {
+    HOOKS.get(bean.getClass()).postConstruct(bean);
+  }
+
+  /**
+   * Run the bean's {@link Reset} methods.
+   * @throws IllegalStateException if any of them throws
+   */
+  void reset(final Object bean) {
+    HOOKS.get(bean.getClass()).reset(bean);
+  }
+
+  /**
+   * Destroy everything remembered so far, dependents before their dependencies, and forget it all.
+   */
+  ShutdownReport shutdown(final Duration timeout) {
+    final List<Managed> order;
+    synchronized (this) {
+      order = dependencyOrder(managed);
+      managed.clear();
+      byBean.clear();
+      passThrough.clear();
+    }
+    final long start = System.nanoTime();
+    final List<Class<?>> failed = Collections.synchronizedList(new ArrayList<>());
+    final List<Class<?>> timedOut = Collections.synchronizedList(new ArrayList<>());
+    final Map<Managed, List<Managed>> dependents = new IdentityHashMap<>();
+    for (final Managed entry : order) {
+      for (final Managed dependency : entry.dependencies) dependents.computeIfAbsent(dependency, d -> new ArrayList<>()).add(entry);
+    }
+    final ExecutorService pool = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "proboscis-shutdown");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      final Map<Managed, CompletableFuture<Void>> done = new IdentityHashMap<>();
+      // dependents come after their dependencies, so walking backward sees them first
+      for (int i = order.size() - 1; i >= 0; i--) {
+        final Managed entry = order.get(i);
+        final List<Managed> waitFor = dependents.getOrDefault(entry, Collections.emptyList());
+        final CompletableFuture<?>[] waits = new CompletableFuture<?>[waitFor.size()];
+        for (int w = 0; w < waits.length; w++) {
+          // only missing when they depend on each other, in which case neither can wait for the other
+          final CompletableFuture<Void> dependent = done.get(waitFor.get(w));
+          waits[w] = dependent == null ? CompletableFuture.completedFuture(null) : dependent;
+        }
+        done.put(entry, CompletableFuture.allOf(waits).thenRunAsync(() -> destroy(entry, timeout, pool, failed, timedOut), pool));
+      }
+      CompletableFuture.allOf(done.values().toArray(new CompletableFuture<?>[0])).join();
+    } finally {
+      pool.shutdownNow();
+    }
+    return new ShutdownReport(order.size(), new ArrayList<>(failed), new ArrayList<>(timedOut), System.nanoTime() - start);
+  }
+
+  private static void visit(final Managed entry, final Set<Managed> remaining, final List<Managed> ordered) {
+    // already placed, or discarded since
+    if (!remaining.remove(entry)) return;
+    for (final Managed dependency : entry.dependencies) visit(dependency, remaining, ordered);
+    ordered.add(entry);
+  }
+
+  @RequiredArgsConstructor
+  private static class Hooks {
+    private final boolean closeable;
+    private final List<Method> postConstruct;
+    private final List<Method> preDestroy;
+    private final List<Method> reset;
+    private final Class<?> type;
+
+    static Hooks of(final Class<?> type) {
+      final List<Method> postConstruct = new ArrayList<>();
+      final List<Method> preDestroy = new ArrayList<>();
+      final List<Method> reset = new ArrayList<>();
+      // walking up from the subclass, so an overridden hook is only called once, as the override
+      final Set<String> overridden = new HashSet<>();
+      boolean closeAnnotated = false;
+      for (Class<?> level = type; level != null && level != Object.class; level = level.getSuperclass()) {
+        final List<Method> levelPost = new ArrayList<>();
+        final List<Method> levelReset = new ArrayList<>();
+        for (final Method method : level.getDeclaredMethods()) {
+          if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers()) || method.isSynthetic()) continue;
+          final boolean isPrivate = Modifier.isPrivate(method.getModifiers());
+          if (!isPrivate && !overridden.add(method.getName())) continue;
+          if (hasAnnotation(method, POST_CONSTRUCT)) {
+            method.setAccessible(true);
+            levelPost.add(method);
+          }
+          if (hasAnnotation(method, PRE_DESTROY)) {
+            method.setAccessible(true);
+            preDestroy.add(method);
+            if ("close".equals(method.getName())) closeAnnotated = true;
+          }
+          if (method.isAnnotationPresent(Reset.class)) {
+            method.setAccessible(true);
+            levelReset.add(method);
+          }
+        }
+        // superclass hooks initialize, and reset, first
+        postConstruct.addAll(0, levelPost);
+        reset.addAll(0, levelReset);
+      }
+      final boolean closeable = !closeAnnotated && AutoCloseable.class.isAssignableFrom(type);
+      return new Hooks(closeable, postConstruct, preDestroy, reset, type);
+    }
+
+    boolean isDestroyable() {
+      return closeable || !preDestroy.isEmpty();
+    }
+
+    private void invokeAll(final List<Method> methods, final Object bean, final String action) {
+      for (final Method method : methods) {
+        try {
+          method.invoke(bean);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+          final Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+          throw new IllegalStateException("Could not " + action + ": " + type.getSimpleName() + "." + method.getName(), cause);
+        }
+      }
+    }
+
+    void postConstruct(final Object bean) {
+      invokeAll(postConstruct, bean, "initialize");
+    }
+
+    void preDestroy(final Object bean) throws Exception {
+      for (final Method method : preDestroy) {
+        try {
+          method.invoke(bean);
+        } catch (final InvocationTargetException e) {
+          if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+          throw e;
+        }
+      }
+      if (closeable) ((AutoCloseable) bean).close();
+    }
+
+    void reset(final Object bean) {
+      invokeAll(reset, bean, "reset");
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Managed {
+    private final Object bean;
+    private final List<Managed> dependencies;
+    private final Hooks hooks;
+  }
+}
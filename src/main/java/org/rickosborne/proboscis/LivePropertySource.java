@@ -0,0 +1,173 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A {@link PropertySource} which can be swapped out while the context is running.
+ * Every swap bumps the version and pushes new values into every live {@link Property} bound to it.
+ * Readers never lock: the current snapshot is a single volatile field.
+ * <p>
+ * Use {@link #watching(Path)} to reload from a local properties file whenever it changes on disk.
+ * Bound properties are held weakly, so beans which go away don't keep getting updates.
+ * </p>
+ */
+@Log
+public class LivePropertySource implements AutoCloseable {
+  private final List<WeakReference<Property<?>>> bound = new CopyOnWriteArrayList<>();
+  private volatile Versioned current;
+  private final Path file;
+  private final List<Consumer<? super PropertySource>> listeners = new CopyOnWriteArrayList<>();
+  private volatile WatchService watchService;
+
+  private LivePropertySource(final PropertySource initial, final Path file) {
+    this.current = new Versioned(initial, 1L);
+    this.file = file;
+  }
+
+  public static LivePropertySource of(@NonNull final PropertySource initial) {
+    return new LivePropertySource(initial, null);
+  }
+
+  /**
+   * Load the given properties file now, and again whenever it changes.
+   * Watching happens on a daemon thread, until {@link #close()}.
+   * @throws UncheckedIOException if the file can't be read or watched
+   */
+  public static LivePropertySource watching(@NonNull final Path file) {
+    final Path absolute = file.toAbsolutePath();
+    final LivePropertySource source = new LivePropertySource(PropertySource.fromFile(absolute), absolute);
+    source.startWatching();
+    return source;
+  }
+
+  /**
+   * Make a live property for the given name, and keep it updated until it is garbage.
+   */
+  public <T> Property<T> bind(@NonNull final String name, final String defaultValue, @NonNull final Function<String, Object> converter) {
+    final Property<T> property = new Property<>(name, defaultValue, converter);
+    final Versioned snapshot = current;
+    property.refresh(snapshot.getSource(), snapshot.getVersion());
+    bound.add(new WeakReference<>(property));
+    // a swap could have slipped in between the read and the add
+    final Versioned latest = current;
+    if (latest != snapshot) property.refresh(latest.getSource(), latest.getVersion());
+    return property;
+  }
+
+  /**
+   * Stop watching the file, if there was one.  Bound properties keep their last values.
+   */
+  @Override
+  public void close() {
+    final WatchService service = watchService;
+    watchService = null;
+    if (service == null) return;
+    try {
+      service.close();
+    } catch (final IOException e) {
+      log.warning("Could not close watcher for " + file + ": " + e.getMessage());
+    }
+  }
+
+  public PropertySource getCurrent() {
+    return current.getSource();
+  }
+
+  public long getVersion() {
+    return current.getVersion();
+  }
+
+  /**
+   * Hear about every swap, after bound properties have been updated.
+   */
+  public LivePropertySource onChange(@NonNull final Consumer<? super PropertySource> listener) {
+    listeners.add(listener);
+    return this;
+  }
+
+  /**
+   * Re-read the watched file, if there is one.
+   * A file which can't be read (say, because it's halfway through being written) is logged and skipped.
+   * @return true if the file was re-read
+   */
+  public boolean reload() {
+    if (file == null) return false;
+    try {
+      update(PropertySource.fromFile(file));
+      return true;
+    } catch (final UncheckedIOException e) {
+      log.warning("Could not reload " + file + ": " + e.getMessage());
+      return false;
+    }
+  }
+
+  private void startWatching() {
+    try {
+      final WatchService service = FileSystems.getDefault().newWatchService();
+      file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+      watchService = service;
+      final Thread watcher = new Thread(() -> watch(service), "proboscis-properties-" + file.getFileName());
+      watcher.setDaemon(true);
+      watcher.start();
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not watch " + file, e);
+    }
+  }
+
+  /**
+   * Swap in a new snapshot and push it out to every bound property.
+   */
+  public synchronized void update(@NonNull final PropertySource next) {
+    final Versioned versioned = new Versioned(next, current.getVersion() + 1);
+    current = versioned;
+    final Iterator<WeakReference<Property<?>>> it = bound.iterator();
+    while (it.hasNext()) {
+      final WeakReference<Property<?>> ref = it.next();
+      final Property<?> property = ref.get();
+      if (property == null) bound.remove(ref);
+      else property.refresh(next, versioned.getVersion());
+    }
+    for (final Consumer<? super PropertySource> listener : listeners) listener.accept(next);
+  }
+
+  private void watch(final WatchService service) {
+    final Path fileName = file.getFileName();
+    try {
+      while (watchService == service) {
+        final WatchKey key = service.take();
+        boolean ours = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+          if (fileName.equals(event.context())) ours = true;
+        }
+        key.reset();
+        if (ours) reload();
+      }
+    } catch (final InterruptedException | ClosedWatchServiceException ignored) {
+      // closed, so we're done
+    }
+  }
+
+  @Value
+  private static class Versioned {
+    private final PropertySource source;
+    private final long version;
+  }
+}
@@ -1,11 +1,22 @@
 package org.rickosborne.proboscis;
 
-import lombok.Getter;
 import lombok.NonNull;
 import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
 import org.rickosborne.proboscis.ex.NoSuchBeanException;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * I figure out how to build things.
@@ -13,8 +24,17 @@ import java.lang.reflect.ParameterizedType;
  * However, methods like {@link #build(Class)} also come in handy even without a DI context.
  */
 public class Loader {
-  @Getter(lazy = true)
-  private static final Reflections reflections = new Reflections(Loader.class.getPackage().getName());
+  /**
+   * Kept alongside each type, by stop words, so a plugin's types take their indexes with them when unloaded.
+   */
+  private static final ClassValue<Map<List<String>, NameIndex<?>>> NAME_INDEXES = new ClassValue<Map<List<String>, NameIndex<?>>>() {
+    @Override
+    protected Map<List<String>, NameIndex<?>> computeValue(final Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+  private static volatile Reflections reflections;
+  private static volatile ScanIndex scanIndex;
 
   /**
    * Try to build an object of the given class.
@@ -59,6 +79,7 @@ public class Loader {
    *   final IFruit fruit = Loader.buildByName(IFruit.class, fruitName, "model");
    * </code>
    * Like {@link #build(Class)} this method <strong>does not</strong> support parameter injection!
+   * The subtypes are scanned and indexed by name once per type and set of stop words, so repeated calls are cheap.
    * @param type      Expected type
    * @param name      Name of concrete type
    * @param stopWords Words which can be eliminated from the concrete class name to help it match the given name
@@ -68,13 +89,23 @@ public class Loader {
    * @throws UnsupportedOperationException if the bean is found but cannot be instantiated
    */
   public static <T> T buildByName(@NonNull final Class<T> type, @NonNull final String name, final String... stopWords) {
-    final String identifier = name.replace(" ", "");
-    for (final Class<? extends T> implClass : getReflections().getSubTypesOf(type)) {
-      if (Util.matches(identifier, implClass.getSimpleName(), stopWords)) {
-        return build(implClass);
-      }
+    // our own copy, as the key has to outlive the caller's array, which they're free to change
+    final String[] words = stopWords == null ? new String[0] : stopWords.clone();
+    @SuppressWarnings("unchecked") final NameIndex<T> index = (NameIndex<T>) NAME_INDEXES.get(type).computeIfAbsent(Collections.unmodifiableList(Arrays.asList(words)), key -> new NameIndex<>(type, words));
+    final TypedFactory<? extends T> factory = index.factoryFor(name);
+    if (factory == null) throw new NoSuchBeanException(name, type);
+    return factory.get();
+  }
+
+  /**
+   * @return How many type names are in the index
+   */
+  private static synchronized int compact() {
+    if (scanIndex == null) {
+      scanIndex = ScanIndex.of(getReflections());
+      reflections = null;
     }
-    throw new NoSuchBeanException(name, type);
+    return scanIndex.size();
   }
 
   /**
@@ -89,4 +120,109 @@ public class Loader {
     return new TypedFactory<>(parameterizedType, type);
   }
 
+  /**
+   * Load the named class without initializing it.
+   * @return NULL if it can't be loaded
+   */
+  static Class<?> forName(final String name) {
+    try {
+      return Class.forName(name, false, Loader.class.getClassLoader());
+    } catch (final ClassNotFoundException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * The full classpath scan, done on first use.
+   * Once the loader has been {@link #seal() sealed} the scan is gone, so prefer {@link #getSubTypesOf(Class)} and {@link #getTypesAnnotatedWith(Class)} which work either way.
+   * @throws IllegalStateException if the loader has been sealed
+   */
+  public static Reflections getReflections() {
+    final Reflections scanned = unsealed();
+    if (scanned == null) throw new IllegalStateException("Loader has been sealed, use getSubTypesOf or getTypesAnnotatedWith instead");
+    return scanned;
+  }
+
+  /**
+   * Find every scanned subtype of the given type, from the sealed index if there is one.
+   */
+  public static <T> Set<Class<? extends T>> getSubTypesOf(@NonNull final Class<T> type) {
+    final Reflections scanned = unsealed();
+    return scanned == null ? scanIndex.getSubTypesOf(type) : scanned.getSubTypesOf(type);
+  }
+
+  /**
+   * Like {@link #getSubTypesOf(Class)}, but only the names, so nothing is loaded.
+   */
+  static Set<String> getSubTypeNamesOf(@NonNull final String typeName) {
+    final Reflections scanned = unsealed();
+    if (scanned == null) return scanIndex.getSubTypeNamesOf(typeName);
+    final Store store = scanned.getStore();
+    final Set<String> names = new LinkedHashSet<>();
+    final String subTypes = SubTypesScanner.class.getSimpleName();
+    if (store.keySet().contains(subTypes)) for (final String name : store.getAll(subTypes, typeName)) names.add(name);
+    return names;
+  }
+
+  /**
+   * Like {@link #getTypesAnnotatedWith(Class)}, but only the names, so nothing is loaded.
+   * @param withSubTypes Whether to include the subtypes of annotated types, as {@link #getTypesAnnotatedWith(Class)} does
+   */
+  static Set<String> getTypeNamesAnnotatedWith(@NonNull final Class<? extends Annotation> annotation, final boolean withSubTypes) {
+    final Reflections scanned = unsealed();
+    if (scanned == null) return scanIndex.getTypeNamesAnnotatedWith(annotation.getName(), withSubTypes);
+    final Store store = scanned.getStore();
+    final Set<String> names = new LinkedHashSet<>();
+    final String annotations = TypeAnnotationsScanner.class.getSimpleName();
+    if (!store.keySet().contains(annotations)) return names;
+    for (final String name : store.get(annotations, annotation.getName())) names.add(name);
+    final String subTypes = SubTypesScanner.class.getSimpleName();
+    if (withSubTypes && store.keySet().contains(subTypes)) for (final String name : store.getAll(subTypes, new ArrayList<>(names))) names.add(name);
+    return names;
+  }
+
+  /**
+   * Find every scanned type with the given annotation, from the sealed index if there is one.
+   */
+  public static Set<Class<?>> getTypesAnnotatedWith(@NonNull final Class<? extends Annotation> annotation) {
+    final Reflections scanned = unsealed();
+    return scanned == null ? scanIndex.getTypesAnnotatedWith(annotation) : scanned.getTypesAnnotatedWith(annotation);
+  }
+
+  public static boolean isSealed() {
+    return scanIndex != null;
+  }
+
+  /**
+   * Forget the scan and the seal, so the next lookup scans all over again.
+   * Only for tests, which shouldn't leave the loader sealed for each other.
+   */
+  static synchronized void reset() {
+    reflections = null;
+    scanIndex = null;
+  }
+
+  /**
+   * Once startup is done, pack the scan results down to the compact {@link ScanIndex} and let the full {@link Reflections} store go.
+   * Scans first if that hasn't happened yet.  Sealing again does nothing more.
+   * @return What was kept
+   */
+  public static SealReport seal() {
+    return new SealReport(compact(), 0);
+  }
+
+  /**
+   * The full scan, doing it now if nothing has yet.
+   * A sealed loader stays sealed: this never scans again once the {@link ScanIndex} is there.
+   * @return NULL once sealed, in which case {@link #scanIndex} is set for good
+   */
+  private static Reflections unsealed() {
+    final Reflections scanned = reflections;
+    if (scanned != null || scanIndex != null) return scanned;
+    synchronized (Loader.class) {
+      if (reflections == null && scanIndex == null) reflections = new Reflections(Loader.class.getPackage().getName());
+      return reflections;
+    }
+  }
+
 }
@@ -0,0 +1,53 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Everything {@link Loader#buildByName(Class, String, String...)} needs for one type and set of stop words, worked out once.
+ * Every subtype is indexed under its lower-cased simple name and again with the stop words removed,
+ * so a lookup is a single map read followed by a call to an already-planned factory, with no regex work.
+ * When two subtypes would answer to the same name, an exact simple-name match wins over a stop-word match.
+ * @param <T> Expected type
+ */
+class NameIndex<T> {
+  private final Map<String, TypedFactory<? extends T>> factories;
+
+  NameIndex(@NonNull final Class<T> type, final String... stopWords) {
+    final Pattern[] patterns = new Pattern[stopWords == null ? 0 : stopWords.length];
+    for (int i = 0; i < patterns.length; i++) patterns[i] = Pattern.compile(stopWords[i]);
+    final Set<Class<? extends T>> subTypes = Loader.getSubTypesOf(type);
+    final Map<String, TypedFactory<? extends T>> byName = new HashMap<>(subTypes.size() * 4);
+    final Map<Class<? extends T>, TypedFactory<? extends T>> byType = new HashMap<>(subTypes.size() * 2);
+    for (final Class<? extends T> implClass : subTypes) {
+      final TypedFactory<? extends T> factory = Loader.factoryFor(implClass, null);
+      byType.put(implClass, factory);
+      byName.putIfAbsent(normalize(implClass.getSimpleName()), factory);
+    }
+    if (patterns.length > 0) {
+      for (final Map.Entry<Class<? extends T>, TypedFactory<? extends T>> entry : byType.entrySet()) {
+        String smaller = entry.getKey().getSimpleName();
+        for (final Pattern pattern : patterns) smaller = pattern.matcher(smaller).replaceAll("");
+        byName.putIfAbsent(normalize(smaller), entry.getValue());
+      }
+    }
+    factories = byName;
+  }
+
+  static String normalize(final String name) {
+    return name.replace(" ", "").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Find the factory for the implementation which goes by the given name.
+   * @return NULL if none does
+   */
+  public TypedFactory<? extends T> factoryFor(@NonNull final String name) {
+    return factories.get(normalize(name));
+  }
+}
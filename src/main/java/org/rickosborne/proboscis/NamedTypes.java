@@ -0,0 +1,185 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The types a {@link DependencyInjectionContext} knows how to build, and the names they go by.
+ * Kept as a pair of parallel arrays which are replaced wholesale on every change:
+ * registration is rare and reads are constant, so reads get a plain array walk and writes pay for the copy.
+ * <p>
+ * Alongside the arrays is a hierarchy index from every supertype and interface to the named types below it,
+ * so finding implementations is a map lookup instead of an {@link Class#isAssignableFrom(Class)} scan.
+ * Adding a type only touches the index entries for its own supertypes.
+ * </p>
+ */
+class NamedTypes {
+  private static final Set<Class<?>> NONE = Collections.emptySet();
+  private volatile Snapshot snapshot;
+
+  NamedTypes(@NonNull final Map<Class<?>, String> types) {
+    snapshot = new Snapshot(new Class<?>[0], new String[0], new HashMap<>()).with(types);
+  }
+
+  /**
+   * Pack the hierarchy index down to exactly what it holds, for when registration is over.
+   * Adding more types afterward still works, and just grows it again.
+   */
+  public synchronized void compact() {
+    snapshot = snapshot.compacted();
+  }
+
+  /**
+   * Add the type, or rename it if it's already here.
+   */
+  public void put(@NonNull final Class<?> type, final String name) {
+    putAll(Collections.singletonMap(type, name));
+  }
+
+  /**
+   * Add or rename all of the given types at once, rebuilding the arrays and index only once.
+   */
+  public synchronized void putAll(@NonNull final Map<Class<?>, String> types) {
+    if (types.isEmpty()) return;
+    snapshot = snapshot.with(types);
+  }
+
+  /**
+   * Drop every type which passes the test, and drop it from the implementations of everything else.
+   * Implementation sets which didn't include any of them are kept as they are.
+   * @return How many were dropped
+   */
+  public synchronized int removeIf(@NonNull final Predicate<Class<?>> test) {
+    final Snapshot next = snapshot.without(test);
+    final int removed = snapshot.size() - next.size();
+    snapshot = next;
+    return removed;
+  }
+
+  public int size() {
+    return snapshot.size();
+  }
+
+  /**
+   * A consistent view for iterating, which later changes won't disturb.
+   */
+  public Snapshot snapshot() {
+    return snapshot;
+  }
+
+  static class Snapshot {
+    private final Map<Class<?>, Set<Class<?>>> implementations;
+    private final ArrayTable<Class<?>, Integer> indexes;
+    private final String[] names;
+    private final Class<?>[] types;
+
+    private Snapshot(final Class<?>[] types, final String[] names, final Map<Class<?>, Set<Class<?>>> implementations) {
+      this.implementations = implementations;
+      this.names = names;
+      this.types = types;
+      indexes = new ArrayTable<>(types.length);
+      for (int i = 0; i < types.length; i++) indexes.putIfAbsent(types[i], i);
+    }
+
+    /**
+     * Most supertypes have only the one named type below them, which doesn't need a whole hash set.
+     */
+    private Snapshot compacted() {
+      final Map<Class<?>, Set<Class<?>>> packed = new HashMap<>((int) (implementations.size() / 0.75f) + 1);
+      for (final Map.Entry<Class<?>, Set<Class<?>>> entry : implementations.entrySet()) {
+        final Set<Class<?>> impls = entry.getValue();
+        packed.put(entry.getKey(), impls.size() == 1 ? Collections.singleton(impls.iterator().next()) : Collections.unmodifiableSet(new LinkedHashSet<>(impls)));
+      }
+      return new Snapshot(types, names, packed);
+    }
+
+    /**
+     * Every named type which could be assigned to the given type, including itself.
+     * @return An immutable set, in registration order, shared between calls
+     */
+    Set<Class<?>> implementationsOf(final Class<?> type) {
+      final Set<Class<?>> impls = implementations.get(type);
+      return impls == null ? NONE : impls;
+    }
+
+    int indexOf(final Class<?> type) {
+      final Integer index = indexes.get(type);
+      return index == null ? -1 : index;
+    }
+
+    String nameAt(final int index) {
+      return names[index];
+    }
+
+    String nameOf(final Class<?> type) {
+      final Integer index = indexes.get(type);
+      return index == null ? null : names[index];
+    }
+
+    int size() {
+      return types.length;
+    }
+
+    Class<?> typeAt(final int index) {
+      return types[index];
+    }
+
+    private Snapshot without(final Predicate<Class<?>> test) {
+      final List<Class<?>> keptTypes = new ArrayList<>(types.length);
+      final List<String> keptNames = new ArrayList<>(types.length);
+      for (int i = 0; i < types.length; i++) {
+        if (test.test(types[i])) continue;
+        keptTypes.add(types[i]);
+        keptNames.add(names[i]);
+      }
+      final Map<Class<?>, Set<Class<?>>> keptImplementations = new HashMap<>();
+      for (final Map.Entry<Class<?>, Set<Class<?>>> entry : implementations.entrySet()) {
+        if (test.test(entry.getKey())) continue;
+        Set<Class<?>> impls = entry.getValue();
+        if (impls.stream().anyMatch(test)) {
+          final Set<Class<?>> filtered = new LinkedHashSet<>(impls);
+          filtered.removeIf(test);
+          impls = Collections.unmodifiableSet(filtered);
+        }
+        keptImplementations.put(entry.getKey(), impls);
+      }
+      return new Snapshot(keptTypes.toArray(new Class<?>[0]), keptNames.toArray(new String[0]), keptImplementations);
+    }
+
+    private Snapshot with(final Map<Class<?>, String> added) {
+      Class<?>[] nextTypes = types;
+      final String[] nextNames = Arrays.copyOf(names, names.length + added.size());
+      final Map<Class<?>, Set<Class<?>>> nextImplementations = new HashMap<>(implementations);
+      final Map<Class<?>, Set<Class<?>>> touched = new HashMap<>();
+      int size = types.length;
+      for (final Map.Entry<Class<?>, String> entry : added.entrySet()) {
+        final Class<?> type = entry.getKey();
+        final int existing = indexOf(type);
+        if (existing >= 0) {
+          nextNames[existing] = entry.getValue();
+          continue;
+        }
+        if (nextTypes == types) nextTypes = Arrays.copyOf(types, types.length + added.size());
+        nextTypes[size] = type;
+        nextNames[size] = entry.getValue();
+        size++;
+        for (final Class<?> supertype : Util.supertypesOf(type)) {
+          touched.computeIfAbsent(supertype, t -> new LinkedHashSet<>(implementationsOf(t))).add(type);
+        }
+      }
+      for (final Map.Entry<Class<?>, Set<Class<?>>> entry : touched.entrySet()) {
+        nextImplementations.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+      }
+      return new Snapshot(Arrays.copyOf(nextTypes, size), Arrays.copyOf(nextNames, size), nextImplementations);
+    }
+  }
+}
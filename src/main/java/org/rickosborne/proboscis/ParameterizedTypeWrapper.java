@@ -26,7 +26,8 @@ public class ParameterizedTypeWrapper<T> implements ParameterizedType {
 
   @Override
   public int hashCode() {
-    return Objects.hash(rawType, actualTypeArguments);
+    // same as the JDK's own implementation, minus the owner type, which equals() also ignores
+    return Objects.hashCode(rawType) ^ Arrays.hashCode(actualTypeArguments);
   }
 
   @Override
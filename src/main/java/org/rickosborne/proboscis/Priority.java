@@ -0,0 +1,23 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * When more than one implementation could satisfy the same dependency, lower values are tried first.
+ * Implementations without this annotation have {@link #DEFAULT}, and ties go to whichever was registered first.
+ * <pre>
+ *   \@Named
+ *   \@Priority(-10)
+ *   public class CachingRepository implements Repository { }
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Priority {
+  int DEFAULT = 0;
+
+  int value();
+}
@@ -0,0 +1,93 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A live view of one configuration value, which follows its {@link LivePropertySource} as it is reloaded.
+ * Inject one with {@link SystemProperty} on a {@code Property<T>} or {@code Supplier<T>} field or parameter:
+ * <pre>
+ *   public CachingService(\@SystemProperty(value = "com.example.cache.size", defaultValue = "100") final Property&lt;Integer&gt; cacheSize) {
+ *     cacheSize.onChange(this::resize);
+ *   }
+ * </pre>
+ * The value is converted once per reload, not once per read, so {@link #get()} is a single volatile read.
+ * @param <T> Value type
+ */
+@Log
+public class Property<T> implements Supplier<T> {
+  private final Function<String, Object> converter;
+  private final String defaultValue;
+  private final List<Consumer<? super T>> listeners = new CopyOnWriteArrayList<>();
+  @Getter
+  private final String name;
+  private volatile T value;
+  @Getter
+  private volatile long version;
+
+  Property(@NonNull final String name, final String defaultValue, @NonNull final Function<String, Object> converter) {
+    this.converter = converter;
+    this.defaultValue = defaultValue;
+    this.name = name;
+  }
+
+  @Override
+  public T get() {
+    return value;
+  }
+
+  /**
+   * Call the listener with the new value whenever a reload changes it.
+   * Listeners run on whichever thread did the reload.
+   */
+  public Property<T> onChange(@NonNull final Consumer<? super T> listener) {
+    listeners.add(listener);
+    return this;
+  }
+
+  /**
+   * Pick up the value from the given snapshot.  Bad values are logged and ignored, keeping the last good one.
+   * @return true if the value changed
+   */
+  @SuppressWarnings("unchecked")
+  boolean refresh(@NonNull final PropertySource source, final long sourceVersion) {
+    final String text = source.get(name, defaultValue);
+    T next;
+    try {
+      next = text == null ? null : (T) converter.apply(text);
+    } catch (final RuntimeException e) {
+      if (!text.isEmpty()) {
+        log.warning("Ignoring bad value for " + name + ": " + e.getMessage());
+        return false;
+      }
+      // nothing set and no default: not an error, just nothing
+      next = null;
+    }
+    final boolean changed = !Objects.equals(value, next);
+    value = next;
+    version = sourceVersion;
+    if (changed) {
+      for (final Consumer<? super T> listener : listeners) {
+        try {
+          listener.accept(next);
+        } catch (final RuntimeException e) {
+          log.warning("Listener for " + name + " failed: " + e.getMessage());
+        }
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public String toString() {
+    return name + "=" + value;
+  }
+}
@@ -0,0 +1,76 @@
+package org.rickosborne.proboscis;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Turns configuration strings into the types {@link SystemProperty} injection points ask for.
+ * Pick a converter once, when planning the injection point, and then just apply it.
+ * Supported: {@link String}, {@code int}, {@code long}, {@code boolean}, {@code double} (and their boxes),
+ * {@link Duration}, any {@link Enum}, and {@link List}s of any of those, written comma-separated.
+ */
+@UtilityClass
+class PropertyConverters {
+  private static Duration duration(final String text) {
+    final String trimmed = text.trim();
+    if (trimmed.startsWith("P") || trimmed.startsWith("p")) return Duration.parse(trimmed);
+    final String lower = trimmed.toLowerCase(Locale.ROOT);
+    if (lower.endsWith("ms")) return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2).trim()));
+    if (lower.endsWith("s")) return Duration.ofSeconds(Long.parseLong(lower.substring(0, lower.length() - 1).trim()));
+    if (lower.endsWith("m")) return Duration.ofMinutes(Long.parseLong(lower.substring(0, lower.length() - 1).trim()));
+    if (lower.endsWith("h")) return Duration.ofHours(Long.parseLong(lower.substring(0, lower.length() - 1).trim()));
+    if (lower.endsWith("d")) return Duration.ofDays(Long.parseLong(lower.substring(0, lower.length() - 1).trim()));
+    return Duration.ofMillis(Long.parseLong(lower));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Function<String, Object> enumOf(final Class<?> type) {
+    final Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+    final Enum[] constants = enumType.getEnumConstants();
+    return text -> {
+      final String trimmed = text.trim();
+      for (final Enum constant : constants) {
+        if (constant.name().equalsIgnoreCase(trimmed)) return constant;
+      }
+      throw new IllegalArgumentException("No " + type.getSimpleName() + " named " + trimmed);
+    };
+  }
+
+  /**
+   * Find a converter for the given type.
+   * @param type        Raw type of the injection point
+   * @param genericType Full type, only consulted for the element type of a {@link List}
+   * @return NULL if the type isn't supported
+   */
+  public static Function<String, Object> forType(final Class<?> type, final Type genericType) {
+    if (type == String.class || type == Object.class) return text -> text;
+    if (type == int.class || type == Integer.class) return text -> Integer.valueOf(text.trim());
+    if (type == long.class || type == Long.class) return text -> Long.valueOf(text.trim());
+    if (type == boolean.class || type == Boolean.class) return text -> Boolean.valueOf(text.trim());
+    if (type == double.class || type == Double.class) return text -> Double.valueOf(text.trim());
+    if (type == Duration.class) return PropertyConverters::duration;
+    if (type.isEnum()) return enumOf(type);
+    if (type == List.class) {
+      final Type elementType = genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments()[0] : String.class;
+      if (!(elementType instanceof Class)) return null;
+      final Function<String, Object> element = forType((Class<?>) elementType, elementType);
+      if (element == null) return null;
+      return text -> {
+        if (text.trim().isEmpty()) return Collections.emptyList();
+        final String[] parts = text.split(",");
+        final List<Object> values = new ArrayList<>(parts.length);
+        for (final String part : parts) values.add(element.apply(part.trim()));
+        return Collections.unmodifiableList(values);
+      };
+    }
+    return null;
+  }
+}
@@ -0,0 +1,102 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * An immutable snapshot of configuration values, for {@link SystemProperty} injection.
+ * Values are copied out of wherever they came from when the source is created, so later changes to,
+ * say, {@link System#setProperty(String, String)} are not seen: build a new source and hand it to
+ * {@link DependencyInjectionContext#withPropertySource(PropertySource)} if you want them.
+ */
+public class PropertySource {
+  private final Map<String, String> values;
+
+  private PropertySource(final Map<String, String> values) {
+    this.values = Collections.unmodifiableMap(values);
+  }
+
+  /**
+   * Environment variables, under their own names and also lower-cased with underscores as dots,
+   * so {@code COM_EXAMPLE_TIMEOUT} answers to {@code com.example.timeout}.
+   */
+  public static PropertySource environment() {
+    final Map<String, String> env = System.getenv();
+    final Map<String, String> values = new HashMap<>(env.size() * 2);
+    for (final Map.Entry<String, String> entry : env.entrySet()) {
+      values.put(entry.getKey(), entry.getValue());
+      values.putIfAbsent(entry.getKey().toLowerCase(Locale.ROOT).replace('_', '.'), entry.getValue());
+    }
+    return new PropertySource(values);
+  }
+
+  /**
+   * Layer several sources into one, where earlier sources win.
+   */
+  public static PropertySource firstOf(@NonNull final PropertySource... sources) {
+    final Map<String, String> values = new HashMap<>();
+    for (int i = sources.length - 1; i >= 0; i--) values.putAll(sources[i].values);
+    return new PropertySource(values);
+  }
+
+  /**
+   * Load a local {@code .properties} file.
+   * @throws UncheckedIOException if it can't be read
+   */
+  public static PropertySource fromFile(@NonNull final Path path) {
+    final Properties properties = new Properties();
+    try (final InputStream in = Files.newInputStream(path)) {
+      properties.load(in);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not read properties from " + path, e);
+    }
+    return of(properties);
+  }
+
+  public static PropertySource of(@NonNull final Map<String, String> values) {
+    return new PropertySource(new HashMap<>(values));
+  }
+
+  public static PropertySource of(@NonNull final Properties properties) {
+    final Map<String, String> values = new HashMap<>();
+    for (final String name : properties.stringPropertyNames()) values.put(name, properties.getProperty(name));
+    return new PropertySource(values);
+  }
+
+  /**
+   * System properties, then environment variables.  What a context uses unless told otherwise.
+   */
+  public static PropertySource standard() {
+    return firstOf(systemProperties(), environment());
+  }
+
+  public static PropertySource systemProperties() {
+    return of(System.getProperties());
+  }
+
+  /**
+   * @return NULL if not set
+   */
+  public String get(@NonNull final String name) {
+    return values.get(name);
+  }
+
+  public String get(@NonNull final String name, final String defaultValue) {
+    final String value = values.get(name);
+    return value == null ? defaultValue : value;
+  }
+
+  public int size() {
+    return values.size();
+  }
+}
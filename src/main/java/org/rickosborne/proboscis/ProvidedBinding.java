@@ -0,0 +1,100 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One {@link Provides} method from an installed module.
+ * The method is compiled once, at install, into a handle bound to its module and taking its arguments as an array,
+ * so each call skips the access checks and argument boxing that {@link Method#invoke(Object, Object...)} repeats.
+ */
+class ProvidedBinding {
+  private final MethodHandle invoker;
+  /**
+   * The singleton, once built.
+   */
+  @Getter
+  private volatile Object instance;
+  @Getter
+  private final Method method;
+  @Getter
+  private final String name;
+  @Getter
+  private final FieldOrParam[] parameters;
+  @Getter
+  private final Class<?> type;
+
+  private ProvidedBinding(final Object module, final Method method) throws IllegalAccessException {
+    method.setAccessible(true);
+    MethodHandle handle = MethodHandles.lookup().unreflect(method);
+    if (!Modifier.isStatic(method.getModifiers())) handle = handle.bindTo(module);
+    final int count = method.getParameterCount();
+    this.invoker = handle.asSpreader(Object[].class, count).asType(MethodType.methodType(Object.class, Object[].class));
+    this.method = method;
+    this.name = Util.nameOf(method);
+    this.parameters = new FieldOrParam[count];
+    for (int i = 0; i < count; i++) parameters[i] = FieldOrParam.forParam(method.getParameters()[i], i);
+    this.type = method.getReturnType();
+  }
+
+  /**
+   * Every {@link Provides} method the module's class declares, or inherits.
+   * @throws IllegalArgumentException if any of them can't provide anything
+   */
+  static List<ProvidedBinding> scan(final Object module) {
+    final List<ProvidedBinding> bindings = new ArrayList<>();
+    for (Class<?> level = module.getClass(); level != null && level != Object.class; level = level.getSuperclass()) {
+      for (final Method method : level.getDeclaredMethods()) {
+        if (!method.isAnnotationPresent(Provides.class) || method.isBridge()) continue;
+        if (method.getReturnType().isPrimitive()) throw new IllegalArgumentException("@Provides must return a bean: " + method);
+        try {
+          bindings.add(new ProvidedBinding(module, method));
+        } catch (final IllegalAccessException e) {
+          throw new IllegalArgumentException("@Provides is not accessible: " + method, e);
+        }
+      }
+    }
+    if (bindings.isEmpty()) throw new IllegalArgumentException("Not a module, as it has no @Provides methods: " + module.getClass().getName());
+    return bindings;
+  }
+
+  /**
+   * The singleton, built the first time it's asked for, and only then, however many threads ask at once.
+   */
+  Object singleton(final Supplier<Object> build) {
+    final Object existing = instance;
+    if (existing != null) return existing;
+    synchronized (this) {
+      if (instance == null) instance = build.get();
+      return instance;
+    }
+  }
+
+  /**
+   * Whether the other binding is for a method which overrides this one's, as a subclass module's would.
+   */
+  boolean isOverriddenBy(final ProvidedBinding other) {
+    return method.getName().equals(other.method.getName())
+      && Arrays.equals(method.getParameterTypes(), other.method.getParameterTypes())
+      && method.getDeclaringClass().isAssignableFrom(other.method.getDeclaringClass());
+  }
+
+  Object invoke(final Object[] args) {
+    try {
+      return (Object) invoker.invokeExact(args);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new UnsupportedOperationException("Could not build: " + type.getSimpleName() + " from " + method.getDeclaringClass().getSimpleName() + "." + method.getName(), e);
+    }
+  }
+}
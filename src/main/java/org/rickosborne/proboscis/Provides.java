@@ -0,0 +1,27 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A method on a module which builds a bean of its return type, from beans the context injects as its parameters.
+ * Add a {@link javax.inject.Named} to the method to name the bean.
+ * <pre>
+ *   public class StorageModule {
+ *     \@Provides
+ *     \@Named("primary")
+ *     public DataSource dataSource(\@SystemProperty("db.url") final String url) {
+ *       return new PooledDataSource(url);
+ *     }
+ *   }
+ *
+ *   context.install(new StorageModule());
+ * </pre>
+ * @see DependencyInjectionContext#install(Object...)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Provides {
+}
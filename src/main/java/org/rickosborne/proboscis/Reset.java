@@ -0,0 +1,27 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Put a {@link BeanRetention#POOLED pooled} bean back the way a fresh one would be, as it goes back into its {@link BeanPool}.
+ * Methods must take no arguments.  Superclass methods run first.
+ * If one throws, the bean is destroyed instead of being reused.
+ * <pre>
+ *   \@Retained(value = BeanRetention.POOLED, maxSize = 8)
+ *   public class ResponseBuffer {
+ *     private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 &lt;&lt; 20);
+ *
+ *     \@Reset
+ *     void clear() {
+ *       buffer.clear();
+ *     }
+ *   }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Reset {
+}
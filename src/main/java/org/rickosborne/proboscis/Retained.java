@@ -0,0 +1,33 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declare how long a {@link DependencyInjectionContext} should hold on to instances of this bean.
+ * <pre>
+ *   \@Retained(BeanRetention.NONE)
+ *   public class RequestParser { }
+ *
+ *   \@Named
+ *   \@Retained(value = BeanRetention.BOUNDED, maxSize = 64)
+ *   public class Repository&lt;EntityT&gt; { }
+ * </pre>
+ * @see DependencyInjectionContext#withRetention(Class, BeanRetention)
+ */
+@Inherited
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Retained {
+  int MAX_SIZE_DEFAULT = 16;
+
+  BeanRetention value();
+
+  /**
+   * Only used for {@link BeanRetention#BOUNDED} and {@link BeanRetention#POOLED}.
+   */
+  int maxSize() default MAX_SIZE_DEFAULT;
+}
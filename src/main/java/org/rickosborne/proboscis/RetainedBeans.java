@@ -0,0 +1,186 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Storage for the beans which are not {@link BeanRetention#STRONG strongly} held by a {@link DependencyInjectionContext}.
+ * Beans are keyed by their concrete class or, for parameterized beans, their {@link ParameterizedType}.
+ * Collected references are cleaned out lazily, whenever something is added or counted.
+ */
+class RetainedBeans {
+  private final Map<Class<?>, Map<Object, Object>> bounded = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private final Map<Object, Reference<Object>> references = new ConcurrentHashMap<>();
+
+  private static Object keyOf(final Object key) {
+    // JDK and wrapper parameterized types are equal, but don't agree on hashes
+    if (key instanceof ParameterizedType && !(key instanceof ParameterizedTypeWrapper)) return new ParameterizedTypeWrapper<>((ParameterizedType) key);
+    return key;
+  }
+
+  private Map<Object, Object> boundedFor(final Class<?> rawType, final int maxSize) {
+    return bounded.computeIfAbsent(rawType, t -> Collections.synchronizedMap(new MostRecent(maxSize)));
+  }
+
+  /**
+   * How many beans are still reachable.
+   */
+  public int count() {
+    expunge();
+    int count = references.size();
+    for (final Map<Object, Object> beans : bounded.values()) count += beans.size();
+    return count;
+  }
+
+  private void expunge() {
+    Reference<?> ref;
+    while ((ref = collected.poll()) != null) {
+      references.remove(((Keyed) ref).getKey(), ref);
+    }
+  }
+
+  /**
+   * Find the bean stored for the exact key.
+   * @return NULL if never stored, evicted, or collected
+   */
+  public Object find(@NonNull final Object key) {
+    final Object lookup = keyOf(key);
+    final Reference<Object> ref = references.get(lookup);
+    if (ref != null) {
+      final Object bean = ref.get();
+      if (bean != null) return bean;
+    }
+    for (final Map<Object, Object> beans : bounded.values()) {
+      final Object bean = beans.get(lookup);
+      if (bean != null) return bean;
+    }
+    return null;
+  }
+
+  /**
+   * Find any live bean which is an instance of the given type.
+   * @return NULL if none
+   */
+  public <T> T findInstance(@NonNull final Class<T> type) {
+    for (final Reference<Object> ref : references.values()) {
+      final Object bean = ref.get();
+      if (type.isInstance(bean)) return type.cast(bean);
+    }
+    for (final Map<Object, Object> beans : bounded.values()) {
+      synchronized (beans) {
+        for (final Object bean : beans.values()) {
+          if (type.isInstance(bean)) return type.cast(bean);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stop holding the bean, wherever it's held.
+   */
+  public void forget(@NonNull final Object bean) {
+    references.values().removeIf(ref -> ref.get() == bean);
+    for (final Map<Object, Object> beans : bounded.values()) {
+      synchronized (beans) {
+        beans.values().removeIf(held -> held == bean);
+      }
+    }
+  }
+
+  /**
+   * Stop holding any bean whose key mentions, or whose class is, a type which passes the test.
+   */
+  public void forget(@NonNull final Predicate<Class<?>> test) {
+    final Predicate<Map.Entry<Object, ?>> stale = entry -> Util.anyClassOf((Type) entry.getKey(), test);
+    references.entrySet().removeIf(entry -> stale.test(entry) || isInstanceOf(entry.getValue().get(), test));
+    bounded.keySet().removeIf(test);
+    for (final Map<Object, Object> beans : bounded.values()) {
+      synchronized (beans) {
+        beans.entrySet().removeIf(entry -> stale.test(entry) || isInstanceOf(entry.getValue(), test));
+      }
+    }
+  }
+
+  private static boolean isInstanceOf(final Object bean, final Predicate<Class<?>> test) {
+    return bean != null && test.test(bean.getClass());
+  }
+
+  /**
+   * Hang on to the given bean, as tightly as the retention says to.
+   * Does nothing for {@link BeanRetention#STRONG} or {@link BeanRetention#NONE}, as those are not stored here.
+   */
+  public void retain(@NonNull final Object key, @NonNull final Object bean, @NonNull final BeanRetention retention, final int maxSize) {
+    expunge();
+    final Object stored = keyOf(key);
+    switch (retention) {
+      case SOFT:
+        references.put(stored, new KeyedSoftReference(stored, bean, collected));
+        break;
+      case WEAK:
+        references.put(stored, new KeyedWeakReference(stored, bean, collected));
+        break;
+      case BOUNDED:
+        final Class<?> rawType = stored instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) stored).getRawType() : bean.getClass();
+        boundedFor(rawType, maxSize).put(stored, bean);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private interface Keyed {
+    Object getKey();
+  }
+
+  private static class KeyedSoftReference extends SoftReference<Object> implements Keyed {
+    @Getter
+    private final Object key;
+
+    KeyedSoftReference(final Object key, final Object referent, final ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.key = key;
+    }
+  }
+
+  private static class KeyedWeakReference extends WeakReference<Object> implements Keyed {
+    @Getter
+    private final Object key;
+
+    KeyedWeakReference(final Object key, final Object referent, final ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Keeps the most recently used beans, dropping the least recently used once past its max size.
+   */
+  private static class MostRecent extends LinkedHashMap<Object, Object> {
+    private static final long serialVersionUID = 1L;
+    private final int maxSize;
+
+    MostRecent(final int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Object, Object> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package org.rickosborne.proboscis;
+
+import com.google.common.collect.Multimap;
+import lombok.NonNull;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The parts of a {@link Reflections} scan we still need once startup is done, packed into sorted arrays.
+ * Type names are interned once into {@link #names} and everything else refers to them by index.
+ * Answers the same questions as {@link Reflections#getSubTypesOf(Class)} and {@link Reflections#getTypesAnnotatedWith(Class)},
+ * without any of the per-entry overhead of the multimaps behind them.
+ * @see Loader#seal()
+ */
+class ScanIndex {
+  private static final int[] NONE = new int[0];
+  private final int[][] annotated;
+  private final int[] annotations;
+  private final String[] names;
+  private final int[][] subTypes;
+
+  private ScanIndex(final String[] names, final int[][] subTypes, final int[] annotations, final int[][] annotated) {
+    this.annotated = annotated;
+    this.annotations = annotations;
+    this.names = names;
+    this.subTypes = subTypes;
+  }
+
+  private static int[] indexesOf(final String[] names, final Collection<String> values) {
+    if (values == null || values.isEmpty()) return NONE;
+    final int[] indexes = new int[values.size()];
+    int count = 0;
+    for (final String value : values) {
+      final int index = Arrays.binarySearch(names, value);
+      if (index >= 0) indexes[count++] = index;
+    }
+    final int[] trimmed = count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+    Arrays.sort(trimmed);
+    return trimmed;
+  }
+
+  private static Multimap<String, String> indexOf(final Store store, final Class<?> scanner) {
+    final String key = scanner.getSimpleName();
+    return store.keySet().contains(key) ? store.get(key) : null;
+  }
+
+  /**
+   * Pack up everything we need from the given scan.
+   */
+  public static ScanIndex of(@NonNull final Reflections reflections) {
+    final Store store = reflections.getStore();
+    final Multimap<String, String> subTypeMap = indexOf(store, SubTypesScanner.class);
+    final Multimap<String, String> annotationMap = indexOf(store, TypeAnnotationsScanner.class);
+    final TreeSet<String> allNames = new TreeSet<>();
+    if (subTypeMap != null) {
+      allNames.addAll(subTypeMap.keySet());
+      allNames.addAll(subTypeMap.values());
+    }
+    if (annotationMap != null) {
+      allNames.addAll(annotationMap.keySet());
+      allNames.addAll(annotationMap.values());
+    }
+    final String[] names = allNames.toArray(new String[0]);
+    final int[][] subTypes = new int[names.length][];
+    for (int i = 0; i < names.length; i++) {
+      subTypes[i] = subTypeMap == null ? NONE : indexesOf(names, subTypeMap.get(names[i]));
+    }
+    final int[] annotations = annotationMap == null ? NONE : indexesOf(names, annotationMap.keySet());
+    final int[][] annotated = new int[annotations.length][];
+    for (int i = 0; i < annotations.length; i++) {
+      annotated[i] = indexesOf(names, annotationMap.get(names[annotations[i]]));
+    }
+    return new ScanIndex(names, subTypes, annotations, annotated);
+  }
+
+  private void addSubTypes(final BitSet found, final int index) {
+    final Deque<Integer> pending = new ArrayDeque<>();
+    pending.push(index);
+    while (!pending.isEmpty()) {
+      for (final int subType : subTypes[pending.pop()]) {
+        if (found.get(subType)) continue;
+        found.set(subType);
+        pending.push(subType);
+      }
+    }
+  }
+
+  /**
+   * @return NULL if nothing has the annotation
+   */
+  private BitSet annotatedWith(final String annotationName, final boolean withSubTypes) {
+    final int nameIndex = Arrays.binarySearch(names, annotationName);
+    final int annotationIndex = nameIndex < 0 ? -1 : Arrays.binarySearch(annotations, nameIndex);
+    if (annotationIndex < 0) return null;
+    final BitSet found = new BitSet(names.length);
+    for (final int typeIndex : annotated[annotationIndex]) {
+      found.set(typeIndex);
+      if (withSubTypes) addSubTypes(found, typeIndex);
+    }
+    return found;
+  }
+
+  private <T> Set<Class<? extends T>> classesOf(final BitSet found, final Class<T> type) {
+    final Set<Class<? extends T>> classes = new LinkedHashSet<>();
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+      final Class<?> maybe = Loader.forName(names[i]);
+      if (maybe != null && type.isAssignableFrom(maybe)) classes.add(maybe.asSubclass(type));
+    }
+    return classes;
+  }
+
+  /**
+   * Like {@link Reflections#getSubTypesOf(Class)}: every transitive subtype, not including the type itself.
+   */
+  public <T> Set<Class<? extends T>> getSubTypesOf(@NonNull final Class<T> type) {
+    final int index = Arrays.binarySearch(names, type.getName());
+    if (index < 0) return new LinkedHashSet<>();
+    final BitSet found = new BitSet(names.length);
+    addSubTypes(found, index);
+    return classesOf(found, type);
+  }
+
+  /**
+   * Like {@link #getSubTypesOf(Class)}, but only the names, so nothing is loaded.
+   */
+  public Set<String> getSubTypeNamesOf(@NonNull final String typeName) {
+    final int index = Arrays.binarySearch(names, typeName);
+    if (index < 0) return new LinkedHashSet<>();
+    final BitSet found = new BitSet(names.length);
+    addSubTypes(found, index);
+    return namesOf(found);
+  }
+
+  /**
+   * Like {@link #getTypesAnnotatedWith(Class)}, but only the names, so nothing is loaded.
+   * @param withSubTypes Whether to include the subtypes of annotated types
+   */
+  public Set<String> getTypeNamesAnnotatedWith(@NonNull final String annotationName, final boolean withSubTypes) {
+    final BitSet found = annotatedWith(annotationName, withSubTypes);
+    return found == null ? new LinkedHashSet<>() : namesOf(found);
+  }
+
+  /**
+   * Like {@link Reflections#getTypesAnnotatedWith(Class)}: annotated types plus all of their subtypes.
+   */
+  public Set<Class<?>> getTypesAnnotatedWith(@NonNull final Class<? extends Annotation> annotation) {
+    final BitSet found = annotatedWith(annotation.getName(), true);
+    return found == null ? new LinkedHashSet<>() : classesOf(found, Object.class);
+  }
+
+  private Set<String> namesOf(final BitSet found) {
+    final Set<String> typeNames = new LinkedHashSet<>();
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) typeNames.add(names[i]);
+    return typeNames;
+  }
+
+  /**
+   * How many distinct type names are indexed.
+   */
+  public int size() {
+    return names.length;
+  }
+}
@@ -0,0 +1,16 @@
+package org.rickosborne.proboscis;
+
+import lombok.Value;
+
+/**
+ * What was kept when scanning metadata was {@link Loader#seal() sealed}.
+ * Sealing doesn't measure the heap it gives back, as that takes a GC; see {@code SealBenchmark} in the tests for that.
+ */
+@Value
+public class SealReport {
+  private final int indexedTypes;
+  /**
+   * The types a {@link DependencyInjectionContext#seal() sealed context} knows how to build, or zero for {@link Loader#seal()}.
+   */
+  private final int namedTypes;
+}
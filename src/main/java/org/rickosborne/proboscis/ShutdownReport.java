@@ -0,0 +1,29 @@
+package org.rickosborne.proboscis;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * What happened when a context was {@link DependencyInjectionContext#shutdown(java.time.Duration) shut down}.
+ */
+@Value
+public class ShutdownReport {
+  /**
+   * How many beans had destroy hooks to run.
+   */
+  private final int destroyed;
+  /**
+   * Beans whose hooks threw.  They still count as destroyed, and their dependencies were still shut down.
+   */
+  private final List<Class<?>> failed;
+  /**
+   * Beans whose hooks were still running when their timeout ran out, and were interrupted.
+   */
+  private final List<Class<?>> timedOut;
+  private final long elapsedNanos;
+
+  public boolean isClean() {
+    return failed.isEmpty() && timedOut.isEmpty();
+  }
+}
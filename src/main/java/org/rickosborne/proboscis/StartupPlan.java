@@ -0,0 +1,305 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * The resolved wiring of a context: for each type, which constructor or static builder made it,
+ * and which concrete types were handed to each of its parameters.
+ * Record one on a normal run with {@link DependencyInjectionContext#withStartupPlan(StartupPlan)},
+ * {@link #save(Path)} it, and {@link #load(Path)} it on later starts so that beans are built straight from
+ * the recorded executable instead of scanning every constructor and static method for one which fits.
+ * <p>
+ * Every entry carries a checksum of its class file.
+ * An entry whose class has changed since it was recorded is dropped the first time it is asked for,
+ * and that type falls back to the usual scan, which records it again.
+ * </p>
+ */
+public class StartupPlan {
+  private static final String CONSTRUCTOR = "<init>";
+  private static final short FORMAT = 1;
+  private static final int MAGIC = 0x50524f42;
+  private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder stale = new LongAdder();
+  private final Map<String, Step> steps = new ConcurrentHashMap<>();
+
+  static {
+    for (final Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, double.class, float.class, int.class, long.class, short.class}) {
+      PRIMITIVES.put(primitive.getName(), primitive);
+    }
+  }
+
+  private StartupPlan() {
+  }
+
+  /**
+   * A checksum of the class file, or of the class's constructors and methods if there's no class file to read.
+   */
+  static long checksumOf(final Class<?> type) {
+    final CRC32 crc = new CRC32();
+    final String resource = type.getName().replace('.', '/') + ".class";
+    final ClassLoader loader = type.getClassLoader();
+    try (final InputStream in = loader == null ? ClassLoader.getSystemResourceAsStream(resource) : loader.getResourceAsStream(resource)) {
+      if (in != null) {
+        final byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) crc.update(buffer, 0, read);
+        return crc.getValue();
+      }
+    } catch (final IOException e) {
+      crc.reset();
+    }
+    final List<String> signatures = new ArrayList<>();
+    for (final Constructor<?> constructor : type.getDeclaredConstructors()) signatures.add(constructor.toGenericString());
+    for (final Method method : type.getDeclaredMethods()) signatures.add(method.toGenericString());
+    // reflection doesn't promise any particular order
+    Collections.sort(signatures);
+    for (final String signature : signatures) crc.update(signature.getBytes(StandardCharsets.UTF_8));
+    return crc.getValue();
+  }
+
+  /**
+   * The concrete types which were passed to each parameter of the type's executable, the first time it was built.
+   * @return NULL if the type isn't in the plan or hasn't been built yet, or an immutable list with NULL for any NULL argument
+   */
+  public List<String> dependenciesOf(@NonNull final Class<?> type) {
+    final Step step = steps.get(type.getName());
+    final String[] dependencies = step == null ? null : step.dependencies;
+    return dependencies == null ? null : Collections.unmodifiableList(Arrays.asList(dependencies));
+  }
+
+  /**
+   * An empty plan, which fills up as beans are built.
+   */
+  public static StartupPlan empty() {
+    return new StartupPlan();
+  }
+
+  /**
+   * The recorded executable for the type, if the class still matches its checksum.
+   * @return NULL if not recorded, or if the recording is stale
+   */
+  Executable find(final Class<?> type) {
+    final Step step = steps.get(type.getName());
+    if (step == null) return null;
+    Executable executable = step.executable;
+    if (executable == null) {
+      executable = step.resolve(type);
+      if (executable == null) {
+        stale.increment();
+        steps.remove(type.getName(), step);
+        return null;
+      }
+      step.executable = executable;
+    }
+    hits.increment();
+    return executable;
+  }
+
+  private static Class<?> forName(final String name, final ClassLoader loader) {
+    final Class<?> primitive = PRIMITIVES.get(name);
+    if (primitive != null) return primitive;
+    try {
+      return Class.forName(name, false, loader);
+    } catch (final ClassNotFoundException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * How many types were built from the plan without scanning.
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * How many recorded types no longer matched their classes, and had to be scanned after all.
+   */
+  public long getStaleCount() {
+    return stale.sum();
+  }
+
+  /**
+   * Read a plan written by {@link #save(Path)}.
+   * @throws UncheckedIOException if it can't be read, or isn't a plan
+   */
+  public static StartupPlan load(@NonNull final Path path) {
+    try (final InputStream in = Files.newInputStream(path)) {
+      return read(in);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Read a plan written by {@link #write(OutputStream)}.  Checksums are not checked until each type is needed.
+   * @throws IOException if it can't be read, or isn't a plan
+   */
+  public static StartupPlan read(@NonNull final InputStream in) throws IOException {
+    final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC) throw new IOException("Not a startup plan");
+    final short format = data.readShort();
+    if (format != FORMAT) throw new IOException("Unknown startup plan format: " + format);
+    final StartupPlan plan = new StartupPlan();
+    final int count = data.readInt();
+    for (int i = 0; i < count; i++) {
+      final String typeName = data.readUTF();
+      final long checksum = data.readLong();
+      final String executableName = data.readUTF();
+      final String[] parameterTypes = readStrings(data);
+      final Step step = new Step(checksum, executableName, parameterTypes);
+      step.dependencies = readStrings(data);
+      plan.steps.put(typeName, step);
+    }
+    return plan;
+  }
+
+  private static String[] readStrings(final DataInputStream data) throws IOException {
+    final int count = data.readInt();
+    if (count < 0) return null;
+    final String[] strings = new String[count];
+    for (int i = 0; i < count; i++) strings[i] = data.readBoolean() ? data.readUTF() : null;
+    return strings;
+  }
+
+  /**
+   * Remember that the type was built by the given constructor or static method.
+   * The first recording wins, and recording again is cheap.
+   */
+  void record(final Class<?> type, final Executable executable) {
+    if (steps.containsKey(type.getName())) return;
+    final Class<?>[] parameterTypes = executable.getParameterTypes();
+    final String[] parameterNames = new String[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) parameterNames[i] = parameterTypes[i].getName();
+    final Step step = new Step(checksumOf(type), executable instanceof Constructor ? CONSTRUCTOR : executable.getName(), parameterNames);
+    step.executable = executable;
+    steps.putIfAbsent(type.getName(), step);
+  }
+
+  /**
+   * Let go of the executables found for types which pass the test.  What was recorded about them is kept,
+   * as it's only names, and they are found again if the types come back.
+   */
+  void forget(final Predicate<Class<?>> test) {
+    for (final Step step : steps.values()) {
+      final Executable executable = step.executable;
+      if (executable != null && test.test(executable.getDeclaringClass())) step.executable = null;
+    }
+  }
+
+  /**
+   * Remember which concrete types were passed to the type's executable, if we don't already know.
+   */
+  void recordDependencies(final Class<?> type, final Object[] args) {
+    final Step step = steps.get(type.getName());
+    if (step == null || step.dependencies != null) return;
+    final String[] dependencies = new String[args.length];
+    for (int i = 0; i < args.length; i++) dependencies[i] = args[i] == null ? null : Interception.userClassOf(args[i].getClass()).getName();
+    step.dependencies = dependencies;
+  }
+
+  /**
+   * Write the plan to a file, replacing whatever was there.
+   * @throws UncheckedIOException if it can't be written
+   */
+  public void save(@NonNull final Path path) {
+    try (final OutputStream out = Files.newOutputStream(path)) {
+      write(out);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * How many types are in the plan.
+   */
+  public int size() {
+    return steps.size();
+  }
+
+  /**
+   * Write the plan in a compact binary form, readable by {@link #read(InputStream)}.
+   * The stream is flushed but not closed.
+   */
+  public void write(@NonNull final OutputStream out) throws IOException {
+    final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    final Map<String, Step> snapshot = new HashMap<>(steps);
+    data.writeInt(MAGIC);
+    data.writeShort(FORMAT);
+    data.writeInt(snapshot.size());
+    for (final Map.Entry<String, Step> entry : snapshot.entrySet()) {
+      final Step step = entry.getValue();
+      data.writeUTF(entry.getKey());
+      data.writeLong(step.checksum);
+      data.writeUTF(step.executableName);
+      writeStrings(data, step.parameterTypes);
+      writeStrings(data, step.dependencies);
+    }
+    data.flush();
+  }
+
+  private static void writeStrings(final DataOutputStream data, final String[] strings) throws IOException {
+    if (strings == null) {
+      data.writeInt(-1);
+      return;
+    }
+    data.writeInt(strings.length);
+    for (final String string : strings) {
+      data.writeBoolean(string != null);
+      if (string != null) data.writeUTF(string);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Step {
+    private final long checksum;
+    private volatile String[] dependencies;
+    private volatile Executable executable;
+    private final String executableName;
+    private final String[] parameterTypes;
+
+    /**
+     * Find the executable again, if the class hasn't changed since it was recorded.
+     * @return NULL if it has, or if the executable is gone
+     */
+    private Executable resolve(final Class<?> type) {
+      if (checksumOf(type) != checksum) return null;
+      final Class<?>[] parameters = new Class<?>[parameterTypes.length];
+      for (int i = 0; i < parameters.length; i++) {
+        parameters[i] = forName(parameterTypes[i], type.getClassLoader());
+        if (parameters[i] == null) return null;
+      }
+      try {
+        return CONSTRUCTOR.equals(executableName) ? type.getDeclaredConstructor(parameters) : type.getDeclaredMethod(executableName, parameters);
+      } catch (final NoSuchMethodException e) {
+        return null;
+      }
+    }
+  }
+}
@@ -11,6 +11,9 @@ import java.lang.annotation.Target;
  *   \@SystemProperty("com.example.whatever")
  *   protected String whatever;
  * </code>
+ * Besides strings, values can be converted to {@code int}, {@code long}, {@code boolean}, {@code double},
+ * {@link java.time.Duration} ({@code PT5S} or {@code 5s}), any enum, or a comma-separated {@link java.util.List} of those.
+ * Values come from the context's {@link PropertySource}, which by default is a snapshot of system properties and then environment variables.
  */
 @Target({ElementType.FIELD, ElementType.PARAMETER})
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,96 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * One plan per generic type, shared by every parameterization of it.
+ * The first build of, say, {@code Repository<User>} works out which constructor or static builder to use,
+ * and which of its parameters depend on the type arguments.  Those are the slots.
+ * Every later build of another parameterization, such as {@code Repository<Order>}, goes straight to the same executable,
+ * reuses the parameters which don't depend on the arguments, and only works out the slots again.
+ */
+class TemplatePlans {
+  private final Map<Class<?>, Template> templates = new ConcurrentHashMap<>();
+
+  private static boolean dependsOnArguments(final Type type) {
+    if (type instanceof TypeVariable) return true;
+    if (type instanceof ParameterizedType) {
+      for (final Type arg : ((ParameterizedType) type).getActualTypeArguments()) {
+        if (dependsOnArguments(arg)) return true;
+      }
+    }
+    if (type instanceof WildcardType) {
+      final WildcardType wildcard = (WildcardType) type;
+      for (final Type bound : wildcard.getUpperBounds()) if (dependsOnArguments(bound)) return true;
+      for (final Type bound : wildcard.getLowerBounds()) if (dependsOnArguments(bound)) return true;
+    }
+    if (type instanceof GenericArrayType) return dependsOnArguments(((GenericArrayType) type).getGenericComponentType());
+    return false;
+  }
+
+  /**
+   * @return NULL if nothing has been recorded for it yet
+   */
+  Template find(final Class<?> rawType) {
+    return templates.get(rawType);
+  }
+
+  /**
+   * Forget the templates of every type which passes the test.
+   */
+  void forget(final Predicate<Class<?>> test) {
+    templates.keySet().removeIf(test);
+  }
+
+  void record(final Class<?> rawType, final Executable executable) {
+    templates.computeIfAbsent(rawType, t -> new Template(executable));
+  }
+
+  int size() {
+    return templates.size();
+  }
+
+  static class Template {
+    @Getter
+    private final Executable executable;
+    /**
+     * NULL at each slot.
+     */
+    private final FieldOrParam[] fixed;
+    private final Parameter[] parameters;
+
+    private Template(final Executable executable) {
+      this.executable = executable;
+      parameters = executable.getParameters();
+      fixed = new FieldOrParam[parameters.length];
+      for (int i = 0; i < parameters.length; i++) {
+        final Parameter parameter = parameters[i];
+        // a @TypeParam needs the arguments even when its own type doesn't mention them
+        if (dependsOnArguments(parameter.getParameterizedType()) || parameter.isAnnotationPresent(TypeParam.class)) continue;
+        fixed[i] = FieldOrParam.forParam(parameter, i);
+      }
+    }
+
+    /**
+     * The executable's parameters for the given parameterization, with every slot filled in.
+     */
+    FieldOrParam[] fill(final ParameterizedType parameterizedType) {
+      final FieldOrParam[] filled = fixed.clone();
+      for (int i = 0; i < filled.length; i++) {
+        if (filled[i] == null) filled[i] = FieldOrParam.forParam(parameters[i], i, parameterizedType);
+      }
+      return filled;
+    }
+  }
+}
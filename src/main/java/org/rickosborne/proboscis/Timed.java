@@ -0,0 +1,24 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Time calls to the method, or to every method of the bean, and report them to the context's {@link ContextMeter meters}.
+ * <pre>
+ *   public class ReportRenderer {
+ *     \@Timed
+ *     public byte[] render(final Report report) { }
+ *   }
+ * </pre>
+ * @see TimingInterceptor
+ */
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@InterceptedBy(TimingInterceptor.class)
+public @interface Timed {
+}
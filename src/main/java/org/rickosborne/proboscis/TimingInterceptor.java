@@ -0,0 +1,29 @@
+package org.rickosborne.proboscis;
+
+import lombok.NonNull;
+
+/**
+ * Reports how long each call took, and whether it threw, to the {@link ContextMeter meters} of the context
+ * which built it, such as {@link ContextStatistics}.
+ * @see Timed
+ */
+public class TimingInterceptor implements Interceptor {
+  private final DependencyInjectionContext context;
+
+  public TimingInterceptor(@NonNull final DependencyInjectionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Object intercept(final Invocation invocation) throws Throwable {
+    final long started = System.nanoTime();
+    boolean failed = true;
+    try {
+      final Object result = invocation.proceed();
+      failed = false;
+      return result;
+    } finally {
+      context.meterTimed(invocation.getMethod(), System.nanoTime() - started, failed);
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package org.rickosborne.proboscis;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What every type variable means for one parameterization of a class, all the way up its hierarchy.
+ * For {@code class UserRepository extends Repository<User>}, the bindings of {@code UserRepository} know that
+ * {@code Repository}'s {@code EntityT} is {@code User}, and for {@code Repository<List<User>>} they know it's {@code List<User>}.
+ * <p>
+ * Bindings are worked out once per raw class and type arguments, and kept alongside the class,
+ * so every later build of the same parameterization, and every injection point in it, reuses them.
+ * Parameterized types which come out of them are always {@link ParameterizedTypeWrapper}s,
+ * so they hash and compare the same however they were made.
+ * </p>
+ */
+class TypeBindings {
+  private static final ClassValue<Map<List<Type>, TypeBindings>> BINDINGS = new ClassValue<Map<List<Type>, TypeBindings>>() {
+    @Override
+    protected Map<List<Type>, TypeBindings> computeValue(final Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+  private final Map<TypeVariable<?>, Type> bindings;
+
+  private TypeBindings(final Map<TypeVariable<?>, Type> bindings) {
+    this.bindings = bindings;
+  }
+
+  private static TypeBindings bind(final Class<?> rawType, final List<Type> args) {
+    final Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+    final TypeVariable<?>[] variables = rawType.getTypeParameters();
+    if (args.size() == variables.length) {
+      for (int i = 0; i < variables.length; i++) bindings.put(variables[i], args.get(i));
+    }
+    // subtypes are always bound before their supertypes, so each supertype's arguments can be resolved as they're found
+    final Deque<Class<?>> pending = new ArrayDeque<>();
+    final Set<Class<?>> seen = new HashSet<>();
+    pending.push(rawType);
+    while (!pending.isEmpty()) {
+      final Class<?> next = pending.pop();
+      if (!seen.add(next)) continue;
+      final List<Type> supertypes = new ArrayList<>(Arrays.asList(next.getGenericInterfaces()));
+      if (next.getGenericSuperclass() != null) supertypes.add(next.getGenericSuperclass());
+      for (final Type supertype : supertypes) {
+        if (supertype instanceof ParameterizedType) {
+          final ParameterizedType parameterized = (ParameterizedType) supertype;
+          final Class<?> raw = (Class<?>) parameterized.getRawType();
+          final TypeVariable<?>[] superVariables = raw.getTypeParameters();
+          final Type[] superArgs = parameterized.getActualTypeArguments();
+          for (int i = 0; i < superVariables.length && i < superArgs.length; i++) bindings.putIfAbsent(superVariables[i], resolve(superArgs[i], bindings));
+          pending.push(raw);
+        } else if (supertype instanceof Class) {
+          pending.push((Class<?>) supertype);
+        }
+      }
+    }
+    return new TypeBindings(bindings.isEmpty() ? Collections.emptyMap() : bindings);
+  }
+
+  /**
+   * Rebuild any parameterized types as wrappers, so that keys made from them agree.
+   */
+  private static List<Type> canonical(final Type[] types) {
+    if (types.length == 0) return Collections.emptyList();
+    final Type[] canonical = new Type[types.length];
+    for (int i = 0; i < types.length; i++) canonical[i] = resolve(types[i], Collections.emptyMap());
+    return Arrays.asList(canonical);
+  }
+
+  /**
+   * The same type, rebuilt as wrappers all the way down, so it can be used as a key.
+   */
+  static ParameterizedType canonical(final ParameterizedType type) {
+    return (ParameterizedType) resolve(type, Collections.emptyMap());
+  }
+
+  /**
+   * Whether the implementation can stand in for the wanted parameterization of one of its supertypes:
+   * every argument it binds for itself must agree, while those it leaves open could be anything.
+   * A {@code UserRepository extends Repository<User>} fits {@code Repository<User>}, but not {@code Repository<Order>}.
+   */
+  static boolean fits(final Class<?> implementation, final ParameterizedType wanted) {
+    final Class<?> raw = rawClassOf(wanted);
+    final Type[] args = wanted.getActualTypeArguments();
+    final TypeBindings bindings = of(implementation);
+    for (int i = 0; i < args.length; i++) {
+      final Type bound = bindings.typeArgument(raw, i);
+      if (bound == null || bound instanceof TypeVariable || args[i] instanceof TypeVariable || args[i] instanceof WildcardType) continue;
+      if (!bound.equals(resolve(args[i], Collections.emptyMap()))) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Only plain classes and our own wrappers hash by value, and only those visible from the raw class's loader
+   * can be kept alongside it without pinning another loader, like a plugin's.
+   * Anything else, such as a type variable or wildcard left over, could be a new key on every call.
+   */
+  private static boolean isCacheable(final List<Type> types, final ClassLoader loader) {
+    for (final Type type : types) if (!isCanonical(type) || !Util.isVisibleFrom(type, loader)) return false;
+    return true;
+  }
+
+  private static boolean isCanonical(final Type type) {
+    if (type instanceof Class) return true;
+    if (!(type instanceof ParameterizedTypeWrapper)) return false;
+    for (final Type arg : ((ParameterizedType) type).getActualTypeArguments()) if (!isCanonical(arg)) return false;
+    return true;
+  }
+
+  static TypeBindings of(final Class<?> rawType) {
+    return of(rawType, new Type[0]);
+  }
+
+  static TypeBindings of(final ParameterizedType parameterizedType) {
+    return of((Class<?>) parameterizedType.getRawType(), parameterizedType.getActualTypeArguments());
+  }
+
+  static TypeBindings of(final Class<?> rawType, final Type[] args) {
+    final Map<List<Type>, TypeBindings> byArgs = BINDINGS.get(rawType);
+    final List<Type> key = canonical(args);
+    final TypeBindings existing = byArgs.get(key);
+    if (existing != null) return existing;
+    final TypeBindings bound = bind(rawType, key);
+    if (!isCacheable(key, rawType.getClassLoader())) return bound;
+    final TypeBindings raced = byArgs.putIfAbsent(key, bound);
+    return raced == null ? bound : raced;
+  }
+
+  /**
+   * The class a value of the given type would be an instance of.
+   * Unbound variables and wildcards fall back to their first upper bound.
+   */
+  static Class<?> rawClassOf(final Type type) {
+    if (type instanceof Class) return (Class<?>) type;
+    if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+    if (type instanceof TypeVariable) return rawClassOf(((TypeVariable<?>) type).getBounds()[0]);
+    if (type instanceof WildcardType) return rawClassOf(((WildcardType) type).getUpperBounds()[0]);
+    if (type instanceof GenericArrayType) return Array.newInstance(rawClassOf(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+    return Object.class;
+  }
+
+  /**
+   * Substitute every bound variable in the type.
+   * Bounded wildcards become their bound, as an injection point can only be given one thing:
+   * {@code List<? extends Handler>} is resolved as {@code List<Handler>}.
+   * Variables without a binding are left as they are.
+   */
+  Type resolve(final Type type) {
+    return resolve(type, bindings);
+  }
+
+  private static Type resolve(final Type type, final Map<TypeVariable<?>, Type> bindings) {
+    if (type instanceof Class) return type;
+    if (type instanceof TypeVariable) {
+      final Type bound = bindings.get(type);
+      return bound == null ? type : bound;
+    }
+    if (type instanceof ParameterizedType) {
+      final ParameterizedType parameterized = (ParameterizedType) type;
+      final Type[] args = parameterized.getActualTypeArguments();
+      final Type[] resolved = new Type[args.length];
+      for (int i = 0; i < args.length; i++) resolved[i] = resolve(args[i], bindings);
+      return new ParameterizedTypeWrapper<>(rawClassOf(parameterized), resolved);
+    }
+    if (type instanceof WildcardType) {
+      final WildcardType wildcard = (WildcardType) type;
+      final Type[] lower = wildcard.getLowerBounds();
+      if (lower.length > 0) return resolve(lower[0], bindings);
+      // a bare ? says nothing about what's wanted, so it stays one
+      final Type upper = wildcard.getUpperBounds()[0];
+      return upper == Object.class ? type : resolve(upper, bindings);
+    }
+    if (type instanceof GenericArrayType) {
+      final Type component = resolve(((GenericArrayType) type).getGenericComponentType(), bindings);
+      return component instanceof Class ? Array.newInstance((Class<?>) component, 0).getClass() : type;
+    }
+    return type;
+  }
+
+  /**
+   * What the declaring class's type variable at the given index is bound to.
+   * @return NULL if it has no such variable, or the variable isn't bound
+   */
+  Type typeArgument(final Class<?> declaringClass, final int index) {
+    final TypeVariable<?>[] variables = declaringClass.getTypeParameters();
+    if (index < 0 || index >= variables.length) return null;
+    return bindings.get(variables[index]);
+  }
+}
@@ -1,6 +1,7 @@
 package org.rickosborne.proboscis;
 
 import lombok.RequiredArgsConstructor;
+import org.rickosborne.proboscis.ex.NoSuchBeanException;
 
 import javax.inject.Provider;
 import java.lang.reflect.*;
@@ -17,12 +18,61 @@ import java.util.function.Supplier;
 @RequiredArgsConstructor
 class TypedFactory<T> implements Supplier<T>, Provider<T> {
   private final Holder<Supplier<T>> builder = Holder.empty();
+  private final Holder<ConstructionListener> constructionListener = Holder.empty();
+  /**
+   * Built to satisfy another bean's parameter, so nothing will inject its fields afterward.
+   */
+  private boolean dependency = false;
+  private final Holder<DependencyBuilder> dependencyBuilder = Holder.empty();
+  private final Holder<ImplementationChoices> implementationChoices = Holder.of(new ImplementationChoices());
   private final List<ImplementationResolver> implementationResolvers = new LinkedList<>();
+  private final Holder<Interception> interception = Holder.empty();
   private final List<FieldOrParamInspector> inspectors = new LinkedList<>();
   private final Holder<MissingExceptionSupplier> missingExceptionSupplier = Holder.empty();
   private final ParameterizedType parameterizedType;
+  private final Holder<StartupPlan> startupPlan = Holder.empty();
+  private final Holder<TemplatePlans> templatePlans = Holder.empty();
   private final Class<T> type;
 
+  private <V> V buildCandidate(final Class<V> candidate, final ParameterizedType otherParameterizedType, final boolean forDependency) {
+    final TypedFactory<V> factory = forOtherType(candidate, otherParameterizedType, forDependency);
+    final DependencyBuilder builder = dependencyBuilder.getValue();
+    if (builder == null || !forDependency || otherParameterizedType != null) return factory.get();
+    return builder.build(candidate, factory::get);
+  }
+
+  /**
+   * Build the chosen implementation, or if there isn't one yet, try each candidate in order and choose the first which builds.
+   * Candidates which fail because they can't be built, or are missing dependencies, are skipped, now and from then on.
+   * @return NULL if there are no candidates, or none of them built anything
+   */
+  private <U> U buildChoice(final ImplementationChoices.Choice<U> choice, final ParameterizedType otherParameterizedType, final boolean forDependency) {
+    final Class<? extends U> chosen = choice.getChosen();
+    if (chosen != null) return buildCandidate(chosen, otherParameterizedType, forDependency);
+    RuntimeException firstFailure = null;
+    for (final Class<? extends U> candidate : choice.getCandidates()) {
+      final RuntimeException failed = choice.failureOf(candidate);
+      if (failed != null) {
+        if (firstFailure == null) firstFailure = failed;
+        continue;
+      }
+      final U maybe;
+      try {
+        maybe = buildCandidate(candidate, otherParameterizedType, forDependency);
+      } catch (final UnsupportedOperationException | NoSuchBeanException e) {
+        choice.failed(candidate, e);
+        if (firstFailure == null) firstFailure = e;
+        continue;
+      }
+      if (maybe != null) {
+        choice.setChosen(candidate);
+        return maybe;
+      }
+    }
+    if (firstFailure != null) throw firstFailure;
+    return null;
+  }
+
   private FieldOrParamResolver findResolver(final FieldOrParam element) {
     for (final FieldOrParamInspector inspector : inspectors) {
       final FieldOrParamResolver injector = inspector.findResolver(element);
@@ -31,18 +81,21 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
     return null;
   }
 
-  private <U> TypedFactory<U> forOtherType(final Class<U> otherType, final ParameterizedType parameterizedType) {
+  private <U> TypedFactory<U> forOtherType(final Class<U> otherType, final ParameterizedType parameterizedType, final boolean forDependency) {
     final TypedFactory<U> factory = new TypedFactory<>(parameterizedType, otherType);
+    factory.constructionListener.setValue(constructionListener.getValue());
+    factory.dependency = forDependency;
+    factory.dependencyBuilder.setValue(dependencyBuilder.getValue());
+    factory.implementationChoices.setValue(implementationChoices.getValue());
     factory.implementationResolvers.addAll(implementationResolvers);
     factory.inspectors.addAll(inspectors);
+    factory.interception.setValue(interception.getValue());
     factory.missingExceptionSupplier.setValue(missingExceptionSupplier.getValue());
+    factory.startupPlan.setValue(startupPlan.getValue());
+    factory.templatePlans.setValue(templatePlans.getValue());
     return factory;
   }
 
-  private <U extends T> TypedFactory<U> forSubclass(final Class<U> subclass) {
-    return forOtherType(subclass, null);
-  }
-
   private Supplier<T> fromConstructor() {
     for (final Constructor<?> constructor : type.getDeclaredConstructors()) {
       if (Modifier.isPublic(constructor.getModifiers())) {
@@ -54,17 +107,23 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
   }
 
   private Supplier<T> fromExecutable(final Executable executable) {
-    final int parameterCount = executable.getParameterCount();
     final Parameter[] parameters = executable.getParameters();
-    final FieldOrParamResolver[] resolvers = new FieldOrParamResolver[parameterCount];
-    final FieldOrParam[] fieldsOrParams = new FieldOrParam[parameterCount];
-    for (int i = 0; i < parameters.length; i++) {
-      final Parameter parameter = parameters[i];
-      final FieldOrParam fieldOrParam = FieldOrParam.forParam(parameter, i, parameterizedType);
-      final FieldOrParamResolver resolver = findResolver(fieldOrParam);
+    final FieldOrParam[] fieldsOrParams = new FieldOrParam[parameters.length];
+    for (int i = 0; i < parameters.length; i++) fieldsOrParams[i] = FieldOrParam.forParam(parameters[i], i, parameterizedType);
+    final Supplier<T> supplier = fromFieldsOrParams(executable, fieldsOrParams);
+    if (supplier == null) return null;
+    // parameterized types share a template instead, as the startup plan is keyed by raw type
+    if (parameterizedType == null) startupPlan.ifValue(plan -> plan.record(type, executable));
+    else templatePlans.ifValue(plans -> plans.record(type, executable));
+    return supplier;
+  }
+
+  private Supplier<T> fromFieldsOrParams(final Executable executable, final FieldOrParam[] fieldsOrParams) {
+    final FieldOrParamResolver[] resolvers = new FieldOrParamResolver[fieldsOrParams.length];
+    for (int i = 0; i < fieldsOrParams.length; i++) {
+      final FieldOrParamResolver resolver = findResolver(fieldsOrParams[i]);
       if (resolver == null) return null;
       resolvers[i] = resolver;
-      fieldsOrParams[i] = fieldOrParam;
     }
     return new SupplierFromExecutable<>(executable, fieldsOrParams, resolvers, type);
   }
@@ -73,17 +132,30 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
     for (final ImplementationResolver implementationResolver : implementationResolvers) {
       final Set<Class<? extends T>> implementors = implementationResolver.implementationsOf(type);
       if (implementors == null) continue;
-      return () -> {
-        for (final Class<? extends T> implementor : implementors) {
-          final T maybe = forSubclass(implementor).get();
-          if (maybe != null) return maybe;
-        }
-        return null;
-      };
+      final ImplementationChoices.Choice<T> choice = implementationChoices.getValue().choiceFor(type, null, implementors);
+      return () -> buildChoice(choice, null, dependency);
     }
     return null;
   }
 
+  private Supplier<T> fromStartupPlan() {
+    final StartupPlan plan = startupPlan.getValue();
+    if (plan == null || parameterizedType != null) return null;
+    final Executable executable = plan.find(type);
+    return executable == null ? null : fromExecutable(executable);
+  }
+
+  /**
+   * Fill in the template for this type's other parameterizations, if there is one.
+   * If this parameterization can't resolve one of its slots, it falls back to the usual search.
+   */
+  private Supplier<T> fromTemplate() {
+    final TemplatePlans plans = templatePlans.getValue();
+    if (plans == null || parameterizedType == null) return null;
+    final TemplatePlans.Template template = plans.find(type);
+    return template == null ? null : fromFieldsOrParams(template.getExecutable(), template.fill(parameterizedType));
+  }
+
   private Supplier<T> fromStaticBuilder() {
     for (final Method method : type.getDeclaredMethods()) {
       if (Modifier.isStatic(method.getModifiers())
@@ -98,6 +170,10 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
 
   public T get() {
     return builder.computeIfAbsent(() -> {
+      final Supplier<T> maybeFromPlan = fromStartupPlan();
+      if (maybeFromPlan != null) return maybeFromPlan;
+      final Supplier<T> maybeFromTemplate = fromTemplate();
+      if (maybeFromTemplate != null) return maybeFromTemplate;
       final Supplier<T> maybeFromStatic = fromStaticBuilder();
       if (maybeFromStatic != null) return maybeFromStatic;
       final Supplier<T> maybeFromConstructor = fromConstructor();
@@ -112,6 +188,8 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
     final boolean wantSupplier = fieldOrParam.isSupplier();
     final boolean gotSupplier = object instanceof Supplier;
     if (wantSupplier == gotSupplier) return object;
+    // suppliers which are wanted for what they are, such as a Property, rather than for what they supply
+    if (!wantSupplier && fieldOrParam.getType().isInstance(object)) return object;
     if (wantSupplier) return new SingletonSupplier(object);
     return ((Supplier<?>) object).get();
   }
@@ -129,6 +207,30 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
     return this;
   }
 
+  /**
+   * Tell the listener about everything this factory, and any factory it starts for dependencies, constructs.
+   */
+  public TypedFactory<T> withConstructionListener(final ConstructionListener listener) {
+    constructionListener.setValue(listener);
+    return this;
+  }
+
+  /**
+   * Hand the implementations chosen for other beans' parameters to the builder, rather than always building new ones.
+   */
+  public TypedFactory<T> withDependencyBuilder(final DependencyBuilder builder) {
+    dependencyBuilder.setValue(builder);
+    return this;
+  }
+
+  /**
+   * Share implementation choices with other factories, so each is only made once.
+   */
+  public TypedFactory<T> withImplementationChoices(final ImplementationChoices choices) {
+    implementationChoices.setValue(choices);
+    return this;
+  }
+
   public TypedFactory<T> withFieldOrParamResolver(final FieldOrParamInspector resolver) {
     inspectors.add(resolver);
     return this;
@@ -140,30 +242,49 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
       final String name = fieldOrParam.getNamed();
       final Class<?> implType = fieldOrParam.getType();
       @SuppressWarnings("unchecked") final Set<Class<?>> maybes = implementationResolver.implementationsOf((Class) implType);
-      if (maybes != null) {
-        for (final Class<?> maybeImpl : maybes) {
-          if (name != null) {
-            final String implName = Util.nameOf(maybeImpl);
-            if (!name.equalsIgnoreCase(implName)) continue;
-          }
-          final TypedFactory<?> builder = forOtherType(maybeImpl, fieldOrParam.getParameterizedType());
-          final Object impl = builder.get();
-          if (impl != null) {
-            final Maybe maybe = Maybe.of(impl);
-            return fop -> maybe;
-          }
-        }
-      }
-      return null;
+      if (maybes == null || maybes.isEmpty()) return null;
+      @SuppressWarnings("unchecked") final ImplementationChoices.Choice<?> choice = implementationChoices.getValue().choiceFor((Class) implType, name, (Set) maybes);
+      final ParameterizedType wanted = fieldOrParam.getParameterizedType();
+      final ImplementationChoices.Choice<?> fitting = wanted == null ? choice : choice.fitting(wanted);
+      if (fitting.getCandidates().isEmpty()) return null;
+      final Object impl = buildChoice(fitting, wanted, true);
+      if (impl == null) return null;
+      final Maybe maybe = Maybe.of(impl);
+      return fop -> maybe;
     });
     return this;
   }
 
+  /**
+   * Build beans with interceptors as their generated subclasses.
+   */
+  public TypedFactory<T> withInterception(final Interception interception) {
+    this.interception.setValue(interception);
+    return this;
+  }
+
   public TypedFactory<T> withResolverExceptions(final MissingExceptionSupplier exceptionSupplier) {
     missingExceptionSupplier.setValue(exceptionSupplier);
     return this;
   }
 
+  /**
+   * Build from the plan where it knows how, and record into it where it doesn't.
+   * @param plan NULL for neither
+   */
+  public TypedFactory<T> withStartupPlan(final StartupPlan plan) {
+    startupPlan.setValue(plan);
+    return this;
+  }
+
+  /**
+   * Share templates for parameterized types with other factories, and record into them.
+   */
+  public TypedFactory<T> withTemplatePlans(final TemplatePlans plans) {
+    templatePlans.setValue(plans);
+    return this;
+  }
+
   @RequiredArgsConstructor
   private class SupplierFromExecutable<U> implements Supplier<U> {
     private final Executable executable;
@@ -192,10 +313,12 @@ class TypedFactory<T> implements Supplier<T>, Provider<T> {
     public U get() {
       try {
         final Object[] args = buildArgs();
+        if (parameterizedType == null) startupPlan.ifValue(plan -> plan.recordDependencies(TypedFactory.this.type, args));
         final Object maybe;
         if (executable instanceof Method) maybe = ((Method) executable).invoke(null, args);
-        else if (executable instanceof Constructor) maybe = ((Constructor<?>) executable).newInstance(args);
+        else if (executable instanceof Constructor) maybe = interception.getValue() == null ? ((Constructor<?>) executable).newInstance(args) : interception.getValue().newInstance((Constructor<?>) executable, args);
         else throw new UnsupportedOperationException("Unknown executable type: " + executable);
+        if (maybe != null) constructionListener.ifValue(listener -> listener.constructed(maybe, args, dependency));
         return type.cast(maybe);
       } catch (final IllegalAccessException | InvocationTargetException | InstantiationException e) {
         throw new UnsupportedOperationException("Could not build: " + type.getSimpleName() + "." + executable.getName(), e);
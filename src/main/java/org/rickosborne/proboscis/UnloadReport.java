@@ -0,0 +1,18 @@
+package org.rickosborne.proboscis;
+
+import lombok.Value;
+
+/**
+ * What {@link DependencyInjectionContext#unload(ClassLoader)} forgot.
+ */
+@Value
+public class UnloadReport {
+  /**
+   * Beans from the loader, and every bean built with one of them.
+   */
+  private final int beans;
+  /**
+   * Named types defined by the loader.
+   */
+  private final int types;
+}
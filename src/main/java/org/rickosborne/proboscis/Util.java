@@ -4,17 +4,76 @@ import lombok.experimental.UtilityClass;
 
 import javax.inject.Named;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.Member;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @UtilityClass
 class Util {
-  static boolean matches(final String expected, final String actual, final String... stopWords) {
-    if (actual.equalsIgnoreCase(expected)) return true;
-    if (stopWords == null || stopWords.length == 0) return false;
-    String smaller = actual;
-    for (final String stopWord : stopWords) {
-      smaller = smaller.replaceAll(stopWord, "");
+  /**
+   * Whether any class the type mentions, including type arguments, bounds, and array components, passes the test.
+   */
+  public static boolean anyClassOf(final Type type, final Predicate<Class<?>> test) {
+    if (type instanceof Class) {
+      Class<?> component = (Class<?>) type;
+      while (component.isArray()) component = component.getComponentType();
+      return test.test(component);
     }
-    return smaller.equalsIgnoreCase(expected);
+    if (type instanceof ParameterizedType) {
+      final ParameterizedType parameterized = (ParameterizedType) type;
+      if (anyClassOf(parameterized.getRawType(), test)) return true;
+      if (parameterized.getOwnerType() != null && anyClassOf(parameterized.getOwnerType(), test)) return true;
+      for (final Type arg : parameterized.getActualTypeArguments()) if (anyClassOf(arg, test)) return true;
+      return false;
+    }
+    if (type instanceof WildcardType) {
+      final WildcardType wildcard = (WildcardType) type;
+      for (final Type bound : wildcard.getUpperBounds()) if (anyClassOf(bound, test)) return true;
+      for (final Type bound : wildcard.getLowerBounds()) if (anyClassOf(bound, test)) return true;
+      return false;
+    }
+    if (type instanceof GenericArrayType) return anyClassOf(((GenericArrayType) type).getGenericComponentType(), test);
+    // bounds can refer back to the variable itself, so go by where it was declared instead
+    if (type instanceof TypeVariable) {
+      final GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+      if (declaration instanceof Class) return test.test((Class<?>) declaration);
+      return declaration instanceof Member && test.test(((Member) declaration).getDeclaringClass());
+    }
+    return false;
+  }
+
+  /**
+   * Whether the class was defined by the loader, or by one of the loaders below it.
+   */
+  public static boolean isDefinedWithin(final Class<?> type, final ClassLoader loader) {
+    for (ClassLoader definer = type.getClassLoader(); definer != null; definer = definer.getParent()) {
+      if (definer == loader) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Whether every class the type mentions can be seen from the loader, so that holding it alongside
+   * something of that loader's can't keep another loader from being collected.
+   */
+  public static boolean isVisibleFrom(final Type type, final ClassLoader loader) {
+    return !anyClassOf(type, c -> c.getClassLoader() != null && !isLoaderOrAncestor(c.getClassLoader(), loader));
+  }
+
+  private static boolean isLoaderOrAncestor(final ClassLoader candidate, final ClassLoader loader) {
+    for (ClassLoader next = loader; next != null; next = next.getParent()) {
+      if (next == candidate) return true;
+    }
+    return false;
   }
 
   public static String nameOf(final AnnotatedElement element) {
@@ -22,4 +81,20 @@ class Util {
     final Named named = element.getAnnotation(Named.class);
     return named == null || named.value().isEmpty() ? null : named.value();
   }
+
+  /**
+   * The type itself plus every superclass and interface, all the way up.
+   */
+  public static Set<Class<?>> supertypesOf(final Class<?> type) {
+    final Set<Class<?>> supertypes = new LinkedHashSet<>();
+    final Deque<Class<?>> pending = new ArrayDeque<>();
+    pending.push(type);
+    while (!pending.isEmpty()) {
+      final Class<?> next = pending.pop();
+      if (!supertypes.add(next)) continue;
+      if (next.getSuperclass() != null) pending.push(next.getSuperclass());
+      for (final Class<?> iface : next.getInterfaces()) pending.push(iface);
+    }
+    return supertypes;
+  }
 }
@@ -0,0 +1,21 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A bean which is expensive to build but not needed to start, so {@link DependencyInjectionContext#warmUp()}
+ * should build it in the background before anybody asks for it.
+ * <pre>
+ *   \@Named
+ *   \@WarmUp
+ *   public class SearchIndex { }
+ * </pre>
+ * @see DependencyInjectionContext#withWarmUp(Class[])
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WarmUp {
+}
@@ -0,0 +1,68 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Builds which have been scheduled in the background, so that a foreground request for the same type can either
+ * wait for the build already underway, or, if it hasn't started yet, take it over and do it right now.
+ * Either way the bean is only built once: whoever claims a task builds it, and everybody else waits for that result.
+ */
+class WarmUps {
+  private final Map<Class<?>, Task> tasks = new ConcurrentHashMap<>();
+
+  /**
+   * Schedule the type, or find the task already scheduled for it.
+   */
+  Task schedule(final Class<?> type) {
+    final Task task = new Task(type);
+    final Task existing = tasks.putIfAbsent(type, task);
+    return existing == null ? task : existing;
+  }
+
+  /**
+   * Build the task's bean if nobody has started to yet, or else wait for whoever has.
+   */
+  Object run(final Task task, final Supplier<Object> build) {
+    if (!task.claimed.compareAndSet(false, true)) {
+      try {
+        return task.result.join();
+      } catch (final CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+        throw e;
+      }
+    }
+    try {
+      final Object built = build.get();
+      task.result.complete(built);
+      return built;
+    } catch (final RuntimeException e) {
+      task.result.completeExceptionally(e);
+      throw e;
+    } finally {
+      tasks.remove(task.type, task);
+    }
+  }
+
+  /**
+   * @return NULL if the type isn't scheduled, or has already been built
+   */
+  Task taskFor(final Class<?> type) {
+    return tasks.isEmpty() ? null : tasks.get(type);
+  }
+
+  @RequiredArgsConstructor
+  static class Task {
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    @Getter
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+    private final Class<?> type;
+  }
+}
@@ -0,0 +1,15 @@
+package jakarta.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Stand-in for the Jakarta annotation, which isn't in the JDK, to run before the bean is let go.
+ * Lifecycle hooks are matched by name, so this is all the tests need.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PreDestroy {
+}
@@ -0,0 +1,84 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BeanPoolTest {
+  @Test
+  public void leasesAreReusedAndReset() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final PoolUser user = context.requireBean(PoolUser.class);
+    final BeanPool<PooledParser> pool = user.getParsers();
+    assertSame(context.poolFor(PooledParser.class), pool, "one pool per type");
+    assertSame(pool, user.getSupplier(), "supplier is the pool");
+    final PooledParser first = pool.lease();
+    first.used = true;
+    pool.release(first);
+    assertFalse(first.used, "reset");
+    assertSame(first, pool.lease(), "same thread gets it back");
+    final PooledParser second = pool.lease();
+    final PooledParser third = pool.lease();
+    assertNotSame(second, third, "built more");
+    pool.release(first);
+    pool.release(second);
+    pool.release(third);
+    assertEquals(2, pool.getIdleCount(), "bounded");
+    assertEquals(1, pool.getDiscardCount(), "discarded overflow");
+    assertEquals(1, PooledParser.CLOSED.get(), "destroyed overflow");
+    assertEquals(3, pool.getCreatedCount(), "created");
+    assertEquals(0.25d, pool.getHitRate(), 0.001d, "hit rate");
+    assertEquals(2, context.getStatistics().getPooledBeanCount(), "statistics");
+    assertTrue(context.validate(PoolUser.class).getProblems().stream().noneMatch(problem -> problem.getType() == PoolUser.class), "valid");
+  }
+
+  @Test
+  public void idlePoolsShrink() throws InterruptedException {
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withPooledRetention(ShrinkingParser.class, 4)
+      .withPoolIdleTimeout(Duration.ofMillis(20));
+    final BeanPool<ShrinkingParser> pool = context.poolFor(ShrinkingParser.class);
+    final ShrinkingParser first = pool.lease();
+    pool.release(first);
+    assertEquals(1, pool.getIdleCount(), "idle");
+    Thread.sleep(60);
+    assertNotSame(first, pool.lease(), "let the idle one go");
+    assertEquals(1, pool.getDiscardCount(), "discarded");
+    assertEquals(2, pool.getCreatedCount(), "built again");
+  }
+
+  @Getter
+  public static class PoolUser {
+    private final BeanPool<PooledParser> parsers;
+    private final Supplier<PooledParser> supplier;
+
+    public PoolUser(final BeanPool<PooledParser> parsers, final Supplier<PooledParser> supplier) {
+      this.parsers = parsers;
+      this.supplier = supplier;
+    }
+  }
+
+  @Retained(value = BeanRetention.POOLED, maxSize = 2)
+  public static class PooledParser implements AutoCloseable {
+    static final AtomicInteger CLOSED = new AtomicInteger();
+    boolean used;
+
+    @Override
+    public void close() {
+      CLOSED.incrementAndGet();
+    }
+
+    @Reset
+    void reset() {
+      used = false;
+    }
+  }
+
+  public static class ShrinkingParser {
+  }
+}
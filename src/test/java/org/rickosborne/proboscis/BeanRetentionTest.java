@@ -0,0 +1,104 @@
+package org.rickosborne.proboscis;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BeanRetentionTest {
+  public static final int BUILD_COUNT = 10_000;
+  public static final int PAYLOAD_SIZE = 4096;
+
+  private static int countReachable(final List<WeakReference<Object>> refs) {
+    int reachable = 0;
+    for (final WeakReference<Object> ref : refs) if (ref.get() != null) reachable++;
+    return reachable;
+  }
+
+  private static void collectGarbage(final List<WeakReference<Object>> refs) throws InterruptedException {
+    for (int i = 0; i < 20 && countReachable(refs) > 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void boundedKeepsOnlyTheMostRecent() {
+    final int maxSize = 4;
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withBoundedRetention(Payload.class, maxSize);
+    Object last = null;
+    for (int i = 0; i < BUILD_COUNT; i++) {
+      // every anonymous Type is a distinct type argument, so every build is a new instantiation
+      last = context.buildParameterizedBean(Payload.class, new Type() { });
+      assertTrue(context.getStatistics().getRetainedBeanCount() <= maxSize, "bounded");
+    }
+    assertEquals(maxSize, context.getStatistics().getRetainedBeanCount(), "full");
+    assertEquals(0, context.getStatistics().getParameterizedBeanCount(), "not held strongly");
+    assertNotNull(last, "last");
+  }
+
+  @Test
+  public void boundedLetsEvictedBeansGo() throws InterruptedException {
+    final int maxSize = 4;
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withBoundedRetention(Payload.class, maxSize);
+    final List<WeakReference<Object>> refs = new LinkedList<>();
+    for (int i = 0; i < BUILD_COUNT; i++) {
+      refs.add(new WeakReference<>(context.buildParameterizedBean(Payload.class, new Type() { })));
+      assertTrue(context.getStatistics().getRetainedBeanCount() <= maxSize, "bounded");
+    }
+    collectGarbage(refs);
+    assertTrue(countReachable(refs) <= maxSize, "only the retained are still reachable");
+    assertEquals(maxSize, context.getStatistics().getRetainedBeanCount(), "still full");
+  }
+
+  @Test
+  public void noneBuildsFreshAndHoldsNothing() throws InterruptedException {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final List<WeakReference<Object>> refs = new LinkedList<>();
+    for (int i = 0; i < BUILD_COUNT; i++) {
+      refs.add(new WeakReference<>(context.requireBean(TransientPayload.class)));
+    }
+    assertEquals(BUILD_COUNT, context.getStatistics().getBuildCount(), "built every time");
+    assertEquals(0, context.getStatistics().getKnownBeanCount(), "known");
+    assertEquals(0, context.getStatistics().getRetainedBeanCount(), "retained");
+    collectGarbage(refs);
+    assertEquals(0, countReachable(refs), "all collectable");
+  }
+
+  @Test
+  public void strongIsStillTheDefault() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final Payload first = context.requireBean(Payload.class);
+    assertSame(first, context.requireBean(Payload.class), "singleton");
+    assertEquals(1, context.getStatistics().getKnownBeanCount(), "known");
+  }
+
+  @Test
+  public void weakIsReusedWhileReferencedThenCollected() throws InterruptedException {
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withRetention(Payload.class, BeanRetention.WEAK);
+    Payload first = context.requireBean(Payload.class);
+    assertSame(first, context.requireBean(Payload.class), "reused while referenced");
+    final List<WeakReference<Object>> refs = new LinkedList<>();
+    refs.add(new WeakReference<>(first));
+    //noinspection UnusedAssignment
+    first = null;
+    collectGarbage(refs);
+    assertEquals(0, countReachable(refs), "collected");
+    assertEquals(0, context.getStatistics().getRetainedBeanCount(), "expunged");
+    assertNotNull(context.requireBean(Payload.class), "rebuilt");
+  }
+
+  public static class Payload {
+    private final byte[] buffer = new byte[PAYLOAD_SIZE];
+  }
+
+  @Retained(BeanRetention.NONE)
+  public static class TransientPayload extends Payload { }
+}
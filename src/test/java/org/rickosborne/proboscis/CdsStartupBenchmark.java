@@ -0,0 +1,79 @@
+package org.rickosborne.proboscis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares cold starts of a small context with and without an AppCDS archive of its wiring footprint.
+ * Not a unit test: run it by hand, with the test classes on the class path.
+ * <pre>
+ *   java -cp target/classes:target/test-classes:... org.rickosborne.proboscis.CdsStartupBenchmark 10
+ * </pre>
+ * Archives need a JDK which supports application class data sharing, 10 or later for the stock OpenJDK.
+ */
+public class CdsStartupBenchmark {
+  public static final String CLASS_LIST_PROPERTY = "proboscis.cds.classList";
+
+  public static void main(final String[] args) throws IOException, InterruptedException {
+    final int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    final String classPath = System.getProperty("java.class.path");
+    final Path work = Files.createTempDirectory("proboscis-cds");
+    final Path dumped = work.resolve("dumped.classlist");
+    final Path recorded = work.resolve("recorded.classlist");
+    final Path combined = work.resolve("combined.classlist");
+    final Path archive = work.resolve("proboscis.jsa");
+    final List<String> training = new ArrayList<>(ClassListRecorder.trainingFlags(dumped));
+    training.add("-D" + CLASS_LIST_PROPERTY + "=" + recorded.toAbsolutePath());
+    time(classPath, training);
+    final ClassListRecorder recorder = new ClassListRecorder().mergeFrom(dumped).mergeFrom(recorded);
+    recorder.write(combined);
+    System.out.println("Class list: " + recorder.size() + " classes");
+    ClassListRecorder.createArchive(combined, archive, classPath);
+    final List<Long> without = new ArrayList<>();
+    final List<Long> with = new ArrayList<>();
+    for (int i = 0; i < runs; i++) {
+      without.add(time(classPath, Collections.singletonList("-Xshare:auto")));
+      with.add(time(classPath, ClassListRecorder.runFlags(archive)));
+    }
+    System.out.println("Without archive, median ms: " + median(without));
+    System.out.println("With archive, median ms: " + median(with));
+  }
+
+  private static long median(final List<Long> millis) {
+    final List<Long> sorted = new ArrayList<>(millis);
+    Collections.sort(sorted);
+    return sorted.get(sorted.size() / 2);
+  }
+
+  private static long time(final String classPath, final List<String> flags) throws IOException, InterruptedException {
+    final List<String> command = new ArrayList<>();
+    command.add(ClassListRecorder.javaExecutable());
+    command.addAll(flags);
+    command.addAll(Arrays.asList("-cp", classPath, StartupProbe.class.getName()));
+    final long start = System.nanoTime();
+    final Process process = new ProcessBuilder(command).inheritIO().start();
+    if (process.waitFor() != 0) throw new IllegalStateException("Probe failed: " + command);
+    return (System.nanoTime() - start) / 1_000_000L;
+  }
+
+  /**
+   * A representative startup: scan, wire, and build a handful of beans.
+   */
+  public static class StartupProbe {
+    public static void main(final String[] args) {
+      final DependencyInjectionContext context = new DependencyInjectionContext();
+      final String classList = System.getProperty(CLASS_LIST_PROPERTY);
+      final ClassListRecorder recorder = classList == null ? null : ClassListRecorder.attach(context);
+      context.requireBean(DependencyInjectionContextTest.RequiresByTypeBean.class);
+      context.requireBean(DependencyInjectionContextTest.RequiresInjectionBean.class);
+      context.requireBean(DependencyInjectionContextTest.RequiresAllTestBeans.class);
+      if (recorder != null) recorder.write(Paths.get(classList));
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.rickosborne.proboscis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassListRecorderTest {
+  @Test
+  public void recordsWhatTheContextLoads() throws IOException {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final ClassListRecorder recorder = ClassListRecorder.attach(context);
+    context.requireBean(DependencyInjectionContextTest.RequiresByTypeBean.class);
+    final Path dumped = Files.createTempFile("dumped", ".classlist");
+    Files.write(dumped, Arrays.asList("# comment", "java/lang/String id: 1", "@lambda-proxy whatever", "com/example/Extra"), StandardCharsets.UTF_8);
+    final Path written = Files.createTempFile("written", ".classlist");
+    recorder.mergeFrom(dumped).write(written);
+    final List<String> lines = Files.readAllLines(written, StandardCharsets.UTF_8);
+    assertTrue(lines.contains(DependencyInjectionContextTest.RequiresByTypeBean.class.getName().replace('.', '/')), "built");
+    assertTrue(lines.contains(DependencyInjectionContextTest.TestNamedBean.class.getName().replace('.', '/')), "named");
+    assertTrue(lines.contains("java/lang/Object"), "supertypes");
+    assertTrue(lines.contains("java/lang/String"), "merged, without id");
+    assertTrue(lines.contains("com/example/Extra"), "merged");
+    assertFalse(lines.stream().anyMatch(line -> line.startsWith("#") || line.startsWith("@")), "no comments");
+    assertEquals(lines.size(), recorder.size(), "size");
+    assertTrue(ClassListRecorder.dumpCommand(written, dumped, "cp").contains("-Xshare:dump"), "dump command");
+    Files.delete(dumped);
+    Files.delete(written);
+  }
+}
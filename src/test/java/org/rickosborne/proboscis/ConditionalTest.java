@@ -0,0 +1,51 @@
+package org.rickosborne.proboscis;
+
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConditionalTest {
+  private static final String FEATURE = ConditionalTest.class.getName() + "$ConditionalFeature";
+  private static final String MISSING_CLASS = ConditionalTest.class.getName() + "$ConditionalOnMissingClass";
+  private static final String NEEDS_FEATURE = ConditionalTest.class.getName() + "$ConditionalOnFeature";
+
+  private static Set<String> namedTypes(final Map<String, String> properties) {
+    return DependencyInjectionContext.findNamedTypes(PropertySource.of(properties)).keySet().stream()
+      .map(Class::getName)
+      .collect(Collectors.toSet());
+  }
+
+  @Test
+  public void conditionsAreDecidedBeforeLoading() {
+    final Set<String> off = namedTypes(Collections.emptyMap());
+    assertFalse(off.contains(FEATURE), "property missing");
+    assertFalse(off.contains(NEEDS_FEATURE), "bean missing");
+    assertFalse(off.contains(MISSING_CLASS), "class missing");
+    assertFalse(namedTypes(Collections.singletonMap("proboscis.test.feature", "off")).contains(FEATURE), "property mismatch");
+    final Set<String> on = namedTypes(Collections.singletonMap("proboscis.test.feature", "ON"));
+    assertTrue(on.contains(FEATURE), "property matches");
+    assertTrue(on.contains(NEEDS_FEATURE), "bean present");
+    assertFalse(on.contains(MISSING_CLASS), "class still missing");
+  }
+
+  @Named
+  @Conditional(property = "proboscis.test.feature", havingValue = "on")
+  public static class ConditionalFeature {
+  }
+
+  @Named
+  @Conditional(onBean = ConditionalFeature.class)
+  public static class ConditionalOnFeature {
+  }
+
+  @Named
+  @Conditional(onClass = "org.rickosborne.proboscis.DoesNotExist")
+  public static class ConditionalOnMissingClass {
+  }
+}
@@ -9,7 +9,21 @@ import org.rickosborne.proboscis.ex.NoSuchBeanException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -60,6 +74,75 @@ public class DependencyInjectionContextTest {
     return new DependencyInjectionContext();
   }
 
+  @Test
+  public void freezeSnapshotsBeansAndRejectsRegistration() {
+    final DependencyInjectionContext context = emptyContext();
+    final RequiresByTypeBean built = context.requireBean(RequiresByTypeBean.class);
+    final ManualBean manual = new ManualBean();
+    context.registerBean(ManualBean.class, manual, MANUAL_NAMED);
+    final FrozenContext frozen = context.freeze();
+    assertSame(built, frozen.requireBean(RequiresByTypeBean.class), "same bean");
+    assertSame(manual, frozen.findBeanByName(MANUAL_NAMED.toUpperCase(), ManualBean.class), "by name");
+    assertSame(manual, frozen.findBeanByType(ManualBean.class), "by type");
+    assertSame(built.getUnnamed(), frozen.findBeanByType(ITestBean.class), "its dependency, shared");
+    assertTrue(frozen.implementationsFor(ITestBean.class).contains(TestNamedBean.class), "implementations");
+    assertSame(frozen.implementationsFor(ITestBean.class), frozen.implementationsFor(ITestBean.class), "cached");
+    assertEquals(Boolean.TRUE, frozen.isAssignable(ITestBean.class, TestUnnamedBean.class), "assignable");
+    assertEquals(Boolean.FALSE, frozen.isAssignable(TestUnnamedBean.class, ITestBean.class), "not assignable");
+    assertThrows(IllegalStateException.class, () -> context.registerBean(ManualBean.class, new ManualBean(), null));
+    assertSame(built, context.requireBean(RequiresByTypeBean.class), "still finds what it has");
+    assertThrows(IllegalStateException.class, () -> context.buildBean(RequiresManualBean.class), "but builds nothing new");
+    final DependencyInjectionContext child = frozen.newChild();
+    assertSame(built, child.requireBean(RequiresByTypeBean.class), "child sees parent");
+    final ManualBean other = new ManualBean();
+    child.registerBean(ManualBean.class, other, "other");
+    assertSame(manual, child.requireBean(ManualBean.class), "parent wins");
+  }
+
+  @Test
+  public void freezeKeepsTheFirstRegisteredBeanOfAType() {
+    final DependencyInjectionContext context = emptyContext();
+    final List<ManualTestBean> beans = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      final ManualTestBean bean = new ManualTestBean();
+      beans.add(bean);
+      context.registerBean(ManualTestBean.class, bean, "manual" + i);
+    }
+    final FrozenContext frozen = context.freeze();
+    assertSame(beans.get(0), frozen.findBeanByType(ManualTestBean.class), "registration order, not hash order");
+    assertSame(beans.get(31), frozen.findBeanByName("MANUAL31", ManualTestBean.class), "all of them by name");
+  }
+
+  @Test
+  public void implementationsAreIndexedAndUpdatedOnRegistration() {
+    final DependencyInjectionContext context = emptyContext();
+    final Set<Class<? extends ITestBean>> before = context.implementationsFor(ITestBean.class);
+    assertTrue(before.contains(TestNamedBean.class), "named");
+    assertTrue(before.contains(TestUnnamedBean.class), "unnamed");
+    assertSame(before, context.implementationsFor(ITestBean.class), "cached");
+    assertThrows(UnsupportedOperationException.class, () -> before.add(null), "immutable");
+    final ManualTestBean manual = new ManualTestBean();
+    context.registerBean(ManualTestBean.class, manual, null);
+    final Set<Class<? extends ITestBean>> after = context.implementationsFor(ITestBean.class);
+    assertTrue(after.contains(ManualTestBean.class), "registered");
+    assertEquals(before.size() + 1, after.size(), "one more");
+    assertFalse(before.contains(ManualTestBean.class), "earlier set untouched");
+  }
+
+  @Test
+  public void collectionsGetEveryImplementation() {
+    final DependencyInjectionContext context = emptyContext();
+    final RequiresAllTestBeans bean = context.requireBean(RequiresAllTestBeans.class);
+    assertTrue(bean.getByName().get(TEST_NAMED) instanceof TestNamedBean, "by name");
+    assertTrue(bean.getByName().get(TestUnnamedBean.class.getSimpleName()) instanceof TestUnnamedBean, "by simple name");
+    assertEquals(bean.getByName().size(), bean.getList().size(), "same members");
+    assertEquals(bean.getList().size(), bean.getSet().size(), "set");
+    assertThrows(UnsupportedOperationException.class, () -> bean.getList().add(null), "immutable");
+    assertSame(bean.getList(), context.buildAll(ITestBean.class), "resolved once");
+    context.registerBean(ManualTestBean.class, new ManualTestBean(), null);
+    assertEquals(bean.getList().size() + 1, context.buildAll(ITestBean.class).size(), "registration invalidates");
+  }
+
   @Test
   public void injection() {
     final RequiresInjectionBean bean = emptyContext().buildBean(RequiresInjectionBean.class);
@@ -98,6 +181,56 @@ public class DependencyInjectionContextTest {
     assertEquals(manualBean, bean.getManual(), "Same Manual Bean");
   }
 
+  @Test
+  public void mBeanPublishesStatistics() throws JMException {
+    final DependencyInjectionContext context = emptyContext();
+    final ObjectName name = context.registerMBean();
+    try {
+      assertEquals(name, context.registerMBean(), "idempotent");
+      context.requireBean(RequiresByTypeBean.class);
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertEquals(context.getStatistics().getBuildCount(), server.getAttribute(name, "BuildCount"), "BuildCount");
+      assertEquals(context.getStatistics().getKnownBeanCount(), server.getAttribute(name, "KnownBeanCount"), "KnownBeanCount");
+    } finally {
+      context.unregisterMBean();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name), "unregistered");
+  }
+
+  @Test
+  public void metersCountLookupsBuildsAndFailures() {
+    final List<Class<?>> built = new LinkedList<>();
+    final DependencyInjectionContext context = emptyContext().withMeter(new ContextMeter() {
+      @Override
+      public void built(final Class<?> type, final long nanos) {
+        built.add(type);
+      }
+    });
+    final ContextStatistics stats = context.getStatistics();
+    context.requireBean(RequiresByTypeBean.class);
+    final long builds = stats.getBuildCount();
+    assertTrue(builds > 0, "built");
+    assertTrue(stats.getBuildNanos() > 0, "build time");
+    assertTrue(built.contains(RequiresByTypeBean.class), "custom meter heard about it");
+    assertTrue(stats.getKnownBeanCount() > 0, "known beans");
+    final long typeHits = stats.getByTypeHitCount();
+    context.requireBean(RequiresByTypeBean.class);
+    assertEquals(builds, stats.getBuildCount(), "not rebuilt");
+    assertEquals(typeHits + 1, stats.getByTypeHitCount(), "hit");
+    assertTrue(stats.getByTypeHitRate() > 0d, "hit rate");
+    final ManualBean manual = new ManualBean();
+    context.registerBean(ManualBean.class, manual, MANUAL_NAMED);
+    assertSame(manual, context.findBeanByName(MANUAL_NAMED.toUpperCase(), ManualBean.class), "by name, whatever the case");
+    assertNull(context.findBeanByName(MANUAL_NAMED, RequiresByTypeBean.class), "not that type");
+    assertEquals(1, stats.getByNameHitCount(), "name hit");
+    assertEquals(0.5d, stats.getByNameHitRate(), 0.0001d, "name hit rate");
+    assertThrows(NoSuchBeanException.class, () -> context.requireBean(RequiresMissingNamedBean.class));
+    assertEquals(1, stats.getExceptionCount(), "counted once, not per frame");
+    assertTrue(stats.getNegativeLookupCount() > 0, "negative lookup");
+    stats.reset();
+    assertEquals(0, stats.getBuildCount(), "reset");
+  }
+
   @Test
   public void requireThrowsForMissingName() {
     final NoSuchBeanException error = assertThrows(NoSuchBeanException.class, () -> emptyContext().requireBean(RequiresMissingNamedBean.class));
@@ -115,6 +248,54 @@ public class DependencyInjectionContextTest {
     assertEquals(TEST_PROPERTY_DEFAULT, withDefault.getValue());
   }
 
+  @Test
+  public void systemPropertiesAreTypedAndSnapshotted() {
+    final Map<String, String> values = new HashMap<>();
+    values.put(TEST_PROPERTY + ".count", "42");
+    values.put(TEST_PROPERTY + ".timeout", "PT1.5S");
+    values.put(TEST_PROPERTY + ".unit", "seconds");
+    values.put(TEST_PROPERTY + ".names", "a, b,c");
+    values.put(TEST_PROPERTY + ".limit", "9000000000");
+    final DependencyInjectionContext context = emptyContext().withPropertySource(PropertySource.of(values));
+    values.clear();
+    final RequiresTypedProperties bean = context.requireBean(RequiresTypedProperties.class);
+    assertEquals(42, bean.getCount(), "int");
+    assertEquals(Duration.ofMillis(1500), bean.getTimeout(), "Duration");
+    assertEquals(TimeUnit.SECONDS, bean.getUnit(), "enum");
+    assertEquals(Arrays.asList("a", "b", "c"), bean.getNames(), "list");
+    assertEquals(9_000_000_000L, bean.getLimit(), "long field");
+    assertEquals(Duration.ofSeconds(30), bean.getFallback(), "default");
+  }
+
+  @Test
+  public void validateReportsEveryProblemWithoutBuilding() {
+    final DependencyInjectionContext context = emptyContext();
+    final DependencyGraph graph = context.validate(RequiresAllTestBeans.class, RequiresByTypeBean.class, RequiresMissingNamedBean.class);
+    assertEquals(0, context.getStatistics().getBuildCount(), "built nothing");
+    assertFalse(graph.isValid(), "invalid");
+    final Map<DependencyGraph.Problem.Kind, List<Class<?>>> problems = new HashMap<>();
+    for (final DependencyGraph.Problem problem : graph.getProblems()) problems.computeIfAbsent(problem.getKind(), k -> new LinkedList<>()).add(problem.getType());
+    assertEquals(Collections.singletonList(CycleEnd.class), problems.get(DependencyGraph.Problem.Kind.CYCLE), "cycle");
+    assertTrue(problems.get(DependencyGraph.Problem.Kind.MISSING).contains(RequiresMissingNamedBean.class), "missing");
+    final DependencyGraph.Node byType = graph.getNodes().get(RequiresByTypeBean.class);
+    assertEquals(1, byType.getDepth(), "depth");
+    assertEquals(1, byType.getFanOut(), "fan-out");
+    assertTrue(graph.getNodes().get(RequiresAllTestBeans.class).getFanOut() >= 2, "every implementation");
+    assertTrue(graph.toDot().contains("\"" + RequiresByTypeBean.class.getName() + "\" -> \"" + TestUnnamedBean.class.getName() + "\""), "dot edge");
+    assertTrue(graph.toJson().startsWith("{\"nodes\":["), "json");
+  }
+
+  @Test
+  public void validateChoosesImplementationsLikeTheFactory() {
+    final DependencyInjectionContext context = emptyContext();
+    final DependencyGraph graph = context.validate(RequiresPrioritized.class);
+    assertTrue(graph.getProblems().stream().noneMatch(problem -> problem.getKind() == DependencyGraph.Problem.Kind.AMBIGUOUS), "priority settles it");
+    final List<DependencyGraph.Edge> edges = graph.getNodes().get(RequiresPrioritized.class).getEdges();
+    assertEquals(1, edges.size(), "one dependency");
+    assertSame(PreferredPrioritized.class, edges.get(0).getTo(), "the preferred one");
+    assertTrue(context.requireBean(RequiresPrioritized.class).getPrioritized() instanceof PreferredPrioritized, "same as built");
+  }
+
   @Test
   public void typeParamsAreInjected() {
     final HasParameterizedParam tested = emptyContext().buildBean(HasParameterizedParam.class);
@@ -123,6 +304,21 @@ public class DependencyInjectionContextTest {
     assertEquals(ManualBean.class, tested.getRtp().getParamClass(), "parameterized type class");
   }
 
+  @Named
+  public static class CycleEnd {
+    public CycleEnd(final CycleStart start) {
+    }
+  }
+
+  @Named
+  public static class CycleStart {
+    public CycleStart(final CycleEnd end) {
+    }
+  }
+
+  @Named
+  public static class FallbackPrioritized implements IPrioritized {}
+
   @RequiredArgsConstructor
   @Getter
   public static class HasParameterizedParam {
@@ -139,6 +335,8 @@ public class DependencyInjectionContextTest {
     }
   }
 
+  public interface IPrioritized {}
+
   public interface ITestBean {}
 
   /**
@@ -149,8 +347,19 @@ public class DependencyInjectionContextTest {
     private final UUID id = UUID.randomUUID();
   }
 
+  public static class ManualTestBean implements ITestBean {}
+
   public static class NoArgConstructedBean {}
 
+  @Getter
+  @RequiredArgsConstructor
+  public static class RequiresAllTestBeans {
+    private final Map<String, ITestBean> byName;
+    private final List<ITestBean> list;
+    @Inject
+    private Set<ITestBean> set;
+  }
+
   @Getter
   public static class RequiresByNameBean {
     private final ITestBean named;
@@ -160,6 +369,16 @@ public class DependencyInjectionContextTest {
     }
   }
 
+  @Named
+  @Priority(-1)
+  public static class PreferredPrioritized implements IPrioritized {}
+
+  @RequiredArgsConstructor
+  @Getter
+  public static class RequiresPrioritized {
+    private final IPrioritized prioritized;
+  }
+
   @RequiredArgsConstructor
   @Getter
   public static class RequiresByTypeBean {
@@ -203,6 +422,30 @@ public class DependencyInjectionContextTest {
     }
   }
 
+  @Getter
+  public static class RequiresTypedProperties {
+    private final int count;
+    @SystemProperty(value = TEST_PROPERTY + ".fallback", defaultValue = "30s")
+    private Duration fallback;
+    @SystemProperty(TEST_PROPERTY + ".limit")
+    private long limit;
+    private final List<String> names;
+    private final Duration timeout;
+    private final TimeUnit unit;
+
+    public RequiresTypedProperties(
+      @SystemProperty(TEST_PROPERTY + ".count") final int count,
+      @SystemProperty(TEST_PROPERTY + ".timeout") final Duration timeout,
+      @SystemProperty(TEST_PROPERTY + ".unit") final TimeUnit unit,
+      @SystemProperty(TEST_PROPERTY + ".names") final List<String> names
+    ) {
+      this.count = count;
+      this.names = names;
+      this.timeout = timeout;
+      this.unit = unit;
+    }
+  }
+
   @RequiredArgsConstructor
   @Getter
   public static class StaticConstructedBean {
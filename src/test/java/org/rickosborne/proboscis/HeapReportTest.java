@@ -0,0 +1,84 @@
+package org.rickosborne.proboscis;
+
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeapReportTest {
+  @Test
+  public void beansAreRankedByWhatTheyRetain() {
+    final PriceCache cache = new PriceCache();
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .registerBean(PriceCache.class, cache, null)
+      .registerBean(PriceService.class, new PriceService(cache), null);
+    final HeapReport report = context.measureHeap();
+    assertFalse(report.isInstrumented(), "estimated");
+    final HeapReport.Entry top = report.getEntries().get(0);
+    assertEquals(PriceCache.class, top.getType(), "cache first");
+    assertTrue(top.getRetainedBytes() > 100 * top.getShallowBytes(), "retains its entries");
+    final HeapReport.Entry serviceEntry = find(report, PriceService.class);
+    assertEquals(Collections.singletonList(PriceCache.class), serviceEntry.getDependencies(), "depends on the cache");
+    assertTrue(serviceEntry.getRetainedBytes() < top.getRetainedBytes(), "cache isn't the service's own");
+    assertTrue(serviceEntry.getSubtreeBytes() >= serviceEntry.getRetainedBytes() + top.getRetainedBytes(), "subtree includes the cache");
+    assertEquals(1, report.getLargeCollections().size(), "one large collection");
+    final HeapReport.LargeCollection large = report.getLargeCollections().get(0);
+    assertEquals(PriceCache.class, large.getOwner(), "owner");
+    assertEquals("prices", large.getVia(), "via");
+    assertEquals(HeapReport.LARGE_COLLECTION_SIZE, large.getSize(), "size");
+    assertTrue(report.getDuplicates().isEmpty(), "no duplicates");
+    assertTrue(report.toText().contains(PriceCache.class.getName()), "text");
+  }
+
+  @Test
+  public void duplicateSingletonsAndSharedObjectsAreReported() {
+    final Map<String, Long> shared = new HashMap<>();
+    shared.put("a", 1L);
+    // registering would replace the first, so as if two threads raced to build it
+    final Map<Object, String> beans = new IdentityHashMap<>();
+    beans.put(new Ledger(shared), "ledger");
+    beans.put(new Ledger(shared), "ledger");
+    final HeapReport report = new HeapAccounting(beans, null).measure();
+    assertEquals(1, report.getDuplicates().size(), "one duplicate");
+    assertEquals(new HeapReport.Duplicate(Ledger.class, "ledger", 2), report.getDuplicates().get(0), "both ledgers");
+    assertTrue(report.getSharedBytes() > 0, "the map is shared");
+    for (final HeapReport.Entry entry : report.getEntries()) assertEquals(entry.getShallowBytes(), entry.getRetainedBytes(), "only itself");
+  }
+
+  private static HeapReport.Entry find(final HeapReport report, final Class<?> type) {
+    for (final HeapReport.Entry entry : report.getEntries()) if (entry.getType() == type) return entry;
+    throw new AssertionError("No entry for " + type.getSimpleName());
+  }
+
+  public static class Ledger {
+    private final Map<String, Long> balances;
+
+    public Ledger(final Map<String, Long> balances) {
+      this.balances = balances;
+    }
+  }
+
+  @Named
+  public static class PriceCache {
+    private final Map<Integer, Double> prices = new HashMap<>();
+
+    public PriceCache() {
+      for (int i = 0; i < HeapReport.LARGE_COLLECTION_SIZE; i++) prices.put(i, i * 1.5);
+    }
+  }
+
+  @Named
+  public static class PriceService {
+    private final PriceCache cache;
+    private final String currency = "USD";
+
+    public PriceService(final PriceCache cache) {
+      this.cache = cache;
+    }
+  }
+}
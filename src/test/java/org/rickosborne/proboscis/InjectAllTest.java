@@ -0,0 +1,63 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InjectAllTest {
+  @Test
+  public void batchesAreInjectedPerClass() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final List<Object> batch = new ArrayList<>();
+    final int orderCount = DependencyInjectionContext.INJECT_CHUNK_SIZE * 3 + 7;
+    for (int i = 0; i < orderCount; i++) batch.add(new Order());
+    final Shipment preset = new Shipment();
+    final Carrier carrier = new Carrier();
+    preset.carrier = carrier;
+    batch.add(preset);
+    batch.add(new Shipment());
+    final InjectionReport report = context.injectAll(batch);
+    assertEquals(Arrays.asList(Order.class, Shipment.class), new ArrayList<>(report.getByType().keySet()), "grouped, in order");
+    assertEquals(orderCount, report.getByType().get(Order.class).getObjects(), "orders");
+    assertEquals(orderCount, report.getByType().get(Order.class).getWrites(), "one write each");
+    assertEquals(1, report.getByType().get(Shipment.class).getWrites(), "preset left alone");
+    assertEquals(orderCount + 2, report.getObjectCount(), "objects");
+    final Pricing first = ((Order) batch.get(0)).getPricing();
+    assertNotNull(first, "injected");
+    for (int i = 0; i < orderCount; i++) assertSame(first, ((Order) batch.get(i)).getPricing(), "resolved once");
+    assertSame(carrier, preset.carrier, "kept");
+  }
+
+  @Test
+  public void streamsWork() {
+    final InjectionReport report = new DependencyInjectionContext().injectAll(Stream.of(new Order(), new Order()));
+    assertEquals(2, report.getWriteCount(), "writes");
+  }
+
+  @Named
+  public static class Carrier {
+  }
+
+  public static class Order {
+    @Getter
+    @Inject
+    private Pricing pricing;
+  }
+
+  @Named
+  public static class Pricing {
+  }
+
+  public static class Shipment {
+    @Inject
+    private Carrier carrier;
+  }
+}
@@ -0,0 +1,71 @@
+package org.rickosborne.proboscis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Proxy;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Compares the cost of a call through a generated interceptor subclass against a direct call,
+ * and against the same pass-through interceptor done with a {@link Proxy}.
+ * Not a unit test: run it by hand, with the test classes on the class path.
+ * <pre>
+ *   java -cp target/classes:target/test-classes:... org.rickosborne.proboscis.InterceptionBenchmark 50000000
+ * </pre>
+ * Each variant is warmed up with the same number of calls first, so the JIT has had its chance.
+ */
+public class InterceptionBenchmark {
+  private static volatile int sink;
+
+  public static void main(final String[] args) {
+    final int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withInterceptor(PassThrough.class, Invocation::proceed);
+    final Adder direct = new Adder();
+    final Adder intercepted = context.requireBean(Adder.class);
+    final TimedAdder timed = context.requireBean(TimedAdder.class);
+    final IntUnaryOperator proxied = (IntUnaryOperator) Proxy.newProxyInstance(
+      InterceptionBenchmark.class.getClassLoader(),
+      new Class<?>[]{IntUnaryOperator.class},
+      (proxy, method, methodArgs) -> method.invoke(direct, methodArgs));
+    for (int round = 0; round < 2; round++) {
+      final boolean report = round == 1;
+      time("Direct", report, calls, direct);
+      time("Intercepted", report, calls, intercepted);
+      time("Timed", report, calls, timed);
+      time("Proxy", report, calls, proxied);
+    }
+  }
+
+  private static void time(final String label, final boolean report, final int calls, final IntUnaryOperator operator) {
+    final long started = System.nanoTime();
+    int total = 0;
+    for (int i = 0; i < calls; i++) total += operator.applyAsInt(i);
+    final long nanos = System.nanoTime() - started;
+    sink = total;
+    if (report) System.out.printf("%-12s %6.2f ns/call%n", label, ((double) nanos) / calls);
+  }
+
+  @Target(ElementType.METHOD)
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface PassThrough {
+  }
+
+  public static class Adder implements IntUnaryOperator {
+    @Override
+    @PassThrough
+    public int applyAsInt(final int operand) {
+      return operand + 1;
+    }
+  }
+
+  public static class TimedAdder implements IntUnaryOperator {
+    @Override
+    @Timed
+    public int applyAsInt(final int operand) {
+      return operand + 1;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterceptionTest {
+  @Test
+  public void timedMethodsFeedTheStatistics() throws IOException {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final Renderer renderer = context.requireBean(Renderer.class);
+    assertTrue(renderer instanceof Intercepted, "generated subclass");
+    assertEquals("<b>", renderer.render("b"), "still works");
+    assertEquals(3, renderer.length(new int[]{1, 2, 3}), "primitives");
+    assertThrows(IOException.class, () -> renderer.fail(), "checked exceptions pass through");
+    renderer.untimed();
+    assertEquals(3, context.getStatistics().getTimedCallCount(), "timed only the annotated ones");
+    assertEquals(1, context.getStatistics().getTimedFailureCount(), "failures");
+    assertNotNull(renderer.getClock(), "constructor arguments passed along");
+    assertSame(renderer, context.requireBean(Renderer.class), "kept as the bean");
+  }
+
+  @Test
+  public void chainsRunInOrder() {
+    final List<String> calls = new ArrayList<>();
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withInterceptor(Audited.class, invocation -> {
+        calls.add("outer " + invocation.getMethod().getName());
+        return invocation.proceed();
+      })
+      .withInterceptor(Audited.class, invocation -> {
+        calls.add("inner");
+        final Object[] arguments = invocation.getArguments();
+        if (arguments.length > 0) arguments[0] = ((String) arguments[0]).toUpperCase();
+        return invocation.proceed();
+      });
+    final Ledger ledger = context.requireBean(Ledger.class);
+    ledger.record("entry");
+    assertEquals(Arrays.asList("outer record", "inner"), calls, "outermost first, each once");
+    assertEquals("ENTRY", ledger.getLast(), "arguments can be replaced");
+    assertEquals("outer getLast", calls.get(2), "bean-wide");
+  }
+
+  @Test
+  public void interceptorsCanProceedAgain() {
+    final List<String> calls = new ArrayList<>();
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withInterceptor(Audited.class, invocation -> {
+        invocation.proceed();
+        return invocation.proceed();
+      })
+      .withInterceptor(Audited.class, invocation -> {
+        calls.add("inner " + invocation.getArguments()[0]);
+        return invocation.proceed();
+      });
+    context.requireBean(Ledger.class).record("twice");
+    assertEquals(Arrays.asList("inner twice", "inner twice"), calls, "the rest of the chain, each time");
+  }
+
+  @Test
+  public void finalMethodsCantBeIntercepted() {
+    assertThrows(IllegalArgumentException.class, () -> new DependencyInjectionContext().buildBean(FinalTimed.class));
+  }
+
+  @Target({ElementType.METHOD, ElementType.TYPE})
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface Audited {
+  }
+
+  @Named
+  public static class Clock {
+  }
+
+  public static class FinalTimed {
+    @Timed
+    public final void tick() {
+    }
+  }
+
+  @Audited
+  public static class Ledger {
+    @Getter
+    private String last;
+
+    public void record(final String entry) {
+      last = entry;
+    }
+  }
+
+  public static class Renderer {
+    @Getter
+    private final Clock clock;
+
+    public Renderer(final Clock clock) {
+      this.clock = clock;
+    }
+
+    @Timed
+    public void fail() throws IOException {
+      throw new IOException("nope");
+    }
+
+    @Timed
+    int length(final int[] values) {
+      return values.length;
+    }
+
+    @Timed
+    public String render(final String tag) {
+      return "<" + tag + ">";
+    }
+
+    public void untimed() {
+    }
+  }
+}
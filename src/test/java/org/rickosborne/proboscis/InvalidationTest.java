@@ -0,0 +1,101 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvalidationTest {
+  @Test
+  public void replacingABeanForgetsOnlyItsDependents() {
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .registerBean(InvalidationClock.class, new FixedClock("before"), null);
+    final Scheduler scheduler = context.requireBean(Scheduler.class);
+    final Dashboard dashboard = context.requireBean(Dashboard.class);
+    final Unrelated unrelated = context.requireBean(Unrelated.class);
+    assertSame(scheduler, dashboard.getScheduler(), "shared");
+    assertEquals("before", scheduler.getClock().zone(), "old clock");
+    context.registerBean(InvalidationClock.class, new FixedClock("after"), null);
+    assertTrue(scheduler.isClosed(), "destroyed");
+    assertNull(context.findBeanByType(Scheduler.class), "scheduler forgotten");
+    assertNull(context.findBeanByType(Dashboard.class), "dependent of a dependent forgotten");
+    assertSame(unrelated, context.findBeanByType(Unrelated.class), "unrelated kept");
+    assertEquals("after", context.requireBean(Scheduler.class).getClock().zone(), "rebuilt with the new clock");
+    assertNotSame(dashboard, context.requireBean(Dashboard.class), "dashboard rebuilt");
+    assertEquals(3, context.getStatistics().getInvalidatedBeanCount(), "clock, scheduler, dashboard");
+  }
+
+  @Test
+  public void batchInjectedObjectsAreInvalidatedToo() {
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .registerBean(InvalidationClock.class, new FixedClock("before"), null);
+    final List<Report> reports = Arrays.asList(new Report(), new Report());
+    context.injectAll(reports);
+    assertNotNull(reports.get(0).getScheduler(), "injected");
+    context.registerBean(InvalidationClock.class, new FixedClock("after"), null);
+    assertEquals(4, context.getStatistics().getInvalidatedBeanCount(), "clock, scheduler, and both reports");
+  }
+
+  @Test
+  public void rebuildOnOverrideBuildsRightAway() {
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withRebuildOnOverride(true)
+      .registerBean(InvalidationClock.class, new FixedClock("before"), null);
+    final Scheduler scheduler = context.requireBean(Scheduler.class);
+    context.registerBean(InvalidationClock.class, new FixedClock("after"), null);
+    final Scheduler rebuilt = context.findBeanByType(Scheduler.class);
+    assertNotNull(rebuilt, "rebuilt");
+    assertNotSame(scheduler, rebuilt, "new");
+    assertEquals("after", rebuilt.getClock().zone(), "new clock");
+  }
+
+  @Named
+  @Getter
+  @RequiredArgsConstructor
+  public static class Dashboard {
+    private final Scheduler scheduler;
+  }
+
+  @RequiredArgsConstructor
+  public static class FixedClock implements InvalidationClock {
+    private final String zone;
+
+    @Override
+    public String zone() {
+      return zone;
+    }
+  }
+
+  public interface InvalidationClock {
+    String zone();
+  }
+
+  @Getter
+  public static class Report {
+    @Inject
+    private Scheduler scheduler;
+  }
+
+  @Named
+  @Getter
+  @RequiredArgsConstructor
+  public static class Scheduler implements AutoCloseable {
+    private final InvalidationClock clock;
+    private boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @Named
+  public static class Unrelated {
+  }
+}
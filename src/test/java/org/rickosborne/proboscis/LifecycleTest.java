@@ -0,0 +1,249 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LifecycleTest {
+  private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+  @BeforeEach
+  public void clearEvents() {
+    EVENTS.clear();
+  }
+
+  /**
+   * Long enough for anything destroyed at the same time to land in between.
+   */
+  private static void slowly(final String event) throws InterruptedException {
+    EVENTS.add(event + "-start");
+    Thread.sleep(50);
+    EVENTS.add(event + "-end");
+  }
+
+  @Test
+  public void beansWithoutHooksStillOrderShutdown() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    context.requireBean(ChainTop.class);
+    assertEquals(2, context.countManagedBeans(), "only the hooked ones");
+    assertTrue(context.shutdown(Duration.ofSeconds(5)).isClean(), "clean");
+    assertEquals(Arrays.asList("top-start", "top-end", "bottom"), EVENTS, "through the middle");
+  }
+
+  @Test
+  public void hooksRunAroundTheBeansLife() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final LifecycleService service = context.requireBean(LifecycleService.class);
+    assertTrue(service.getRepository().isInitialized(), "dependency initialized");
+    assertEquals(Arrays.asList("init pool", "init repository", "init service"), EVENTS, "initialized in dependency order");
+    EVENTS.clear();
+    final ShutdownReport report = context.shutdown(Duration.ofSeconds(5));
+    assertTrue(report.isClean(), "clean");
+    assertEquals(3, report.getDestroyed(), "destroyed");
+    assertEquals(Arrays.asList("destroy service", "destroy repository", "close pool"), EVENTS, "dependents first");
+    assertEquals(0, context.shutdown(Duration.ofSeconds(5)).getDestroyed(), "only once");
+  }
+
+  @Test
+  public void injectedFieldsAreDestroyedAfterTheirOwner() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    assertNotNull(context.requireBean(FieldTop.class).getBottom(), "injected");
+    assertTrue(context.shutdown(Duration.ofSeconds(5)).isClean(), "clean");
+    assertEquals(Arrays.asList("ftop-start", "ftop-end", "fbottom"), EVENTS, "owner first");
+  }
+
+  @Test
+  public void slowHooksTimeOut() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    context.requireBean(SlowToStop.class);
+    final ShutdownReport report = context.shutdown(Duration.ofMillis(50));
+    assertEquals(Collections.singletonList(SlowToStop.class), report.getTimedOut(), "timed out");
+    assertTrue(report.getElapsedNanos() < Duration.ofSeconds(5).toNanos(), "didn't wait it out");
+  }
+
+  @Test
+  public void startBuildsUpFront() {
+    final DependencyInjectionContext context = new DependencyInjectionContext().start(LifecyclePool.class, LifecycleService.class);
+    assertTrue(EVENTS.contains("init service"), "service");
+    assertNotNull(context.findBeanByType(LifecycleService.class), "known");
+    context.close();
+    assertTrue(EVENTS.contains("close pool"), "closed");
+  }
+
+  @Test
+  public void startBuildsSharedDependenciesOnce() {
+    SharedClock.BUILT.set(0);
+    final DependencyInjectionContext context = new DependencyInjectionContext().start(ClockReader.class, ClockWriter.class);
+    assertEquals(1, SharedClock.BUILT.get(), "built once");
+    assertSame(context.requireBean(ClockReader.class).getClock(), context.requireBean(ClockWriter.class).getClock(), "shared");
+    assertEquals(Collections.singletonList("init clock"), EVENTS, "initialized once");
+  }
+
+  @Test
+  public void transientBeansAreNotKeptForShutdown() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    for (int i = 0; i < 1_000; i++) assertNotNull(context.requireBean(TransientConnection.class), "built");
+    assertEquals(0, context.countManagedBeans(), "none kept");
+    context.requireBean(LifecyclePool.class);
+    assertEquals(1, context.countManagedBeans(), "singleton kept");
+  }
+
+  @Named
+  public static class ChainBottom {
+    @PreDestroy
+    public void destroy() {
+      EVENTS.add("bottom");
+    }
+  }
+
+  @Named
+  public static class ChainMiddle {
+    public ChainMiddle(final ChainBottom bottom) {
+    }
+  }
+
+  public static class ChainTop {
+    public ChainTop(final ChainMiddle middle) {
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+      slowly("top");
+    }
+  }
+
+  @Named
+  @Getter
+  public static class ClockReader {
+    private final SharedClock clock;
+
+    public ClockReader(final SharedClock clock) {
+      this.clock = clock;
+    }
+  }
+
+  @Named
+  @Getter
+  public static class ClockWriter {
+    private final SharedClock clock;
+
+    public ClockWriter(final SharedClock clock) {
+      this.clock = clock;
+    }
+  }
+
+  @Named
+  public static class FieldBottom {
+    @PreDestroy
+    public void destroy() {
+      EVENTS.add("fbottom");
+    }
+  }
+
+  @Getter
+  public static class FieldTop {
+    @Inject
+    private FieldBottom bottom;
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+      slowly("ftop");
+    }
+  }
+
+  @Named
+  public static class LifecyclePool implements AutoCloseable {
+    @PostConstruct
+    private void init() {
+      EVENTS.add("init pool");
+    }
+
+    @Override
+    public void close() {
+      EVENTS.add("close pool");
+    }
+  }
+
+  @Named
+  public static class LifecycleRepository {
+    @Getter
+    private boolean initialized;
+
+    public LifecycleRepository(final LifecyclePool pool) {
+    }
+
+    @PreDestroy
+    public void destroy() {
+      EVENTS.add("destroy repository");
+    }
+
+    @PostConstruct
+    public void init() {
+      initialized = true;
+      EVENTS.add("init repository");
+    }
+  }
+
+  @Getter
+  public static class LifecycleService {
+    private final LifecycleRepository repository;
+
+    public LifecycleService(final LifecycleRepository repository) {
+      this.repository = repository;
+    }
+
+    @PreDestroy
+    public void destroy() {
+      EVENTS.add("destroy service");
+    }
+
+    @PostConstruct
+    public void init() {
+      EVENTS.add("init service");
+    }
+  }
+
+  @Named
+  public static class SharedClock {
+    private static final AtomicInteger BUILT = new AtomicInteger();
+
+    public SharedClock() throws InterruptedException {
+      BUILT.incrementAndGet();
+      // long enough for both roots to get here at once
+      Thread.sleep(100);
+    }
+
+    @PostConstruct
+    public void init() {
+      EVENTS.add("init clock");
+    }
+  }
+
+  public static class SlowToStop {
+    @PreDestroy
+    public void stop() throws InterruptedException {
+      Thread.sleep(Duration.ofMinutes(1).toMillis());
+    }
+  }
+
+  @Retained(BeanRetention.NONE)
+  public static class TransientConnection implements AutoCloseable {
+    @Override
+    public void close() {
+      EVENTS.add("close connection");
+    }
+  }
+}
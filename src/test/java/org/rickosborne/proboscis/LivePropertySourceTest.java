@@ -0,0 +1,101 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LivePropertySourceTest {
+  public static final String SIZE_PROPERTY = "test.live.size";
+  public static final String NAME_PROPERTY = "test.live.name";
+
+  private static void write(final Path file, final String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void boundPropertiesFollowUpdates() {
+    final LivePropertySource source = LivePropertySource.of(PropertySource.of(Collections.singletonMap(SIZE_PROPERTY, "10")));
+    final DependencyInjectionContext context = new DependencyInjectionContext().withPropertySource(source);
+    final TunableBean bean = context.requireBean(TunableBean.class);
+    assertEquals(Integer.valueOf(10), bean.getSize().get(), "initial");
+    assertEquals("fallback", bean.getName().get(), "default");
+    assertEquals(10, bean.getFixed(), "plain");
+    final long version = source.getVersion();
+    source.update(PropertySource.of(Collections.singletonMap(SIZE_PROPERTY, "20")));
+    assertEquals(version + 1, source.getVersion(), "version bumped");
+    assertEquals(Integer.valueOf(20), bean.getSize().get(), "updated");
+    assertEquals(source.getVersion(), bean.getSize().getVersion(), "stamped");
+    assertEquals(Collections.singletonList(20), bean.getChanges(), "notified");
+    assertEquals(10, bean.getFixed(), "plain values stay put");
+    source.update(PropertySource.of(Collections.singletonMap(SIZE_PROPERTY, "twenty")));
+    assertEquals(Integer.valueOf(20), bean.getSize().get(), "bad values ignored");
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void rawLivePropertiesAreRejected() {
+    final DependencyInjectionContext context = new DependencyInjectionContext()
+      .withPropertySource(PropertySource.of(Collections.singletonMap(SIZE_PROPERTY, "10")));
+    final IllegalArgumentException property = assertThrows(IllegalArgumentException.class, () -> context.requireBean(RawPropertyBean.class));
+    assertTrue(property.getMessage().contains("raw Property"), "explains");
+    final IllegalArgumentException supplier = assertThrows(IllegalArgumentException.class, () -> context.requireBean(RawSupplierBean.class));
+    assertTrue(supplier.getMessage().contains("raw Supplier"), "explains");
+  }
+
+  @Test
+  public void watchesFile() throws IOException, InterruptedException {
+    final Path dir = Files.createTempDirectory("proboscis");
+    final Path file = dir.resolve("live.properties");
+    write(file, SIZE_PROPERTY + "=1\n");
+    try (final LivePropertySource source = LivePropertySource.watching(file)) {
+      final Property<Integer> size = source.bind(SIZE_PROPERTY, null, Integer::valueOf);
+      assertEquals(Integer.valueOf(1), size.get(), "initial");
+      write(file, SIZE_PROPERTY + "=2\n");
+      for (int i = 0; i < 100 && !Integer.valueOf(2).equals(size.get()); i++) Thread.sleep(100);
+      assertEquals(Integer.valueOf(2), size.get(), "reloaded");
+    } finally {
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  public static class RawPropertyBean {
+    @SuppressWarnings("rawtypes")
+    public RawPropertyBean(@SystemProperty(SIZE_PROPERTY) final Property size) {
+    }
+  }
+
+  public static class RawSupplierBean {
+    @SuppressWarnings("rawtypes")
+    @SystemProperty(SIZE_PROPERTY)
+    private Supplier size;
+  }
+
+  @Getter
+  public static class TunableBean {
+    private final List<Integer> changes = new LinkedList<>();
+    private final int fixed;
+    private final Supplier<String> name;
+    private final Property<Integer> size;
+
+    public TunableBean(
+      @SystemProperty(SIZE_PROPERTY) final Property<Integer> size,
+      @SystemProperty(value = NAME_PROPERTY, defaultValue = "fallback") final Supplier<String> name,
+      @SystemProperty(SIZE_PROPERTY) final int fixed
+    ) {
+      this.fixed = fixed;
+      this.name = name;
+      this.size = size.onChange(changes::add);
+    }
+  }
+}
@@ -4,15 +4,22 @@ import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.reflections.Reflections;
 import org.rickosborne.proboscis.ex.NoSuchBeanException;
 
+import javax.inject.Named;
 import java.util.UUID;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LoaderTest {
+  @AfterEach
+  public void unseal() {
+    Loader.reset();
+  }
 
   @Test
   public void buildByName() {
@@ -21,6 +28,15 @@ public class LoaderTest {
     assertEquals(NoArg.class, bean.getClass(), () -> "type: " + bean.getClass().getSimpleName());
   }
 
+  @Test
+  public void buildByNameReusesIndexButNotInstances() {
+    final ILoaderTest first = Loader.buildByName(ILoaderTest.class, "alter arg", "No");
+    final ILoaderTest second = Loader.buildByName(ILoaderTest.class, "AlterArg", "No");
+    assertEquals(AlterNoArg.class, first.getClass(), "stop word and spaces");
+    assertNotSame(first, second, "fresh instance each time");
+    assertEquals(NoArg.class, Loader.buildByName(ILoaderTest.class, "noarg", "No").getClass(), "exact name still matches");
+  }
+
   @Test
   public void buildByNameThrowsForNotFound() {
     final String name = "bogus";
@@ -55,6 +71,16 @@ public class LoaderTest {
     assertNotNull(bean, "NoArg");
   }
 
+  @Test
+  public void compactIndexMatchesFullScan() {
+    final Reflections reflections = Loader.getReflections();
+    final ScanIndex index = ScanIndex.of(reflections);
+    assertTrue(index.size() > 0, "indexed something");
+    assertEquals(reflections.getSubTypesOf(ILoaderTest.class), index.getSubTypesOf(ILoaderTest.class), "subtypes");
+    assertEquals(reflections.getTypesAnnotatedWith(Named.class), index.getTypesAnnotatedWith(Named.class), "named");
+    assertTrue(index.getSubTypesOf(UUID.class).isEmpty(), "unscanned type");
+  }
+
   @Test
   public void factory() {
     final Supplier<EachUnique> supplier = Loader.factoryFor(EachUnique.class, null);
@@ -65,6 +91,33 @@ public class LoaderTest {
     assertNotEquals(first, second);
   }
 
+  @Test
+  public void sealKeepsWorking() {
+    final SealReport report = Loader.seal();
+    assertTrue(Loader.isSealed(), "sealed");
+    assertTrue(report.getIndexedTypes() > 0, "indexed types");
+    final ILoaderTest bean = Loader.buildByName(ILoaderTest.class, "AlterNoArg");
+    assertEquals(AlterNoArg.class, bean.getClass(), "built from index");
+    assertNotNull(new DependencyInjectionContext().buildBean(DependencyInjectionContextTest.RequiresByNameBean.class), "context still finds named types");
+  }
+
+  @Test
+  public void sealCompactsTheContextsNamedTypes() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final SealReport report = context.seal();
+    assertEquals(context.countNamedTypes(), report.getNamedTypes(), "named types");
+    assertTrue(context.implementationsFor(DependencyInjectionContextTest.ITestBean.class).contains(DependencyInjectionContextTest.TestNamedBean.class), "implementations still found");
+    assertNotNull(context.buildBean(DependencyInjectionContextTest.RequiresByNameBean.class), "still builds");
+  }
+
+  @Test
+  public void sealStaysSealed() {
+    Loader.seal();
+    assertThrows(IllegalStateException.class, Loader::getReflections, "no full scan to hand out");
+    assertEquals(1, Loader.getSubTypesOf(ILoaderTest.class).stream().filter(type -> type == NoArg.class).count(), "still from the index");
+    assertTrue(Loader.isSealed(), "not rescanned");
+  }
+
   public interface ILoaderTest {}
 
   @SuppressWarnings("unused")
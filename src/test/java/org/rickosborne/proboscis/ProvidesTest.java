@@ -0,0 +1,116 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProvidesTest {
+  @Test
+  public void modulesProvideBeans() {
+    final GreetingModule module = new GreetingModule();
+    final DependencyInjectionContext context = new DependencyInjectionContext().install(module);
+    final Greeter greeter = context.requireBean(Greeter.class);
+    assertEquals("Hello, world", greeter.greet(), "provided, with a provided dependency");
+    final GreetingUser user = context.requireBean(GreetingUser.class);
+    assertSame(greeter, user.getGreeter(), "constructors get the provided singleton");
+    assertEquals(1, module.calls.get(), "called once");
+    assertEquals(1, context.buildAll(Greeter.class).size(), "counts as an implementation");
+    assertTrue(context.validate(GreetingUser.class).getProblems().stream().noneMatch(problem -> problem.getType() == GreetingUser.class || problem.getType() == Greeter.class), "valid");
+  }
+
+  @Test
+  public void modulesCanProvideSeveralNamedBeansOfOneType() {
+    final DependencyInjectionContext context = new DependencyInjectionContext().install(new StorageModule());
+    final Replicated replicated = context.requireBean(Replicated.class);
+    assertEquals("primary", replicated.getPrimary().url(), "primary");
+    assertEquals("replica", replicated.getReplica().url(), "replica");
+    assertSame(replicated.getReplica(), context.buildBean("REPLICA", Storage.class), "by name, as a singleton");
+  }
+
+  @Test
+  public void modulesCannotProvideTheSameBeanTwice() {
+    final IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> new DependencyInjectionContext().install(new DuplicateModule()));
+    assertTrue(error.getMessage().contains("same type and name"), "says why");
+  }
+
+  @Test
+  public void modulesNeedProvidesMethods() {
+    assertThrows(IllegalArgumentException.class, () -> new DependencyInjectionContext().install(new Object()));
+  }
+
+  public static class DuplicateModule {
+    @Provides
+    @Named("primary")
+    public Storage first() {
+      return () -> "first";
+    }
+
+    @Provides
+    @Named("PRIMARY")
+    public Storage second() {
+      return () -> "second";
+    }
+  }
+
+  public interface Greeter {
+    String greet();
+  }
+
+  public static class GreetingModule {
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Provides
+    public Greeter greeter(@Named("target") final String target) {
+      calls.incrementAndGet();
+      return () -> "Hello, " + target;
+    }
+
+    @Provides
+    @Named("target")
+    static String target() {
+      return "world";
+    }
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public static class GreetingUser {
+    private final Greeter greeter;
+    private final List<Greeter> greeters;
+  }
+
+  @Getter
+  public static class Replicated {
+    private final Storage primary;
+    private final Storage replica;
+
+    public Replicated(@Named("primary") final Storage primary, @Named("replica") final Storage replica) {
+      this.primary = primary;
+      this.replica = replica;
+    }
+  }
+
+  public interface Storage {
+    String url();
+  }
+
+  public static class StorageModule {
+    @Provides
+    @Named("primary")
+    public Storage primary() {
+      return () -> "primary";
+    }
+
+    @Provides
+    @Named("replica")
+    public Storage replica() {
+      return () -> "replica";
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package org.rickosborne.proboscis;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures roughly how much heap {@link DependencyInjectionContext#seal()} gives back, around requested GCs.
+ * Not a unit test: run it by hand, with the test classes on the class path.
+ * <pre>
+ *   java -cp target/classes:target/test-classes:... org.rickosborne.proboscis.SealBenchmark
+ * </pre>
+ */
+public class SealBenchmark {
+  public static void main(final String[] args) {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    context.requireBean(DependencyInjectionContextTest.RequiresAllTestBeans.class);
+    final long before = usedHeap();
+    final SealReport report = context.seal();
+    final long after = usedHeap();
+    System.out.println("Indexed types: " + report.getIndexedTypes());
+    System.out.println("Named types: " + report.getNamedTypes());
+    System.out.println("Reclaimed bytes, or zero if the GC didn't cooperate: " + Math.max(0L, before - after));
+    // keep it reachable until after the second measurement
+    System.out.println("Still builds: " + context.requireBean(DependencyInjectionContextTest.RequiresByTypeBean.class));
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
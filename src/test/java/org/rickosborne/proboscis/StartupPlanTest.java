@@ -0,0 +1,63 @@
+package org.rickosborne.proboscis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupPlanTest {
+  private static byte[] bytesOf(final StartupPlan plan) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    plan.write(out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void recordedPlanRoundTrips() throws IOException {
+    final StartupPlan recorded = StartupPlan.empty();
+    new DependencyInjectionContext().withStartupPlan(recorded).requireBean(DependencyInjectionContextTest.RequiresByTypeBean.class);
+    assertTrue(recorded.size() >= 2, "bean and its dependency");
+    assertEquals(
+      Collections.singletonList(DependencyInjectionContextTest.TestUnnamedBean.class.getName()),
+      recorded.dependenciesOf(DependencyInjectionContextTest.RequiresByTypeBean.class),
+      "dependencies"
+    );
+    final StartupPlan loaded = StartupPlan.read(new ByteArrayInputStream(bytesOf(recorded)));
+    assertEquals(recorded.size(), loaded.size(), "size");
+    assertEquals(recorded.dependenciesOf(DependencyInjectionContextTest.RequiresByTypeBean.class), loaded.dependenciesOf(DependencyInjectionContextTest.RequiresByTypeBean.class), "dependencies survive");
+    final DependencyInjectionContextTest.RequiresByTypeBean bean = new DependencyInjectionContext().withStartupPlan(loaded).requireBean(DependencyInjectionContextTest.RequiresByTypeBean.class);
+    assertNotNull(bean.getUnnamed(), "built from plan");
+    assertTrue(loaded.getHitCount() >= 2, "used the plan");
+    assertEquals(0, loaded.getStaleCount(), "nothing stale");
+  }
+
+  @Test
+  public void rejectsGarbage() {
+    assertThrows(IOException.class, () -> StartupPlan.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6})));
+  }
+
+  @Test
+  public void staleEntriesFallBackToScanning() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream data = new DataOutputStream(bytes);
+    data.writeInt(0x50524f42);
+    data.writeShort(1);
+    data.writeInt(1);
+    data.writeUTF(DependencyInjectionContextTest.TestUnnamedBean.class.getName());
+    data.writeLong(0L);
+    data.writeUTF("<init>");
+    data.writeInt(0);
+    data.writeInt(-1);
+    data.flush();
+    final StartupPlan plan = StartupPlan.read(new ByteArrayInputStream(bytes.toByteArray()));
+    assertNotNull(new DependencyInjectionContext().withStartupPlan(plan).requireBean(DependencyInjectionContextTest.TestUnnamedBean.class), "still built");
+    assertEquals(1, plan.getStaleCount(), "checksum mismatch");
+    assertEquals(1, plan.size(), "recorded again");
+    assertNotNull(plan.find(DependencyInjectionContextTest.TestUnnamedBean.class), "fresh entry");
+  }
+}
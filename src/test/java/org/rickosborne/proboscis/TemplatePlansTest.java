@@ -0,0 +1,59 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplatePlansTest {
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void parameterizationsShareOneTemplate() {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final List<Type> entities = Arrays.asList(Invoice.class, Customer.class, Order.class, new ParameterizedTypeWrapper<>(List.class, Order.class));
+    final Map<Type, EntityStore> stores = context.buildParameterizedBeans(EntityStore.class, entities);
+    assertEquals(entities, Arrays.asList(stores.keySet().toArray()), "in order");
+    assertEquals(Invoice.class, stores.get(Invoice.class).getEntityType(), "first");
+    assertEquals(Order.class, stores.get(Order.class).getEntityType(), "from the template");
+    assertEquals(List.class, stores.get(entities.get(3)).getEntityType(), "nested");
+    assertNotNull(stores.get(Order.class).getClock(), "fixed parameter");
+    assertEquals(1, context.getStatistics().getTemplatePlanCount(), "one template");
+    assertEquals(4, context.getStatistics().getParameterizedBeanCount(), "every instantiation");
+    assertSame(stores.get(Customer.class), context.buildParameterizedBean(EntityStore.class, Customer.class), "found again");
+  }
+
+  @Test
+  public void bulkBuildsNeedOneTypeParameter() {
+    assertThrows(IllegalArgumentException.class, () -> new DependencyInjectionContext().buildParameterizedBeans(Clock.class, Arrays.asList(Order.class)));
+  }
+
+  @Named
+  public static class Clock {
+  }
+
+  public static class Customer {
+  }
+
+  @Getter
+  public static class EntityStore<EntityT> {
+    private final Clock clock;
+    private final Class<EntityT> entityType;
+
+    public EntityStore(@TypeParam(0) final Class<EntityT> entityType, final Clock clock) {
+      this.clock = clock;
+      this.entityType = entityType;
+    }
+  }
+
+  public static class Invoice {
+  }
+
+  public static class Order {
+  }
+}
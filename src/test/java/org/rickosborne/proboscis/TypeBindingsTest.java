@@ -0,0 +1,97 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeBindingsTest {
+  @Test
+  public void inheritedVariablesAreBound() {
+    final TypeBindings bindings = TypeBindings.of(UserRepository.class);
+    assertEquals(User.class, bindings.typeArgument(Repository.class, 0), "through the superclass");
+    assertEquals(new ParameterizedTypeWrapper<>(List.class, new Type[]{User.class}), bindings.typeArgument(Lookup.class, 0), "through its interface");
+    assertNull(bindings.typeArgument(UserRepository.class, 0), "has none of its own");
+  }
+
+  @Test
+  public void bindingsAreMemoized() {
+    final Type listOfUsers = new ParameterizedTypeWrapper<>(List.class, new Type[]{User.class});
+    assertSame(TypeBindings.of(UserRepository.class), TypeBindings.of(UserRepository.class), "raw");
+    assertSame(TypeBindings.of(Repository.class, new Type[]{listOfUsers}), TypeBindings.of(new ParameterizedTypeWrapper<>(Repository.class, new Type[]{listOfUsers})), "parameterized");
+  }
+
+  @Test
+  public void onlyCanonicalArgumentsAreMemoized() throws NoSuchFieldException {
+    final Type wildcard = ((ParameterizedType) Wildcards.class.getDeclaredField("anything").getGenericType()).getActualTypeArguments()[0];
+    final Type variable = Repository.class.getTypeParameters()[0];
+    assertNotSame(TypeBindings.of(Repository.class, new Type[]{wildcard}), TypeBindings.of(Repository.class, new Type[]{wildcard}), "wildcard");
+    assertNotSame(TypeBindings.of(Repository.class, new Type[]{variable}), TypeBindings.of(Repository.class, new Type[]{variable}), "type variable");
+    assertSame(TypeBindings.of(Repository.class, new Type[]{User.class}), TypeBindings.of(Repository.class, new Type[]{User.class}), "class");
+  }
+
+  @Test
+  public void wildcardsResolveToTheirBounds() throws NoSuchFieldException {
+    final TypeBindings bindings = TypeBindings.of(Wildcards.class);
+    assertEquals(new ParameterizedTypeWrapper<>(List.class, new Type[]{User.class}), bindings.resolve(Wildcards.class.getDeclaredField("users").getGenericType()), "extends");
+    assertEquals(new ParameterizedTypeWrapper<>(List.class, new Type[]{User.class}), bindings.resolve(Wildcards.class.getDeclaredField("sink").getGenericType()), "super");
+    final ParameterizedType anything = (ParameterizedType) bindings.resolve(Wildcards.class.getDeclaredField("anything").getGenericType());
+    assertTrue(anything.getActualTypeArguments()[0] instanceof WildcardType, "unbounded kept");
+  }
+
+  @Test
+  public void typeParamsSeeNestedArguments() {
+    final RepositoryUser user = new DependencyInjectionContext().buildBean(RepositoryUser.class);
+    assertEquals(User.class, user.getUsers().getEntityType(), "simple");
+    assertEquals(List.class, user.getUserLists().getEntityType(), "nested, through a supplier");
+    assertEquals(User.class, user.getUserRepository().getEntityType(), "inherited");
+  }
+
+  public static class Wildcards {
+    List<?> anything;
+    List<? super User> sink;
+    List<? extends User> users;
+  }
+
+  public interface Lookup<KeyT> {
+  }
+
+  @Getter
+  public static class Repository<EntityT> {
+    private final Class<EntityT> entityType;
+
+    public Repository(@TypeParam final Class<EntityT> entityType) {
+      this.entityType = entityType;
+    }
+  }
+
+  @Getter
+  public static class RepositoryUser {
+    private final Repository<List<User>> userLists;
+    private final UserRepository userRepository;
+    private final Repository<User> users;
+
+    public RepositoryUser(final Repository<User> users, final Supplier<Repository<List<User>>> userLists, final UserRepository userRepository) {
+      this.userLists = userLists.get();
+      this.userRepository = userRepository;
+      this.users = users;
+    }
+  }
+
+  public static class User {
+  }
+
+  @Named
+  public static class UserRepository extends Repository<User> implements Lookup<List<User>> {
+    public UserRepository() {
+      super(User.class);
+    }
+  }
+}
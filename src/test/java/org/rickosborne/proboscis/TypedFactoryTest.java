@@ -5,11 +5,19 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TypedFactoryTest {
   @Test
@@ -42,10 +50,81 @@ public class TypedFactoryTest {
     assertNotEquals(first, second);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void failedCandidatesAreNotTriedAgain() {
+    final Set<Class<?>> implementors = Collections.singleton(BrokenShape.class);
+    final ImplementationChoices choices = new ImplementationChoices();
+    final ImplementationResolver resolver = new ImplementationResolver() {
+      @Override
+      public <T> Set<Class<? extends T>> implementationsOf(final Class<T> type) {
+        return type == Shape.class ? (Set) implementors : null;
+      }
+    };
+    final int[] lookups = {0};
+    final Supplier<TypedFactory<Shape>> factory = () -> Loader.factoryFor(Shape.class, null)
+      .withImplementationChoices(choices)
+      .withImplementationResolver(resolver)
+      .withFieldOrParamResolver(fieldOrParam -> {
+        lookups[0]++;
+        return null;
+      });
+    final UnsupportedOperationException failure = assertThrows(UnsupportedOperationException.class, () -> factory.get().get());
+    final int tried = lookups[0];
+    assertTrue(tried > 0, "tried");
+    assertSame(failure, assertThrows(UnsupportedOperationException.class, () -> factory.get().get()), "same failure");
+    assertEquals(tried, lookups[0], "not tried again");
+    choices.retryFailed();
+    assertThrows(UnsupportedOperationException.class, () -> factory.get().get());
+    assertTrue(lookups[0] > tried, "tried again when asked to");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void implementationChoiceIsByPriorityAndRemembered() {
+    final Set<Class<?>> implementors = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+      UnbuildableShape.class, DefaultShape.class, PreferredShape.class
+    )));
+    final ImplementationChoices choices = new ImplementationChoices();
+    final ImplementationResolver resolver = new ImplementationResolver() {
+      @Override
+      public <T> Set<Class<? extends T>> implementationsOf(final Class<T> type) {
+        return type == Shape.class ? (Set) implementors : null;
+      }
+    };
+    final Shape shape = Loader.factoryFor(Shape.class, null)
+      .withImplementationChoices(choices)
+      .withImplementationResolver(resolver)
+      .get();
+    assertTrue(shape instanceof PreferredShape, "lowest priority that can be built");
+    final ImplementationChoices.Choice<Shape> choice = choices.choiceFor(Shape.class, null, (Set) implementors);
+    assertEquals(Arrays.asList(PreferredShape.class, DefaultShape.class), choice.getCandidates(), "unbuildable skipped");
+    assertSame(PreferredShape.class, choice.getChosen(), "remembered");
+  }
+
+  @Priority(-3)
+  public static class BrokenShape implements Shape {
+    public BrokenShape(final UUID id) {
+    }
+  }
+
+  public static class DefaultShape implements Shape {}
+
   @RequiredArgsConstructor
   @Getter
   @EqualsAndHashCode
   private static class NeedsId {
     private final UUID id;
   }
-}
\ No newline at end of file
+
+  @Priority(-1)
+  public static class PreferredShape implements Shape {}
+
+  public interface Shape {}
+
+  @Priority(-5)
+  public static class UnbuildableShape implements Shape {
+    private UnbuildableShape() {
+    }
+  }
+}
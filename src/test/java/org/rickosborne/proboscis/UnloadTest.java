@@ -0,0 +1,94 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnloadTest {
+  @Test
+  public void unloadingForgetsThePluginAndLetsItsLoaderGo() throws Exception {
+    final DependencyInjectionContext context = new DependencyInjectionContext();
+    final WeakReference<ClassLoader> loader = loadPlugin(context);
+    for (int i = 0; i < 50 && loader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertNull(loader.get(), "collected");
+    assertTrue(context.implementationsFor(Greeter.class).isEmpty(), "no more greeters");
+    assertNotNull(context.requireBean(Unrelated.class), "still works");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static WeakReference<ClassLoader> loadPlugin(final DependencyInjectionContext context) throws Exception {
+    final ClassLoader loader = new PluginLoader(PluginGreeter.class.getName());
+    final Class<Object> pluginType = (Class<Object>) loader.loadClass(PluginGreeter.class.getName());
+    assertNotSame(PluginGreeter.class, pluginType, "loaded again");
+    context.registerBean(pluginType, pluginType.newInstance(), null);
+    final Welcome welcome = context.requireBean(Welcome.class);
+    assertEquals("hello from the plugin", welcome.getGreeter().greet(), "plugin greets");
+    final Unrelated unrelated = context.requireBean(Unrelated.class);
+    assertEquals(new UnloadReport(2, 1), context.unload(loader), "plugin and welcome");
+    assertNull(context.findBeanByType(Welcome.class), "welcome forgotten");
+    assertSame(unrelated, context.findBeanByType(Unrelated.class), "unrelated kept");
+    return new WeakReference<>(loader);
+  }
+
+  public interface Greeter {
+    String greet();
+  }
+
+  public static class PluginGreeter implements Greeter {
+    @Override
+    public String greet() {
+      return "hello from the plugin";
+    }
+  }
+
+  /**
+   * Defines its own copy of the one class, and leaves everything else to its parent.
+   */
+  private static class PluginLoader extends ClassLoader {
+    private final String pluginName;
+
+    private PluginLoader(final String pluginName) {
+      super(UnloadTest.class.getClassLoader());
+      this.pluginName = pluginName;
+    }
+
+    @Override
+    protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+      if (!pluginName.equals(name)) return super.loadClass(name, resolve);
+      synchronized (getClassLoadingLock(name)) {
+        final Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) return loaded;
+        try (final InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+          final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          final byte[] buffer = new byte[4096];
+          for (int read; (read = in.read(buffer)) > 0; ) bytes.write(buffer, 0, read);
+          return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        } catch (final IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    }
+  }
+
+  @Named
+  public static class Unrelated {
+  }
+
+  @Named
+  @Getter
+  @RequiredArgsConstructor
+  public static class Welcome {
+    private final Greeter greeter;
+  }
+}
@@ -0,0 +1,81 @@
+package org.rickosborne.proboscis;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmUpTest {
+  @Test
+  public void foregroundJoinsInFlightBuild() {
+    final DependencyInjectionContext context = new DependencyInjectionContext().withWarmUp(SlowToBuild.class);
+    final CompletableFuture<Void> done = context.warmUp();
+    final SlowToBuild bean = context.requireBean(SlowToBuild.class);
+    done.join();
+    assertEquals(1, SlowToBuild.BUILDS.get(), "built once");
+    assertSame(bean, context.requireBean(SlowToBuild.class), "same bean");
+  }
+
+  @Test
+  public void dependenciesJoinInFlightBuild() {
+    final DependencyInjectionContext context = new DependencyInjectionContext().withWarmUp(SlowToShare.class);
+    final CompletableFuture<Void> done = context.warmUp();
+    final NeedsSlowToShare needs = context.requireBean(NeedsSlowToShare.class);
+    done.join();
+    assertEquals(1, SlowToShare.BUILDS.get(), "built once");
+    assertSame(needs.getShared(), context.requireBean(SlowToShare.class), "same bean");
+  }
+
+  @Test
+  public void foregroundTakesOverQueuedBuild() {
+    final List<Runnable> queued = new ArrayList<>();
+    final DependencyInjectionContext context = new DependencyInjectionContext().withWarmUp(QueuedToBuild.class);
+    final CompletableFuture<Void> done = context.warmUp(queued::add);
+    assertEquals(1, queued.size(), "scheduled");
+    final QueuedToBuild bean = context.requireBean(QueuedToBuild.class);
+    assertTrue(done.isDone(), "taken over");
+    queued.forEach(Runnable::run);
+    assertEquals(1, QueuedToBuild.BUILDS.get(), "built once");
+    assertSame(bean, done.thenApply(ignored -> context.requireBean(QueuedToBuild.class)).join(), "same bean");
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public static class NeedsSlowToShare {
+    private final SlowToShare shared;
+  }
+
+  public static class QueuedToBuild {
+    static final AtomicInteger BUILDS = new AtomicInteger();
+
+    public QueuedToBuild() {
+      BUILDS.incrementAndGet();
+    }
+  }
+
+  public static class SlowToBuild {
+    static final AtomicInteger BUILDS = new AtomicInteger();
+
+    public SlowToBuild() throws InterruptedException {
+      Thread.sleep(100);
+      BUILDS.incrementAndGet();
+    }
+  }
+
+  @Named
+  public static class SlowToShare {
+    static final AtomicInteger BUILDS = new AtomicInteger();
+
+    public SlowToShare() throws InterruptedException {
+      Thread.sleep(100);
+      BUILDS.incrementAndGet();
+    }
+  }
+}